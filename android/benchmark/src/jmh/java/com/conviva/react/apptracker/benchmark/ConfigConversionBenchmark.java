@@ -0,0 +1,36 @@
+package com.conviva.react.apptracker.benchmark;
+
+import com.conviva.apptracker.configuration.TrackerConfiguration;
+import com.conviva.react.apptracker.util.ConfigUtil;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The trackerConfig conversion done on every createTracker, with no keys
+ * and with every supported key set.
+ */
+@State(Scope.Benchmark)
+public class ConfigConversionBenchmark {
+
+    @Param({"empty", "full"})
+    public String trackerConfig;
+
+    private ReadableMap config;
+
+    @Setup
+    public void setUp() {
+        config = "full".equals(trackerConfig) ? Payloads.trackerConfig() : new JavaOnlyMap();
+    }
+
+    @Benchmark
+    public TrackerConfiguration mkTrackerConfiguration() {
+        // The context is not read while building the configuration
+        return ConfigUtil.mkTrackerConfiguration(config, "benchmark", null);
+    }
+}
@@ -0,0 +1,45 @@
+package com.conviva.react.apptracker.benchmark;
+
+import com.conviva.apptracker.payload.SelfDescribingJson;
+import com.conviva.react.apptracker.util.ContextCache;
+import com.conviva.react.apptracker.util.EventUtil;
+import com.facebook.react.bridge.ReadableArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Context arrays of a given length and data size, with the context cache on
+ * (the same contexts on every event, so lookups hit after the first call)
+ * and off (every context converted with toHashMap()).
+ */
+@State(Scope.Benchmark)
+public class ContextConversionBenchmark {
+
+    @Param({"1", "5"})
+    public int contexts;
+
+    @Param({"4", "32"})
+    public int properties;
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    private ReadableArray array;
+
+    @Setup
+    public void setUp() {
+        array = Payloads.contexts(contexts, properties);
+        EventUtil.getContextCache().configure(cache, ContextCache.DEFAULT_MAX_ENTRIES);
+    }
+
+    @Benchmark
+    public List<SelfDescribingJson> createContexts() {
+        return EventUtil.createContexts(array);
+    }
+}
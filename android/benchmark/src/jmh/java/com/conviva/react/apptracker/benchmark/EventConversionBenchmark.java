@@ -0,0 +1,41 @@
+package com.conviva.react.apptracker.benchmark;
+
+import com.conviva.apptracker.event.ScreenView;
+import com.conviva.apptracker.event.Structured;
+import com.conviva.react.apptracker.util.EventUtil;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Fixed-shape events; the payload size is the length of every string field.
+ */
+@State(Scope.Benchmark)
+public class EventConversionBenchmark {
+
+    @Param({"8", "64", "512"})
+    public int fieldLength;
+
+    private ReadableMap structured;
+    private ReadableMap screenView;
+
+    @Setup
+    public void setUp() {
+        structured = Payloads.structuredEvent(fieldLength);
+        screenView = Payloads.screenViewEvent(fieldLength);
+    }
+
+    @Benchmark
+    public Structured createStructuredEvent() {
+        return EventUtil.createStructuredEvent(structured);
+    }
+
+    @Benchmark
+    public ScreenView createScreenViewEvent() {
+        return EventUtil.createScreenViewEvent(screenView);
+    }
+}
@@ -0,0 +1,52 @@
+package com.conviva.react.apptracker.benchmark;
+
+import com.conviva.apptracker.event.EcommerceTransaction;
+import com.conviva.apptracker.revenue.ConvivaRevenueEvent;
+import com.conviva.apptracker.revenue.ConvivaRevenueEventItem;
+import com.conviva.react.apptracker.util.EventUtil;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Events carrying item lists; the payload size is the number of items.
+ */
+@State(Scope.Benchmark)
+public class ItemConversionBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int items;
+
+    private ReadableMap ecommerceTransaction;
+    private ReadableMap revenue;
+    private ReadableArray revenueItems;
+
+    @Setup
+    public void setUp() {
+        ecommerceTransaction = Payloads.ecommerceTransactionEvent(items);
+        revenue = Payloads.revenueEvent(items);
+        revenueItems = Payloads.revenueItems(items);
+    }
+
+    @Benchmark
+    public EcommerceTransaction createEcommerceTransactionEvent() {
+        return EventUtil.createEcommerceTransactionEvent(ecommerceTransaction);
+    }
+
+    @Benchmark
+    public ConvivaRevenueEvent createRevenueEvent() {
+        return EventUtil.createRevenueEvent(revenue);
+    }
+
+    @Benchmark
+    public List<ConvivaRevenueEventItem> createRevenueEventItems() {
+        return EventUtil.createRevenueEventItems(revenueItems);
+    }
+}
@@ -0,0 +1,154 @@
+package com.conviva.react.apptracker.benchmark;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+
+/**
+ * Bridge payloads shaped like the ones the JS layer sends. Numbers are
+ * doubles, as they are after crossing the bridge.
+ */
+final class Payloads {
+
+    static final String CONTEXT_SCHEMA = "iglu:com.conviva/benchmark_context/jsonschema/1-0-0";
+
+    private Payloads() {
+    }
+
+    static String text(int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + i % 26));
+        }
+        return text.toString();
+    }
+
+    static JavaOnlyMap structuredEvent(int fieldLength) {
+        return JavaOnlyMap.of(
+                "category", text(fieldLength),
+                "action", text(fieldLength),
+                "label", text(fieldLength),
+                "property", text(fieldLength),
+                "value", 42.5);
+    }
+
+    static JavaOnlyMap screenViewEvent(int fieldLength) {
+        return JavaOnlyMap.of(
+                "name", text(fieldLength),
+                "id", "5d79770b-015b-4af8-8c91-b2ed6faf4b1e",
+                "type", text(fieldLength),
+                "previousName", text(fieldLength),
+                "previousType", text(fieldLength),
+                "previousId", "0c5b2a0e-4b4f-4f43-9a8b-3b0f5d1c2e7a",
+                "transitionType", text(fieldLength));
+    }
+
+    static JavaOnlyMap ecommerceTransactionEvent(int items) {
+        JavaOnlyArray array = new JavaOnlyArray();
+        for (int i = 0; i < items; i++) {
+            array.pushMap(JavaOnlyMap.of(
+                    "sku", "sku-" + i,
+                    "price", 9.99,
+                    "quantity", 2.0,
+                    "name", "item " + i,
+                    "category", "category",
+                    "currency", "USD"));
+        }
+        return JavaOnlyMap.of(
+                "orderId", "order-1",
+                "totalValue", 19.98 * items,
+                "affiliation", "store",
+                "taxValue", 1.5,
+                "shipping", 4.0,
+                "city", "Foster City",
+                "state", "CA",
+                "country", "US",
+                "currency", "USD",
+                "items", array);
+    }
+
+    static JavaOnlyArray revenueItems(int items) {
+        JavaOnlyArray array = new JavaOnlyArray();
+        for (int i = 0; i < items; i++) {
+            array.pushMap(JavaOnlyMap.of(
+                    "productId", "product-" + i,
+                    "name", "item " + i,
+                    "sku", "sku-" + i,
+                    "category", JavaOnlyArray.of("apparel", "shoes"),
+                    "unitPrice", 59.0,
+                    "quantity", 1.0,
+                    "discount", 5.0,
+                    "brand", "brand",
+                    "variant", "blue",
+                    "extraMetadata", JavaOnlyMap.of("size", "42", "gift", true)));
+        }
+        return array;
+    }
+
+    static JavaOnlyMap revenueEvent(int items) {
+        return JavaOnlyMap.of(
+                "totalOrderAmount", 54.0 * items,
+                "transactionId", "transaction-1",
+                "currency", "USD",
+                "taxAmount", 3.0,
+                "shippingCost", 4.0,
+                "discount", 5.0,
+                "cartSize", (double) items,
+                "paymentMethod", "card",
+                "paymentProvider", "provider",
+                "items", revenueItems(items));
+    }
+
+    /**
+     * Contexts with the given number of data properties each.
+     */
+    static JavaOnlyArray contexts(int contexts, int properties) {
+        JavaOnlyArray array = new JavaOnlyArray();
+        for (int i = 0; i < contexts; i++) {
+            array.pushMap(JavaOnlyMap.of("schema", CONTEXT_SCHEMA, "data", properties(properties)));
+        }
+        return array;
+    }
+
+    static JavaOnlyMap properties(int properties) {
+        JavaOnlyMap data = new JavaOnlyMap();
+        for (int i = 0; i < properties; i++) {
+            switch (i % 3) {
+                case 0:
+                    data.putString("key" + i, "value " + i);
+                    break;
+                case 1:
+                    data.putDouble("key" + i, i);
+                    break;
+                default:
+                    data.putBoolean("key" + i, i % 2 == 0);
+                    break;
+            }
+        }
+        return data;
+    }
+
+    static JavaOnlyMap trackerConfig() {
+        return JavaOnlyMap.of(
+                "devicePlatform", "mob",
+                "logLevel", "off",
+                "base64Encoding", true,
+                "applicationContext", true,
+                "platformContext", true,
+                "geoLocationContext", false,
+                "sessionContext", true,
+                "screenContext", true,
+                "screenViewAutotracking", true,
+                "lifecycleAutotracking", true,
+                "installAutotracking", true,
+                "exceptionAutotracking", true,
+                "diagnosticAutotracking", false,
+                "deepLinkContext", true,
+                "userAnonymisation", false,
+                "bundleInfoAutotracking", true,
+                "enablePeriodicHeartbeat", true,
+                "periodicHeartbeatIntervalInSec", 30.0,
+                "periodicHeartbeatDelayInSec", 10.0,
+                "userClickAutotracking", true,
+                "deepLinkAutotracking", true);
+    }
+}
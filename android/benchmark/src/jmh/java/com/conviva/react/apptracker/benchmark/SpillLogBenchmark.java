@@ -0,0 +1,90 @@
+package com.conviva.react.apptracker.benchmark;
+
+import com.conviva.react.apptracker.util.SpillLog;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+
+/**
+ * Cost of logging a tracked event to the spill log and acknowledging it,
+ * against holding the same event in an in-memory queue only. The payload
+ * size is the number of properties in the event details.
+ */
+public class SpillLogBenchmark {
+
+    private static final String EVENT_TYPE = "custom";
+
+    @State(Scope.Benchmark)
+    public static class Payload {
+
+        @Param({"4", "32", "128"})
+        public int properties;
+
+        ReadableMap details;
+
+        @Setup
+        public void setUp() {
+            details = Payloads.properties(properties);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Log {
+
+        @Param({"never", "segment", "always"})
+        public String fsync;
+
+        SpillLog spillLog;
+        File directory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("conviva-rn-spill-bench").toFile();
+            spillLog = new SpillLog();
+            spillLog.open(directory, SpillLog.DEFAULT_SEGMENT_SIZE, SpillLog.Fsync.fromString(fsync));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Queue {
+
+        final ArrayDeque<ReadableMap> pending = new ArrayDeque<>();
+    }
+
+    @Benchmark
+    public long spillLogAppendAck(Log log, Payload payload) {
+        long id = log.spillLog.append(null, EVENT_TYPE, payload.details, System.currentTimeMillis());
+        log.spillLog.ack(id);
+        return id;
+    }
+
+    @Benchmark
+    public ReadableMap inMemoryQueue(Queue queue, Payload payload) {
+        synchronized (queue) {
+            queue.pending.add(payload.details);
+            return queue.pending.poll();
+        }
+    }
+}
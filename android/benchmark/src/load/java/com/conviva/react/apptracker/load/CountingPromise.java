@@ -0,0 +1,85 @@
+package com.conviva.react.apptracker.load;
+
+import com.conviva.react.apptracker.util.EventQuota;
+import com.conviva.react.apptracker.util.TrackingExecutor;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Counts how tracked events settle. Shared by all calls of a run, so the
+ * harness itself adds no per-event allocation.
+ *
+ * The reject overloads taking a WritableMap only exist in newer React Native
+ * versions and are therefore not annotated with @Override.
+ */
+final class CountingPromise implements Promise {
+
+    final AtomicLong resolved = new AtomicLong();
+    final AtomicLong dropped = new AtomicLong();
+    final AtomicLong overQuota = new AtomicLong();
+    final AtomicLong failed = new AtomicLong();
+    final AtomicReference<String> lastFailure = new AtomicReference<>();
+
+    long settled() {
+        return resolved.get() + dropped.get() + overQuota.get() + failed.get();
+    }
+
+    @Override
+    public void resolve(Object value) {
+        resolved.incrementAndGet();
+    }
+
+    @Override
+    public void reject(String code, String message) {
+        if (TrackingExecutor.DROPPED_MESSAGE.equals(message)) {
+            dropped.incrementAndGet();
+        } else if (EventQuota.REJECTED_MESSAGE.equals(message)) {
+            overQuota.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+            lastFailure.set(message);
+        }
+    }
+
+    @Override
+    public void reject(String code, Throwable throwable) {
+        reject(code, throwable.getMessage());
+    }
+
+    @Override
+    public void reject(String code, String message, Throwable throwable) {
+        reject(code, message);
+    }
+
+    @Override
+    public void reject(Throwable throwable) {
+        reject("ERROR", throwable.getMessage());
+    }
+
+    public void reject(Throwable throwable, WritableMap userInfo) {
+        reject("ERROR", throwable.getMessage());
+    }
+
+    public void reject(String code, WritableMap userInfo) {
+        reject(code, (String) null);
+    }
+
+    public void reject(String code, Throwable throwable, WritableMap userInfo) {
+        reject(code, throwable.getMessage());
+    }
+
+    public void reject(String code, String message, WritableMap userInfo) {
+        reject(code, message);
+    }
+
+    public void reject(String code, String message, Throwable throwable, WritableMap userInfo) {
+        reject(code, message);
+    }
+
+    public void reject(String message) {
+        reject("ERROR", message);
+    }
+}
@@ -0,0 +1,58 @@
+package com.conviva.react.apptracker.load;
+
+/**
+ * Microsecond-resolution latency counts up to MAX_US, plus an overflow
+ * bucket. One per producer thread, allocated before the baseline heap
+ * reading, so recording neither allocates nor synchronizes.
+ */
+final class LatencyHistogram {
+
+    static final int MAX_US = 100_000;
+
+    private final long[] counts = new long[MAX_US + 1];
+    private long total;
+    private long maxNanos;
+
+    void record(long nanos) {
+        long micros = nanos / 1000;
+        counts[(int) Math.min(micros, MAX_US)]++;
+        total++;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        maxNanos = Math.max(maxNanos, other.maxNanos);
+    }
+
+    long count() {
+        return total;
+    }
+
+    /**
+     * Quantile in microseconds; MAX_US stands for "at least MAX_US".
+     */
+    long quantileUs(double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i;
+            }
+        }
+        return MAX_US;
+    }
+
+    double maxUs() {
+        return maxNanos / 1e3;
+    }
+}
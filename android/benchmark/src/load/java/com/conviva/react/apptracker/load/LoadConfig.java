@@ -0,0 +1,54 @@
+package com.conviva.react.apptracker.load;
+
+/**
+ * Load run settings, read from load.* system properties over the defaults
+ * of the chosen mode.
+ *
+ * smoke: a few seconds, enough to catch a broken pipeline in CI.
+ * soak: half an hour at a sustained rate, to expose queue growth and leaks.
+ */
+final class LoadConfig {
+
+    final String mode;
+    final int producers;
+    // Events per second per producer; 0 sends as fast as the module returns
+    final int ratePerProducer;
+    final int durationSec;
+    final int queueCapacity;
+    final String queuePolicy;
+    final int contextsPerEvent;
+    final int drainTimeoutSec;
+    final String reportDir;
+
+    private LoadConfig(String mode, int producers, int ratePerProducer, int durationSec) {
+        this.mode = mode;
+        this.producers = intProperty("load.producers", producers);
+        this.ratePerProducer = intProperty("load.rate", ratePerProducer);
+        this.durationSec = intProperty("load.durationSec", durationSec);
+        this.queueCapacity = intProperty("load.queueCapacity", 1000);
+        this.queuePolicy = System.getProperty("load.queuePolicy", "dropNewest");
+        this.contextsPerEvent = intProperty("load.contexts", 1);
+        this.drainTimeoutSec = intProperty("load.drainTimeoutSec", 60);
+        this.reportDir = System.getProperty("load.reportDir", "build/reports/load");
+    }
+
+    static LoadConfig fromSystemProperties() {
+        String mode = System.getProperty("load.mode", "smoke");
+        if ("soak".equals(mode)) {
+            return new LoadConfig(mode, 4, 50, 30 * 60);
+        }
+        return new LoadConfig("smoke", 2, 100, 10);
+    }
+
+    private static int intProperty(String key, int fallback) {
+        String value = System.getProperty(key);
+        return value == null ? fallback : Integer.parseInt(value.trim());
+    }
+
+    @Override
+    public String toString() {
+        return "mode=" + mode + " producers=" + producers + " rate=" + ratePerProducer + "/s/producer"
+                + " duration=" + durationSec + "s queue=" + queueCapacity + "/" + queuePolicy
+                + " contexts=" + contextsPerEvent;
+    }
+}
@@ -0,0 +1,309 @@
+package com.conviva.react.apptracker.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.conviva.apptracker.ConvivaAppAnalytics;
+import com.conviva.apptracker.controller.EmitterController;
+import com.conviva.apptracker.controller.TrackerController;
+import com.conviva.react.apptracker.RNConvivaTrackerModule;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Drives RNConvivaTrackerModule's promise-based track methods from several
+ * producer threads, through the real tracker, to a local stub collector.
+ *
+ * Reports the sustained rate, the time each bridge call holds its caller
+ * (the enqueue latency), what reached the collector, heap growth across
+ * the run and how many events the tracking queue dropped. Runs offline:
+ * every request goes to the MockWebServer.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class LoadHarnessTest {
+
+    private static final String CONTEXT_SCHEMA = "iglu:com.conviva/load_context/jsonschema/1-0-0";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final LoadConfig config = LoadConfig.fromSystemProperties();
+    private final StubCollector collector = new StubCollector();
+    private MockWebServer server;
+    private RNConvivaTrackerModule module;
+    private String namespace;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(collector);
+        server.start();
+
+        module = new RNConvivaTrackerModule(new ReactApplicationContext(RuntimeEnvironment.getApplication()));
+        CountingPromise created = new CountingPromise();
+        module.createTracker(trackerConfig(server.url("/").toString()), created);
+        assertEquals("createTracker failed: " + created.lastFailure.get(), 1, created.resolved.get());
+        namespace = ConvivaAppAnalytics.getDefaultTracker().getNamespace();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void sustainedLoad() throws Exception {
+        System.out.println("[load] " + config);
+
+        CountingPromise outcome = new CountingPromise();
+        List<Producer> producers = new ArrayList<>();
+        for (int i = 0; i < config.producers; i++) {
+            producers.add(new Producer(i, outcome));
+        }
+
+        long heapBefore = usedHeapAfterGc();
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.SECONDS.toNanos(config.durationSec);
+        CountDownLatch done = new CountDownLatch(producers.size());
+        for (Producer producer : producers) {
+            producer.start(deadline, done);
+        }
+        done.await();
+        long producing = System.nanoTime() - started;
+
+        long sent = 0;
+        LatencyHistogram latency = new LatencyHistogram();
+        for (Producer producer : producers) {
+            sent += producer.sent;
+            latency.add(producer.latency);
+        }
+
+        boolean drained = drain(sent, outcome);
+        long elapsed = System.nanoTime() - started;
+        long heapAfter = usedHeapAfterGc();
+
+        JSONObject report = new JSONObject();
+        report.put("mode", config.mode);
+        report.put("producers", config.producers);
+        report.put("ratePerProducer", config.ratePerProducer);
+        report.put("durationSec", config.durationSec);
+        report.put("sent", sent);
+        report.put("resolved", outcome.resolved.get());
+        report.put("dropped", outcome.dropped.get());
+        report.put("overQuota", outcome.overQuota.get());
+        report.put("failed", outcome.failed.get());
+        report.put("sentPerSec", perSecond(sent, producing));
+        report.put("resolvedPerSec", perSecond(outcome.resolved.get(), producing));
+        report.put("enqueueP50Us", latency.quantileUs(0.50));
+        report.put("enqueueP99Us", latency.quantileUs(0.99));
+        report.put("enqueueMaxUs", latency.maxUs());
+        report.put("collectorRequests", collector.requests.get());
+        report.put("collectorEvents", collector.events.get());
+        report.put("collectorEventsPerSec", perSecond(collector.events.get(), elapsed));
+        report.put("bodyBytes", collector.bodyBytes.get());
+        report.put("wireBytes", collector.wireBytes.get());
+        report.put("heapGrowthBytes", heapAfter - heapBefore);
+        report.put("drained", drained);
+        writeReport(report);
+
+        assertTrue("No events were sent", sent > 0);
+        assertEquals("Track calls failed, last: " + outcome.lastFailure.get(), 0, outcome.failed.get());
+        assertTrue("Nothing reached the collector", collector.events.get() > 0);
+    }
+
+    /**
+     * Waits for every call to settle, then for the emitter to empty its
+     * store; false if the drain timeout passed first.
+     */
+    private boolean drain(long sent, CountingPromise outcome) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.drainTimeoutSec);
+        while (outcome.settled() < sent) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+        TrackerController tracker = ConvivaAppAnalytics.getDefaultTracker();
+        EmitterController emitter = tracker != null ? tracker.getEmitter() : null;
+        int idleChecks = 0;
+        while (emitter != null && idleChecks < 3) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            idleChecks = emitter.getDbCount() == 0 && !emitter.isSending() ? idleChecks + 1 : 0;
+            Thread.sleep(200);
+        }
+        return true;
+    }
+
+    private final class Producer implements Runnable {
+
+        final LatencyHistogram latency = new LatencyHistogram();
+        final CountingPromise outcome;
+        final ReadableMap[] events;
+        final Thread thread;
+        long sent;
+        long deadline;
+        CountDownLatch done;
+
+        Producer(int index, CountingPromise outcome) {
+            this.outcome = outcome;
+            this.events = new ReadableMap[]{structured(index), screenView(index), custom(index)};
+            this.thread = new Thread(this, "load-producer-" + index);
+        }
+
+        void start(long deadline, CountDownLatch done) {
+            this.deadline = deadline;
+            this.done = done;
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            try {
+                long period = config.ratePerProducer > 0 ? TimeUnit.SECONDS.toNanos(1) / config.ratePerProducer : 0;
+                long next = System.nanoTime();
+                while (System.nanoTime() < deadline) {
+                    if (period > 0) {
+                        long wait = next - System.nanoTime();
+                        if (wait > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        next += period;
+                    }
+                    int kind = (int) (sent % events.length);
+                    long started = System.nanoTime();
+                    switch (kind) {
+                        case 0:
+                            module.trackStructuredEvent(events[kind], outcome);
+                            break;
+                        case 1:
+                            module.trackScreenViewEvent(events[kind], outcome);
+                            break;
+                        default:
+                            module.trackCustomEvent(events[kind], outcome);
+                            break;
+                    }
+                    latency.record(System.nanoTime() - started);
+                    sent++;
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    private ReadableMap structured(int producer) {
+        return event(JavaOnlyMap.of(
+                "category", "load",
+                "action", "producer-" + producer,
+                "label", "label",
+                "property", "property",
+                "value", 1.0));
+    }
+
+    private ReadableMap screenView(int producer) {
+        return event(JavaOnlyMap.of(
+                "name", "Screen" + producer,
+                "type", "load"));
+    }
+
+    private ReadableMap custom(int producer) {
+        JavaOnlyMap details = (JavaOnlyMap) event(JavaOnlyMap.of(
+                "producer", (double) producer,
+                "message", "sustained load",
+                "nested", JavaOnlyMap.of("a", 1.0, "b", true)));
+        details.putString("eventName", "load_event");
+        return details;
+    }
+
+    private ReadableMap event(JavaOnlyMap eventData) {
+        JavaOnlyMap details = JavaOnlyMap.of("tracker", namespace, "eventData", eventData);
+        if (config.contextsPerEvent > 0) {
+            details.putArray("contexts", contexts());
+        }
+        return details;
+    }
+
+    private ReadableArray contexts() {
+        JavaOnlyArray contexts = new JavaOnlyArray();
+        for (int i = 0; i < config.contextsPerEvent; i++) {
+            contexts.pushMap(JavaOnlyMap.of(
+                    "schema", CONTEXT_SCHEMA,
+                    "data", JavaOnlyMap.of("index", (double) i, "build", "load")));
+        }
+        return contexts;
+    }
+
+    private ReadableMap trackerConfig(String endpoint) {
+        return JavaOnlyMap.of(
+                "appName", "load-harness",
+                "customerKey", "load-harness-key",
+                "networkConfig", JavaOnlyMap.of("endpoint", endpoint, "method", "post"),
+                "remoteConfig", JavaOnlyMap.of("endpoint", endpoint + "config"),
+                "trackerConfig", JavaOnlyMap.of(
+                        "screenViewAutotracking", false,
+                        "lifecycleAutotracking", false,
+                        "installAutotracking", false,
+                        "exceptionAutotracking", false,
+                        "diagnosticAutotracking", false,
+                        "enablePeriodicHeartbeat", false,
+                        "userClickAutotracking", false,
+                        "deepLinkAutotracking", false,
+                        "geoLocationContext", false),
+                "trackingQueueConfig", JavaOnlyMap.of(
+                        "capacity", (double) config.queueCapacity,
+                        "policy", config.queuePolicy));
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return nanos == 0 ? 0 : Math.round(count * 1e9 / nanos * 10) / 10.0;
+    }
+
+    private void writeReport(JSONObject report) throws Exception {
+        System.out.println("[load] " + report.toString(2));
+        File directory = new File(config.reportDir);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        OutputStream out = new FileOutputStream(new File(directory, config.mode + ".json"));
+        try {
+            out.write(report.toString(2).getBytes(UTF_8));
+        } finally {
+            out.close();
+        }
+    }
+}
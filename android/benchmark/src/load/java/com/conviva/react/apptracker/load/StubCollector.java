@@ -0,0 +1,50 @@
+package com.conviva.react.apptracker.load;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Accepts every event POST and counts what arrived; anything else (remote
+ * configuration fetches) gets a 404 so the tracker keeps its local
+ * configuration.
+ */
+final class StubCollector extends Dispatcher {
+
+    final AtomicLong requests = new AtomicLong();
+    final AtomicLong events = new AtomicLong();
+    final AtomicLong bodyBytes = new AtomicLong();
+    final AtomicLong wireBytes = new AtomicLong();
+    final AtomicLong otherRequests = new AtomicLong();
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+        if (!"POST".equals(request.getMethod())) {
+            otherRequests.incrementAndGet();
+            return new MockResponse().setResponseCode(404);
+        }
+        requests.incrementAndGet();
+        bodyBytes.addAndGet(request.getBodySize());
+        wireBytes.addAndGet(request.getRequestLine().length() + 2
+                + request.getHeaders().toString().length() + 2
+                + request.getBodySize());
+        events.addAndGet(countEvents(request));
+        return new MockResponse().setResponseCode(200);
+    }
+
+    private static long countEvents(RecordedRequest request) {
+        try {
+            // {"schema": "...payload_data...", "data": [event, ...]}
+            JSONArray data = new JSONObject(request.getBody().readUtf8()).optJSONArray("data");
+            return data != null ? data.length() : 1;
+        } catch (Exception e) {
+            // Compressed or otherwise opaque body: one request, at least one event
+            return 1;
+        }
+    }
+}
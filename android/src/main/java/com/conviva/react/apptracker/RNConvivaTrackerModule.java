@@ -1,727 +1,1163 @@
 package com.conviva.react.apptracker;
 
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+
 import com.conviva.apptracker.ConvivaAppAnalytics;
 import com.conviva.apptracker.configuration.Configuration;
 import com.conviva.apptracker.configuration.EmitterConfiguration;
 import com.conviva.apptracker.configuration.GdprConfiguration;
 import com.conviva.apptracker.configuration.GlobalContextsConfiguration;
 import com.conviva.apptracker.configuration.NetworkConfiguration;
-import com.conviva.apptracker.configuration.RemoteConfiguration;
 import com.conviva.apptracker.configuration.SessionConfiguration;
 import com.conviva.apptracker.configuration.SessionReplayConfiguration;
 import com.conviva.apptracker.configuration.SubjectConfiguration;
 import com.conviva.apptracker.configuration.TrackerConfiguration;
 import com.conviva.apptracker.controller.TrackerController;
-import com.conviva.apptracker.internal.tracker.ClidSyncConfiguration;
-import com.conviva.apptracker.event.ButtonClick;
-import com.conviva.apptracker.event.ConsentGranted;
-import com.conviva.apptracker.revenue.ConvivaRevenueEvent;
-import com.conviva.apptracker.revenue.ConvivaRevenueEventItem;
-import com.conviva.apptracker.event.ConsentWithdrawn;
-import com.conviva.apptracker.event.DeepLinkReceived;
-import com.conviva.apptracker.event.EcommerceTransaction;
-import com.conviva.apptracker.event.MessageNotification;
-import com.conviva.apptracker.event.PageView;
-import com.conviva.apptracker.event.ScreenView;
+import com.conviva.apptracker.event.AbstractEvent;
 import com.conviva.apptracker.event.SelfDescribing;
-import com.conviva.apptracker.event.Structured;
-import com.conviva.apptracker.event.Timing;
+import com.conviva.apptracker.payload.SelfDescribingJson;
+import com.conviva.apptracker.internal.tracker.ClidSyncConfiguration;
 import com.conviva.apptracker.internal.constants.TrackerConstants;
-import com.conviva.apptracker.network.CollectorCookieJar;
 import com.conviva.apptracker.network.HttpMethod;
-import com.conviva.apptracker.payload.SelfDescribingJson;
 import com.conviva.apptracker.util.Size;
+import com.conviva.react.apptracker.util.AdaptiveEmitter;
+import com.conviva.react.apptracker.util.BridgeMetrics;
+import com.conviva.react.apptracker.util.CallCounter;
+import com.conviva.react.apptracker.util.CollectorHttp;
+import com.conviva.react.apptracker.util.CompressionInterceptor;
+import com.conviva.react.apptracker.util.ConfigSnapshot;
 import com.conviva.react.apptracker.util.ConfigUtil;
+import com.conviva.react.apptracker.util.CustomTagStore;
+import com.conviva.react.apptracker.util.ErrorAggregator;
+import com.conviva.react.apptracker.util.EventDispatcher;
+import com.conviva.react.apptracker.util.EventQuota;
+import com.conviva.react.apptracker.util.EventSampler;
 import com.conviva.react.apptracker.util.EventUtil;
+import com.conviva.react.apptracker.util.JsonSimpleWriter;
+import com.conviva.react.apptracker.util.MapDecoder;
+import com.conviva.react.apptracker.util.PreInitBuffer;
+import com.conviva.react.apptracker.util.RemoteConfigFetcher;
+import com.conviva.react.apptracker.util.RemoteConfigState;
+import com.conviva.react.apptracker.util.RemoteConfigWatcher;
+import com.conviva.react.apptracker.util.ScreenViewCoalescer;
+import com.conviva.react.apptracker.util.SpillLog;
+import com.conviva.react.apptracker.util.StartupProfiler;
+import com.conviva.react.apptracker.util.SubjectUpdate;
+import com.conviva.react.apptracker.util.TrackerResolver;
+import com.conviva.react.apptracker.util.TrackingExecutor;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
-import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.ReadableNativeArray;
+import com.facebook.react.bridge.ReadableNativeMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
 
 import org.json.JSONObject;
-import org.json.simple.JSONValue;
 
+import java.io.File;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.Headers;
 
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
 
-import com.facebook.react.bridge.ReactMarker;
-import com.facebook.react.bridge.ReactMarker.MarkerListener;
-import com.facebook.react.bridge.ReactMarkerConstants;
+public class RNConvivaTrackerModule extends RNConvivaTrackerSpec implements LifecycleEventListener {
 
+    public static final String NAME = "RNConvivaTracker";
 
-public class RNConvivaTrackerModule extends ReactContextBaseJavaModule {
+    public static final String REMOTE_CONFIG_CHANGED_EVENT = "ConvivaRemoteConfigChanged";
 
     private final ReactApplicationContext reactContext;
 
+    // Shared across module instances so a JS reload does not leak worker threads
+    private static final TrackingExecutor trackingExecutor = new TrackingExecutor();
+
+    private static final TrackerResolver trackerResolver = new TrackerResolver();
+
+    // Summaries resolve the tracker when flushed, as it may have been recreated
+    private static final ErrorAggregator errorAggregator = new ErrorAggregator((eventName, eventJson) -> {
+        TrackerController trackerController = trackerResolver.resolveOrDefault("CAT");
+        if (trackerController != null) {
+            EventDispatcher.trackCustom(trackerController, eventName, eventJson);
+        }
+    });
+
+    private static final EventQuota eventQuota = new EventQuota((namespace, eventName, eventJson) -> {
+        TrackerController trackerController = trackerResolver.resolve(namespace);
+        if (trackerController != null) {
+            EventDispatcher.trackCustom(trackerController, eventName, eventJson);
+        }
+    });
+
+    // Emitted screen views resolve the tracker, as it may have been recreated while they were held
+    private static final ScreenViewCoalescer screenViewCoalescer = new ScreenViewCoalescer((namespace, event) -> {
+        TrackerController trackerController = trackerResolver.resolve(namespace);
+        if (trackerController != null) {
+            EventDispatcher.track(trackerController, event);
+        }
+    }, spillId -> RNConvivaTrackerModule.spillLog.ack(spillId));
+
+    private static final RemoteConfigWatcher remoteConfigWatcher = new RemoteConfigWatcher(RNConvivaTrackerModule::appliedRemoteConfig);
+
+    // Remote-config requests and cache reads block on the network and disk, so they stay off the shared scheduler
+    private static final ExecutorService remoteConfigExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "conviva-rn-remote-config");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final RemoteConfigFetcher remoteConfigFetcher = new RemoteConfigFetcher(CollectorHttp.newClient(),
+            remoteConfigExecutor, json -> remoteConfigWatcher.check());
+
+    // The latest module's context receives remote-config pushes
+    private static volatile WeakReference<ReactApplicationContext> eventContext = new WeakReference<>(null);
+
+    static {
+        remoteConfigWatcher.addListener((state, changed, removed) -> eventQuota.applyRemoteConfig(state));
+        remoteConfigWatcher.addListener(RNConvivaTrackerModule::emitRemoteConfigChange);
+    }
+
+    private static final EventSampler eventSampler = new EventSampler();
+
+    private static final CustomTagStore customTagStore = new CustomTagStore();
+
+    private static final AdaptiveEmitter adaptiveEmitter = new AdaptiveEmitter(trackerResolver::resolve);
+
+    private final CallCounter fireAndForgetCounter = new CallCounter();
+
+    // Static so work parked before a reload can still be replayed
+    private static final PreInitBuffer preInitBuffer = new PreInitBuffer();
+
+    private static final SpillLog spillLog = new SpillLog();
+
     public static volatile long contentAppearedTimestamp;
 
+    private static final String SPILL_LOG_DIRECTORY = "conviva-rn-spill";
+
+    private static final String REMOTE_CONFIG_DIRECTORY = "conviva-rn-remote-config";
+
+    // Guards the applied configuration between JS createTracker and initFromSnapshot
+    private static final Object CONFIG_LOCK = new Object();
+    private static volatile String appliedConfig;
+    private static volatile String appliedNamespace;
+
+    private static final Set<String> RUNTIME_SECTIONS = new HashSet<>(Arrays.asList(
+            "trackingQueueConfig", "contextCacheConfig", "errorAggregationConfig",
+            "preInitBufferConfig", "spillLogConfig", "quotaConfig", "adaptiveEmitterConfig",
+            "bridgeMetricsConfig", "samplingConfig", "screenViewCoalescingConfig"
+    ));
+
+    private static final Set<String> RUNTIME_EMITTER_KEYS = new HashSet<>(Arrays.asList(
+            "bufferOption", "emitRange", "threadPoolSize", "byteLimitPost", "byteLimitGet"
+    ));
+
+    private static final String[] OPTIONAL_ERROR_KEYS = {"lineNumber", "lineColumn", "fileName", "bundleId"};
+
+    private static final Set<String> KNOWN_ERROR_KEYS = new HashSet<>(Arrays.asList(
+            "timestamp", "message", "errorType", "stackTrace",
+            "isFatal", "isHandled", "errorSource", "severity",
+            "componentStack", "jsEngine",
+            "lineNumber", "lineColumn", "fileName", "bundleId"
+    ));
+
 
     public RNConvivaTrackerModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
 
-        addContentAppearedMarkerListener();
+        StartupProfiler.install(RNConvivaTrackerModule::onContentAppeared);
+        eventContext = new WeakReference<>(reactContext);
+        reactContext.addLifecycleEventListener(this);
     }
 
-    private void addContentAppearedMarkerListener() {
-        if (contentAppearedTimestamp <= 0) {
-            ReactMarker.addListener(new MarkerListener() {
-                @Override
-                public void logMarker(ReactMarkerConstants name, String tag, int instanceKey) {
-                    if (name == ReactMarkerConstants.CONTENT_APPEARED && contentAppearedTimestamp <= 0) {
-                        contentAppearedTimestamp = System.currentTimeMillis();
-                        TrackerController tracker = ConvivaAppAnalytics.getDefaultTracker();
-                        if (tracker != null) {
-                            tracker.setContentAppearedTimestamp(contentAppearedTimestamp);
-                        }
-                    }
-                }
-            });
+    @Override
+    public void onHostResume() {
+        // A config fetched while in the background is pushed on return
+        remoteConfigExecutor.execute(remoteConfigWatcher::check);
+    }
+
+    @Override
+    public void onHostPause() {
+    }
+
+    @Override
+    public void onHostDestroy() {
+    }
+
+    private static void onContentAppeared(long timestamp) {
+        contentAppearedTimestamp = timestamp;
+        TrackerController tracker = ConvivaAppAnalytics.getDefaultTracker();
+        if (tracker != null) {
+            tracker.setContentAppearedTimestamp(timestamp);
+            StartupProfiler.report(tracker);
         }
     }
 
     @Override
     public String getName() {
-        return "RNConvivaTracker";
+        return NAME;
+    }
+
+    /**
+     * preInitBuffer tells the JS wrapper that track calls may be made before
+     * createTracker, as they are held until the tracker exists.
+     */
+    @Override
+    protected Map<String, Object> getTypedExportedConstants() {
+        Map<String, Object> constants = new HashMap<>();
+        constants.put("preInitBuffer", true);
+        return constants;
     }
 
     @ReactMethod
     public void createTracker(ReadableMap argmap, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
-            String appName = argmap.getString("appName");
-            String customerKey = argmap.getString("customerKey");
-
-            // Configurations
-            List<Configuration> controllers = new ArrayList<Configuration>();
-
-            // NetworkConfiguration
-            NetworkConfiguration networkConfiguration;
-            if (argmap.hasKey("networkConfig")) {
-                ReadableMap networkConfig = argmap.getMap("networkConfig");
-                String endpoint = TrackerConstants.CONVIVA_PRODUCTION_ENDPOINT;
-                if (networkConfig.hasKey("endpoint") && !networkConfig.isNull("endpoint")) {
-                    endpoint = networkConfig.getString("endpoint");
-                }
-                if (networkConfig.hasKey("method") && !networkConfig.isNull("method")) {
-                    String method = networkConfig.getString("method");
-                    networkConfiguration = new NetworkConfiguration(endpoint, ("get".equalsIgnoreCase(method) ? HttpMethod.GET : HttpMethod.POST));
+            String json = ConfigSnapshot.toJson(argmap);
+            synchronized (CONFIG_LOCK) {
+                TrackerController trackerController = appliedConfig == null ? null : getTracker(appliedNamespace);
+                if (trackerController != null && json.equals(appliedConfig)) {
+                    // Already created natively from an identical snapshot
+                    replayPreInitBuffer(trackerController.getNamespace());
+                } else if (trackerController != null && isRuntimeChange(appliedConfig, json)) {
+                    applyRuntimeChange(reactContext, trackerController, argmap, json);
                 } else {
-                    networkConfiguration = new NetworkConfiguration(networkConfig.getString("endpoint"));
+                    createFromConfig(reactContext, argmap, json);
                 }
-                if (networkConfig.hasKey("customPostPath") && !networkConfig.isNull("customPostPath")) {
-                    String customPostPath = networkConfig.getString("customPostPath");
-                    networkConfiguration.customPostPath = customPostPath;
+            }
+            promise.resolve(true);
+
+        } catch (Throwable t) {
+            BridgeMetrics.error("createTracker");
+            promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("createTracker", started);
+        }
+    }
+
+    /**
+     * Creates the tracker from the configuration persisted by the last
+     * createTracker call that created one, so events can be tracked while
+     * the JS bundle loads. Meant for Application.onCreate, after
+     * SoLoader.init; returns at once and does nothing without a snapshot.
+     * A later createTracker from JS with the same configuration then only
+     * resolves, and one that changes only module-wide sections or emitter
+     * limits is applied to the existing tracker.
+     */
+    public static void initFromSnapshot(Context context) {
+        StartupProfiler.install(RNConvivaTrackerModule::onContentAppeared);
+        Context appContext = context.getApplicationContext();
+        Thread thread = new Thread(() -> {
+            try {
+                String json = ConfigSnapshot.load(appContext.getFilesDir());
+                if (json == null) {
+                    return;
                 }
-                if (networkConfig.hasKey("requestHeaders") && !networkConfig.isNull("requestHeaders")) {
-                    ReadableMap requestHeaders = networkConfig.getMap("requestHeaders");
-                    if (requestHeaders != null) {
-                        OkHttpClient client = new OkHttpClient.Builder().connectTimeout(15, TimeUnit.SECONDS).readTimeout(15, TimeUnit.SECONDS).cookieJar(new CollectorCookieJar(reactContext)).addInterceptor(chain -> {
-                            Request.Builder requestBuilder = chain.request().newBuilder();
-                            ReadableMapKeySetIterator it = requestHeaders.keySetIterator();
-                            while (it.hasNextKey()) {
-                                String key = it.nextKey();
-                                String value = requestHeaders.getString(key);
-                                if (value != null) {
-                                    requestBuilder.header(key, value);
-                                }
-                            }
-                            return chain.proceed(requestBuilder.build());
-                        }).build();
-                        networkConfiguration.okHttpClient(client);
+                synchronized (CONFIG_LOCK) {
+                    if (appliedConfig == null) {
+                        createFromConfig(appContext, ConfigSnapshot.toReadableMap(json), json);
                     }
                 }
-                controllers.add(networkConfiguration);
+            } catch (Throwable t) {
+                // JS createTracker creates the tracker as before.
             }
+        }, "conviva-rn-early-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static TrackerController createFromConfig(Context context, ReadableMap argmap, String json) throws Exception {
+        String appName = argmap.getString("appName");
+        String customerKey = argmap.getString("customerKey");
 
-            // TrackerConfiguration
-            // Need to create the TrackerConfiguration to update the postfix for the tracker version
-            ReadableMap trackerConfig = null;
-            if (argmap.hasKey("trackerConfig")) {
-                trackerConfig = argmap.getMap("trackerConfig");
+        // Configurations
+        List<Configuration> controllers = new ArrayList<Configuration>();
+
+        // NetworkConfiguration
+        NetworkConfiguration networkConfiguration;
+        if (argmap.hasKey("networkConfig")) {
+            ReadableMap networkConfig = argmap.getMap("networkConfig");
+            String endpoint = TrackerConstants.CONVIVA_PRODUCTION_ENDPOINT;
+            if (networkConfig.hasKey("endpoint") && !networkConfig.isNull("endpoint")) {
+                endpoint = networkConfig.getString("endpoint");
             }
-            TrackerConfiguration trackerConfiguration = ConfigUtil.mkTrackerConfiguration(trackerConfig, appName, this.reactContext);
-            controllers.add(trackerConfiguration);
-
-            // SessionConfiguration
-            if (argmap.hasKey("sessionConfig")) {
-                ReadableMap sessionConfig = argmap.getMap("sessionConfig");
-                SessionConfiguration sessionConfiguration = ConfigUtil.mkSessionConfiguration(sessionConfig);
-                controllers.add(sessionConfiguration);
+            if (networkConfig.hasKey("method") && !networkConfig.isNull("method")) {
+                String method = networkConfig.getString("method");
+                networkConfiguration = new NetworkConfiguration(endpoint, ("get".equalsIgnoreCase(method) ? HttpMethod.GET : HttpMethod.POST));
+            } else {
+                networkConfiguration = new NetworkConfiguration(networkConfig.getString("endpoint"));
             }
-
-            // EmitterConfiguration
-            if (argmap.hasKey("emitterConfig")) {
-                ReadableMap emitterConfig = argmap.getMap("emitterConfig");
-                EmitterConfiguration emitterConfiguration = ConfigUtil.mkEmitterConfiguration(emitterConfig);
-                controllers.add(emitterConfiguration);
+            if (networkConfig.hasKey("customPostPath") && !networkConfig.isNull("customPostPath")) {
+                String customPostPath = networkConfig.getString("customPostPath");
+                networkConfiguration.customPostPath = customPostPath;
             }
-
-            // SubjectConfiguration
-            if (argmap.hasKey("subjectConfig")) {
-                ReadableMap subjectConfig = argmap.getMap("subjectConfig");
-                SubjectConfiguration subjectConfiguration = ConfigUtil.mkSubjectConfiguration(subjectConfig);
-                controllers.add(subjectConfiguration);
+            Headers headers = Headers.of();
+            if (networkConfig.hasKey("requestHeaders") && !networkConfig.isNull("requestHeaders")) {
+                ReadableMap requestHeaders = networkConfig.getMap("requestHeaders");
+                if (requestHeaders != null) {
+                    headers = CollectorHttp.snapshotHeaders(requestHeaders);
+                }
             }
-
-            // GdprConfiguration
-            if (argmap.hasKey("gdprConfig")) {
-                ReadableMap gdprConfig = argmap.getMap("gdprConfig");
-                GdprConfiguration gdprConfiguration = ConfigUtil.mkGdprConfiguration(gdprConfig);
-                controllers.add(gdprConfiguration);
+            CompressionInterceptor compression = null;
+            if (networkConfig.hasKey("compression") && !networkConfig.isNull("compression")) {
+                compression = ConfigUtil.mkCompressionInterceptor(networkConfig.getMap("compression"));
             }
-
-            // GCConfiguration
-            if (argmap.hasKey("gcConfig")) {
-                ReadableArray gcConfig = argmap.getArray("gcConfig");
-                GlobalContextsConfiguration gcConfiguration = ConfigUtil.mkGCConfiguration(gcConfig);
-                controllers.add(gcConfiguration);
+            if (headers.size() > 0 || compression != null) {
+                // Headers are snapshotted once; the client shares the collector pool
+                networkConfiguration.okHttpClient(CollectorHttp.newTrackerClient(context, headers, compression));
             }
+            controllers.add(networkConfiguration);
+        }
 
-            // ClidSyncConfiguration
-            if (argmap.hasKey("clidSyncConfig")) {
-                ReadableMap clidSyncConfig = argmap.getMap("clidSyncConfig");
-                ClidSyncConfiguration clidSyncConfiguration = ConfigUtil.mkClidSyncConfiguration(clidSyncConfig);
-                controllers.add(clidSyncConfiguration);
-            }
+        List<SpillLog.Pending> spilled = applyModuleConfig(context, argmap);
 
-            // SessionReplayConfiguration
-            if (argmap.hasKey("sessionReplayConfig")) {
-                ReadableMap src = argmap.getMap("sessionReplayConfig");
-                if (src != null) {
-                    SessionReplayConfiguration replayConfiguration = ConfigUtil.mkSessionReplayConfiguration(src);
-                    if (replayConfiguration != null) controllers.add(replayConfiguration);
-                }
+        // TrackerConfiguration
+        // Need to create the TrackerConfiguration to update the postfix for the tracker version
+        ReadableMap trackerConfig = null;
+        if (argmap.hasKey("trackerConfig")) {
+            trackerConfig = argmap.getMap("trackerConfig");
+        }
+        TrackerConfiguration trackerConfiguration = ConfigUtil.mkTrackerConfiguration(trackerConfig, appName, context);
+        controllers.add(trackerConfiguration);
+
+        // SessionConfiguration
+        if (argmap.hasKey("sessionConfig")) {
+            ReadableMap sessionConfig = argmap.getMap("sessionConfig");
+            SessionConfiguration sessionConfiguration = ConfigUtil.mkSessionConfiguration(sessionConfig);
+            controllers.add(sessionConfiguration);
+        }
+
+        // EmitterConfiguration
+        if (argmap.hasKey("emitterConfig")) {
+            ReadableMap emitterConfig = argmap.getMap("emitterConfig");
+            EmitterConfiguration emitterConfiguration = ConfigUtil.mkEmitterConfiguration(emitterConfig);
+            controllers.add(emitterConfiguration);
+        }
+
+        // SubjectConfiguration
+        if (argmap.hasKey("subjectConfig")) {
+            ReadableMap subjectConfig = argmap.getMap("subjectConfig");
+            SubjectConfiguration subjectConfiguration = ConfigUtil.mkSubjectConfiguration(subjectConfig);
+            controllers.add(subjectConfiguration);
+        }
+
+        // GdprConfiguration
+        if (argmap.hasKey("gdprConfig")) {
+            ReadableMap gdprConfig = argmap.getMap("gdprConfig");
+            GdprConfiguration gdprConfiguration = ConfigUtil.mkGdprConfiguration(gdprConfig);
+            controllers.add(gdprConfiguration);
+        }
+
+        // GCConfiguration
+        if (argmap.hasKey("gcConfig")) {
+            ReadableArray gcConfig = argmap.getArray("gcConfig");
+            GlobalContextsConfiguration gcConfiguration = ConfigUtil.mkGCConfiguration(gcConfig);
+            controllers.add(gcConfiguration);
+        }
+
+        // ClidSyncConfiguration
+        if (argmap.hasKey("clidSyncConfig")) {
+            ReadableMap clidSyncConfig = argmap.getMap("clidSyncConfig");
+            ClidSyncConfiguration clidSyncConfiguration = ConfigUtil.mkClidSyncConfiguration(clidSyncConfig);
+            controllers.add(clidSyncConfiguration);
+        }
+
+        // SessionReplayConfiguration
+        if (argmap.hasKey("sessionReplayConfig")) {
+            ReadableMap src = argmap.getMap("sessionReplayConfig");
+            if (src != null) {
+                SessionReplayConfiguration replayConfiguration = ConfigUtil.mkSessionReplayConfiguration(src);
+                if (replayConfiguration != null) controllers.add(replayConfiguration);
             }
+        }
 
-            String remoteConfigUrl = RemoteConfiguration.DEFAULT_ENDPOINT;
-            if (argmap.hasKey("remoteConfiguration")) {
-                ReadableMap remoteConfig = argmap.getMap("remoteConfiguration");
-                if (remoteConfig.hasKey("endpoint")) {
-                    remoteConfigUrl = remoteConfig.getString("endpoint");
+        // Remote config document (module-wide, last createTracker wins)
+        ReadableMap remoteConfig = argmap.hasKey("remoteConfig") ? argmap.getMap("remoteConfig") : null;
+        ConfigUtil.configureRemoteConfigFetcher(remoteConfigFetcher, new File(context.getFilesDir(), REMOTE_CONFIG_DIRECTORY),
+                remoteConfig != null ? remoteConfig : new JavaOnlyMap());
+
+        // create the tracker
+        TrackerController trackerController = ConvivaAppAnalytics.createTracker(context, customerKey, appName, controllers.toArray(new Configuration[controllers.size()]));
+        trackerResolver.invalidate();
+        // A recreated tracker starts without tags
+        customTagStore.clearAll();
+        // Queued behind the fetcher's cache preload, so a persisted document is applied at once
+        remoteConfigExecutor.execute(remoteConfigWatcher::check);
+        remoteConfigWatcher.start(RemoteConfigWatcher.DEFAULT_POLL_INTERVAL_MS);
+        refreshSamplerClientId(context);
+        if (spilled != null) {
+            replaySpilled(spilled);
+        }
+        if (trackerController != null) {
+            adaptiveEmitter.register(trackerController);
+            replayPreInitBuffer(trackerController.getNamespace());
+        }
+
+        //Set the contentAppearedTimestamp if already captured
+        if(trackerController != null && contentAppearedTimestamp > 0) {
+            trackerController.setContentAppearedTimestamp(contentAppearedTimestamp);
+            StartupProfiler.report(trackerController);
+        }
+
+        if (trackerController != null) {
+            saveSnapshot(context, trackerController.getNamespace(), json);
+        }
+        return trackerController;
+    }
+
+    /**
+     * Applies the sections shared by every tracker; returns the events the
+     * spill log recovered if this call opened it.
+     */
+    private static List<SpillLog.Pending> applyModuleConfig(Context context, ReadableMap argmap) {
+        List<SpillLog.Pending> spilled = null;
+
+        // Tracking queue (module-wide, last createTracker wins)
+        if (argmap.hasKey("trackingQueueConfig") && !argmap.isNull("trackingQueueConfig")) {
+            ConfigUtil.configureTrackingExecutor(trackingExecutor, argmap.getMap("trackingQueueConfig"));
+        }
+
+        // Context cache (module-wide, last createTracker wins)
+        if (argmap.hasKey("contextCacheConfig") && !argmap.isNull("contextCacheConfig")) {
+            ConfigUtil.configureContextCache(EventUtil.getContextCache(), argmap.getMap("contextCacheConfig"));
+        }
+
+        // Non-fatal error aggregation (module-wide, last createTracker wins)
+        if (argmap.hasKey("errorAggregationConfig") && !argmap.isNull("errorAggregationConfig")) {
+            ConfigUtil.configureErrorAggregator(errorAggregator, argmap.getMap("errorAggregationConfig"));
+        }
+
+        // Pre-init buffer (module-wide, last createTracker wins)
+        if (argmap.hasKey("preInitBufferConfig") && !argmap.isNull("preInitBufferConfig")) {
+            ConfigUtil.configurePreInitBuffer(preInitBuffer, argmap.getMap("preInitBufferConfig"));
+        }
+
+        // Spill log (module-wide, opened by the first createTracker enabling it)
+        if (argmap.hasKey("spillLogConfig") && !argmap.isNull("spillLogConfig")) {
+            spilled = ConfigUtil.openSpillLog(spillLog, new File(context.getFilesDir(), SPILL_LOG_DIRECTORY), argmap.getMap("spillLogConfig"));
+        }
+
+        // Event quotas (module-wide, last createTracker wins)
+        if (argmap.hasKey("quotaConfig") && !argmap.isNull("quotaConfig")) {
+            ConfigUtil.configureEventQuota(eventQuota, argmap.getMap("quotaConfig"));
+        }
+
+        // Event sampling (module-wide, last createTracker wins)
+        if (argmap.hasKey("samplingConfig") && !argmap.isNull("samplingConfig")) {
+            ConfigUtil.configureEventSampler(eventSampler, argmap.getMap("samplingConfig"));
+        }
+
+        // Screen-view coalescing (module-wide, last createTracker wins)
+        if (argmap.hasKey("screenViewCoalescingConfig") && !argmap.isNull("screenViewCoalescingConfig")) {
+            ConfigUtil.configureScreenViewCoalescer(screenViewCoalescer, argmap.getMap("screenViewCoalescingConfig"));
+        }
+
+        // Bridge metrics (module-wide, last createTracker wins)
+        if (argmap.hasKey("bridgeMetricsConfig") && !argmap.isNull("bridgeMetricsConfig")) {
+            ConfigUtil.configureBridgeMetrics(argmap.getMap("bridgeMetricsConfig"), (eventName, eventJson) -> {
+                TrackerController trackerController = trackerResolver.resolveOrDefault("CAT");
+                if (trackerController != null) {
+                    EventDispatcher.trackCustom(trackerController, eventName, eventJson);
                 }
-            }
+            });
+        }
 
-            // create the tracker
-            TrackerController trackerController = ConvivaAppAnalytics.createTracker(this.reactContext, customerKey, appName, controllers.toArray(new Configuration[controllers.size()]));
+        // Adaptive emitter tuning (module-wide, last createTracker wins)
+        if (argmap.hasKey("adaptiveEmitterConfig") && !argmap.isNull("adaptiveEmitterConfig")) {
+            ConfigUtil.configureAdaptiveEmitter(adaptiveEmitter, context, argmap.getMap("adaptiveEmitterConfig"));
+        }
 
-            //Set the contentAppearedTimestamp if already captured
-            if(trackerController != null && contentAppearedTimestamp > 0) {
-                trackerController.setContentAppearedTimestamp(contentAppearedTimestamp);
+        return spilled;
+    }
+
+    /**
+     * Whether the new configuration only differs in sections that can be
+     * applied to the live tracker. Runtime changes only apply the sections
+     * and emitter keys that are present, so removing one recreates the
+     * tracker instead of leaving the old setting live.
+     */
+    private static boolean isRuntimeChange(String previous, String next) {
+        try {
+            JSONObject nextConfig = new JSONObject(next);
+            for (String section : ConfigSnapshot.changedSections(previous, next)) {
+                if (nextConfig.isNull(section)) {
+                    return false;
+                }
+                if (section.equals("emitterConfig")) {
+                    JSONObject nextEmitter = nextConfig.getJSONObject(section);
+                    for (String key : ConfigSnapshot.changedKeys(previous, next, section)) {
+                        if (!RUNTIME_EMITTER_KEYS.contains(key) || nextEmitter.isNull(key)) {
+                            return false;
+                        }
+                    }
+                } else if (!RUNTIME_SECTIONS.contains(section)) {
+                    return false;
+                }
             }
+            return true;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
 
-            promise.resolve(true);
+    private static void applyRuntimeChange(Context context, TrackerController trackerController, ReadableMap argmap, String json) {
+        List<SpillLog.Pending> spilled = applyModuleConfig(context, argmap);
+        if (argmap.hasKey("emitterConfig") && !argmap.isNull("emitterConfig")) {
+            ConfigUtil.applyEmitterConfiguration(trackerController.getEmitter(), argmap.getMap("emitterConfig"));
+            adaptiveEmitter.register(trackerController);
+        }
+        if (spilled != null) {
+            replaySpilled(spilled);
+        }
+        replayPreInitBuffer(trackerController.getNamespace());
+        saveSnapshot(context, trackerController.getNamespace(), json);
+    }
 
+    private static void refreshSamplerClientId(Context context) {
+        try {
+            eventSampler.setClientId(ConvivaAppAnalytics.getClientId(context));
         } catch (Throwable t) {
-            promise.reject("ERROR", t.getMessage());
+            // Sampling stays off until a client id is known.
+        }
+    }
+
+    private static void saveSnapshot(Context context, String namespace, String json) {
+        appliedConfig = json;
+        appliedNamespace = namespace;
+        try {
+            ConfigSnapshot.save(context.getFilesDir(), json);
+        } catch (Throwable t) {
+            // The next start waits for JS createTracker as before.
         }
     }
 
     @ReactMethod
     public void removeTracker(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
-                promise.resolve(ConvivaAppAnalytics.removeTracker(trackerController));
+                boolean removed = ConvivaAppAnalytics.removeTracker(trackerController);
+                trackerResolver.invalidate();
+                customTagStore.clear(namespace);
+                screenViewCoalescer.discard(namespace);
+                adaptiveEmitter.unregister(trackerController.getNamespace());
+                promise.resolve(removed);
             } else {
+                BridgeMetrics.error("removeTracker");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("removeTracker");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("removeTracker", started);
         }
     }
 
     @ReactMethod
     public void cleanup(Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             // commented out deprecated methods
             promise.resolve(true);
 
         } catch (Throwable t) {
+            BridgeMetrics.error("cleanup");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("cleanup", started);
         }
     }
     @ReactMethod
     public void removeAllTrackers(Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             // commented out deprecated methods
             // ConvivaAppAnalytics.removeAllTrackers();
+            trackerResolver.invalidate();
             promise.resolve(true);
 
         } catch (Throwable t) {
+            BridgeMetrics.error("removeAllTrackers");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("removeAllTrackers", started);
         }
     }
 
     @ReactMethod
     public void setClientId(ReadableMap argmap, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
-            promise.resolve(ConvivaAppAnalytics.setClientId(this.reactContext, argmap.getString("clientId")));
+            boolean updated = ConvivaAppAnalytics.setClientId(this.reactContext, argmap.getString("clientId"));
+            refreshSamplerClientId(this.reactContext);
+            promise.resolve(updated);
         } catch (Throwable t) {
+            BridgeMetrics.error("setClientId");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setClientId", started);
         }
     }
 
     @ReactMethod
     public void getClientId(Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             promise.resolve(ConvivaAppAnalytics.getClientId(this.reactContext));
         } catch (Throwable t) {
+            BridgeMetrics.error("getClientId");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("getClientId", started);
         }
     }
 
     @ReactMethod
     public void trackSelfDescribingEvent(ReadableMap details, Promise promise) {
-        try {
-            String namespace = details.getString("tracker");
-            TrackerController trackerController = getTracker(namespace);
-            if (trackerController != null) {
-                ReadableMap argmap = details.getMap("eventData");
-                ReadableArray contexts = details.getArray("contexts");
+        trackEvent("trackSelfDescribingEvent", EventDispatcher.SELF_DESCRIBING, details, promise);
+    }
 
+    @ReactMethod
+    public void trackStructuredEvent(ReadableMap details, Promise promise) {
+        trackEvent("trackStructuredEvent", EventDispatcher.STRUCTURED, details, promise);
+    }
 
-                SelfDescribingJson sdj = EventUtil.createSelfDescribingJson(argmap);
-                SelfDescribing event = new SelfDescribing(sdj);
+    @ReactMethod
+    public void trackScreenViewEvent(ReadableMap details, Promise promise) {
+        trackEvent("trackScreenViewEvent", EventDispatcher.SCREEN_VIEW, details, promise);
+    }
 
-                List<SelfDescribingJson> evCtxts = EventUtil.createContexts(contexts);
-                event.customContexts.addAll(evCtxts);
+    @ReactMethod
+    public void trackPageView(ReadableMap details, Promise promise) {
+        trackEvent("trackPageView", EventDispatcher.PAGE_VIEW, details, promise);
+    }
 
-                trackerController.track(event);
-                promise.resolve(true);
-            } else {
-                promise.reject("ERROR", "TrackerController is null");
-            }
+    @ReactMethod
+    public void trackTimingEvent(ReadableMap details, Promise promise) {
+        trackEvent("trackTimingEvent", EventDispatcher.TIMING, details, promise);
+    }
 
-        } catch (Throwable t) {
-            promise.reject("ERROR", t.getMessage());
-        }
+    @ReactMethod
+    public void trackConsentGrantedEvent(ReadableMap details, Promise promise) {
+        trackEvent("trackConsentGrantedEvent", EventDispatcher.CONSENT_GRANTED, details, promise);
     }
 
     @ReactMethod
-    public void trackStructuredEvent(ReadableMap details, Promise promise) {
-        try {
-            String namespace = details.getString("tracker");
-            TrackerController trackerController = getTracker(namespace);
-            if (trackerController != null) {
+    public void trackConsentWithdrawnEvent(ReadableMap details, Promise promise) {
+        trackEvent("trackConsentWithdrawnEvent", EventDispatcher.CONSENT_WITHDRAWN, details, promise);
+    }
 
-                ReadableMap argmap = details.getMap("eventData");
-                ReadableArray contexts = details.getArray("contexts");
+    @ReactMethod
+    public void trackEcommerceTransactionEvent(ReadableMap details, Promise promise) {
+        trackEvent("trackEcommerceTransactionEvent", EventDispatcher.ECOMMERCE_TRANSACTION, details, promise);
+    }
 
+    @ReactMethod
+    public void trackDeepLinkReceivedEvent(ReadableMap details, Promise promise) {
+        trackEvent("trackDeepLinkReceivedEvent", EventDispatcher.DEEP_LINK_RECEIVED, details, promise);
+    }
 
-                Structured event = EventUtil.createStructuredEvent(argmap);
+    @ReactMethod
+    public void trackMessageNotificationEvent(ReadableMap details, Promise promise) {
+        trackEvent("trackMessageNotificationEvent", EventDispatcher.MESSAGE_NOTIFICATION, details, promise);
+    }
 
-                List<SelfDescribingJson> evCtxts = EventUtil.createContexts(contexts);
-                event.customContexts.addAll(evCtxts);
+    @ReactMethod
+    public void trackCustomEvent(ReadableMap details, Promise promise) {
+        trackEvent("trackCustomEvent", EventDispatcher.CUSTOM, details, promise);
+    }
 
-                trackerController.track(event);
-                promise.resolve(true);
-            } else {
-                promise.reject("ERROR", "TrackerController is null");
-            }
+    @ReactMethod
+    public void trackRevenueEvent(ReadableMap details, Promise promise) {
+        trackEvent("trackRevenueEvent", EventDispatcher.REVENUE, details, promise);
+    }
 
+    /**
+     * Tracks a heterogeneous list of events in a single bridge call.
+     *
+     * Each entry carries the same keys as the argument of the matching
+     * single-event method plus a "type" (one of the EventDispatcher type
+     * strings). A failing entry does not stop the rest of the batch: the
+     * promise resolves with the number of tracked entries, the number and
+     * indexes of the entries sampled out, and the index and message of every
+     * failed one. Entries parked in the pre-init buffer count as tracked.
+     */
+    @ReactMethod
+    public void trackEventsBatch(ReadableArray events, Promise promise) {
+        long started = BridgeMetrics.start();
+        try {
+            ReadableArray snapshot = snapshot(events);
+            long[] spillIds = spill(snapshot);
+            trackingExecutor.execute(
+                    () -> trackEventsBatchNow(snapshot, spillIds, promise),
+                    () -> {
+                        ack(spillIds);
+                        BridgeMetrics.error("trackEventsBatch");
+                        promise.reject("ERROR", TrackingExecutor.DROPPED_MESSAGE);
+                    });
         } catch (Throwable t) {
+            BridgeMetrics.error("trackEventsBatch");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("trackEventsBatch", started);
         }
     }
 
-    @ReactMethod
-    public void trackScreenViewEvent(ReadableMap details, Promise promise) {
+    private void trackEventsBatchNow(ReadableArray events, long[] spillIds, Promise promise) {
         try {
-            String namespace = details.getString("tracker");
-            TrackerController trackerController = getTracker(namespace);
-            if (trackerController != null) {
-                ReadableMap argmap = details.getMap("eventData");
-                ReadableArray contexts = details.getArray("contexts");
-
-
-                ScreenView event = EventUtil.createScreenViewEvent(argmap);
-
-                List<SelfDescribingJson> evCtxts = EventUtil.createContexts(contexts);
-                event.customContexts.addAll(evCtxts);
-
-                trackerController.track(event);
-                promise.resolve(true);
-            } else {
-                promise.reject("ERROR", "TrackerController is null");
+            int tracked = 0;
+            WritableArray sampledOut = Arguments.createArray();
+            WritableArray failures = Arguments.createArray();
+            for (int i = 0; i < events.size(); i++) {
+                try {
+                    ReadableMap entry = events.getMap(i);
+                    EventSampler.Sample sample = eventSampler.sample(entry.getString("type"), entry);
+                    if (!sample.keep) {
+                        spillLog.ack(spillIds[i]);
+                        sampledOut.pushInt(i);
+                        continue;
+                    }
+                    if (!eventQuota.tryAcquire(entry.getString("tracker"), entry.getString("type"))) {
+                        throw new IllegalStateException(EventQuota.REJECTED_MESSAGE);
+                    }
+                    long spillId = spillIds[i];
+                    runOrPark(entry.getString("tracker"),
+                            acking(spillId, (trackerController, capturedAt) -> dispatch(trackerController, entry.getString("tracker"), entry.getString("type"), entry, capturedAt, sample, spillId)),
+                            ackingDiscard(spillId, null));
+                    tracked++;
+                } catch (Throwable t) {
+                    spillLog.ack(spillIds[i]);
+                    WritableMap failure = Arguments.createMap();
+                    failure.putInt("index", i);
+                    failure.putString("message", t.getMessage());
+                    failures.pushMap(failure);
+                }
             }
 
+            WritableMap result = Arguments.createMap();
+            result.putInt("tracked", tracked);
+            result.putInt("sampledOut", sampledOut.size());
+            result.putArray("sampledOutIndexes", sampledOut);
+            result.putArray("failures", failures);
+            promise.resolve(result);
+
         } catch (Throwable t) {
             promise.reject("ERROR", t.getMessage());
         }
     }
 
+    /**
+     * Fire-and-forget variant of trackEventsBatch.
+     *
+     * Takes the same entries but returns nothing, so neither side allocates a
+     * promise. Failures are only counted; see getDiagnostics.
+     */
     @ReactMethod
-    public void trackPageView(ReadableMap details, Promise promise) {
+    public void fireEventsBatch(ReadableArray events) {
+        long started = BridgeMetrics.start();
         try {
-            String namespace = details.getString("tracker");
-            TrackerController trackerController = getTracker(namespace);
-            if (trackerController != null) {
-                ReadableMap argmap = details.getMap("eventData");
-                ReadableArray contexts = details.getArray("contexts");
-
-
-                PageView event = EventUtil.createPageViewEvent(argmap);
-
-                List<SelfDescribingJson> evCtxts = EventUtil.createContexts(contexts);
-                event.customContexts.addAll(evCtxts);
-
-                trackerController.track(event);
-                promise.resolve(true);
-            } else {
-                promise.reject("ERROR", "TrackerController is null");
-            }
-
+            ReadableArray snapshot = snapshot(events);
+            long[] spillIds = spill(snapshot);
+            trackingExecutor.execute(() -> {
+                for (int i = 0; i < snapshot.size(); i++) {
+                    fireAndForgetCounter.recordCall();
+                    try {
+                        ReadableMap entry = snapshot.getMap(i);
+                        EventSampler.Sample sample = eventSampler.sample(entry.getString("type"), entry);
+                        if (!sample.keep || !eventQuota.tryAcquire(entry.getString("tracker"), entry.getString("type"))) {
+                            spillLog.ack(spillIds[i]);
+                            continue;
+                        }
+                        long spillId = spillIds[i];
+                        runOrPark(entry.getString("tracker"),
+                                acking(spillId, (trackerController, capturedAt) -> dispatch(trackerController, entry.getString("tracker"), entry.getString("type"), entry, capturedAt, sample, spillId)),
+                                ackingDiscard(spillId, this::recordDiscarded));
+                    } catch (Throwable t) {
+                        spillLog.ack(spillIds[i]);
+                        fireAndForgetCounter.recordError(t);
+                    }
+                }
+            }, () -> ack(spillIds));
         } catch (Throwable t) {
-            promise.reject("ERROR", t.getMessage());
+            BridgeMetrics.error("fireEventsBatch");
+            fireAndForgetCounter.recordError(t);
+        } finally {
+            BridgeMetrics.end("fireEventsBatch", started);
         }
     }
 
+    /**
+     * Typed fire-and-forget screen view. Optional strings are null when absent.
+     */
     @ReactMethod
-    public void trackTimingEvent(ReadableMap details, Promise promise) {
+    public void fireScreenViewEvent(@Nullable String namespace, String name, @Nullable String id, @Nullable String type,
+                                    @Nullable String previousName, @Nullable String previousType, @Nullable String previousId,
+                                    @Nullable String transitionType, @Nullable ReadableArray contexts) {
+        long started = BridgeMetrics.start();
         try {
-            String namespace = details.getString("tracker");
-            TrackerController trackerController = getTracker(namespace);
-            if (trackerController != null) {
-                ReadableMap argmap = details.getMap("eventData");
-                ReadableArray contexts = details.getArray("contexts");
-
-                Timing event = EventUtil.createTimingEvent(argmap);
-
-                List<SelfDescribingJson> evCtxts = EventUtil.createContexts(contexts);
-                event.customContexts.addAll(evCtxts);
-
-                trackerController.track(event);
-                promise.resolve(true);
-            } else {
-                promise.reject("ERROR", "TrackerController is null");
+            EventSampler.Sample sample = eventSampler.sample(EventDispatcher.SCREEN_VIEW, null, null);
+            if (!sample.keep || !eventQuota.tryAcquire(namespace, EventDispatcher.SCREEN_VIEW)) {
+                return;
             }
-
+            ReadableArray contextsSnapshot = snapshot(contexts);
+            long spillId = !spillLog.isOpen() ? SpillLog.NOT_LOGGED : spillTyped(namespace, EventDispatcher.SCREEN_VIEW, null,
+                    eventData("name", name, "id", id, "type", type, "previousName", previousName, "previousType", previousType,
+                            "previousId", previousId, "transitionType", transitionType), contextsSnapshot);
+            submit(namespace, spillId, (trackerController, capturedAt) -> {
+                if (screenViewCoalescer.isEnabled()) {
+                    List<SelfDescribingJson> screenContexts = contextsSnapshot != null ? EventUtil.createContexts(contextsSnapshot) : new ArrayList<SelfDescribingJson>();
+                    if (sample.context != null) {
+                        screenContexts.add(sample.context);
+                    }
+                    long timestamp = capturedAt != null ? capturedAt : System.currentTimeMillis();
+                    if (screenViewCoalescer.offer(namespace, new ScreenViewCoalescer.Screen(name, id, type, previousName, previousType, previousId,
+                            transitionType, screenContexts, timestamp, spillId))) {
+                        return true;
+                    }
+                }
+                fire(trackerController, EventUtil.createScreenViewEvent(name, id, type, previousName, previousType, previousId, transitionType), contextsSnapshot, capturedAt, sample);
+                return false;
+            });
         } catch (Throwable t) {
-            promise.reject("ERROR", t.getMessage());
+            BridgeMetrics.error("fireScreenViewEvent");
+            fireAndForgetCounter.recordError(t);
+        } finally {
+            BridgeMetrics.end("fireScreenViewEvent", started);
         }
     }
 
+    /**
+     * Typed fire-and-forget structured event. Value is NaN when absent, as a
+     * nullable number cannot cross the legacy bridge as a primitive.
+     */
     @ReactMethod
-    public void trackConsentGrantedEvent(ReadableMap details, Promise promise) {
+    public void fireStructuredEvent(@Nullable String namespace, String category, String action, @Nullable String label,
+                                    @Nullable String property, double value, @Nullable ReadableArray contexts) {
+        long started = BridgeMetrics.start();
         try {
-            String namespace = details.getString("tracker");
-            TrackerController trackerController = getTracker(namespace);
-            if (trackerController != null) {
-                ReadableMap argmap = details.getMap("eventData");
-                ReadableArray contexts = details.getArray("contexts");
-
-
-                ConsentGranted event = EventUtil.createConsentGrantedEvent(argmap);
-
-                List<SelfDescribingJson> evCtxts = EventUtil.createContexts(contexts);
-                event.customContexts.addAll(evCtxts);
-
-                trackerController.track(event);
-                promise.resolve(true);
-            } else {
-                promise.reject("ERROR", "TrackerController is null");
+            EventSampler.Sample sample = eventSampler.sample(EventDispatcher.STRUCTURED, null, null);
+            if (!sample.keep || !eventQuota.tryAcquire(namespace, EventDispatcher.STRUCTURED)) {
+                return;
             }
-
+            ReadableArray contextsSnapshot = snapshot(contexts);
+            long spillId = !spillLog.isOpen() ? SpillLog.NOT_LOGGED : spillTyped(namespace, EventDispatcher.STRUCTURED, null,
+                    eventData("category", category, "action", action, "label", label, "property", property,
+                            "value", Double.isNaN(value) ? null : value), contextsSnapshot);
+            fireAndForget(namespace, spillId, (trackerController, capturedAt) -> fire(trackerController, EventUtil.createStructuredEvent(category, action, label, property, value), contextsSnapshot, capturedAt, sample));
         } catch (Throwable t) {
-            promise.reject("ERROR", t.getMessage());
+            BridgeMetrics.error("fireStructuredEvent");
+            fireAndForgetCounter.recordError(t);
+        } finally {
+            BridgeMetrics.end("fireStructuredEvent", started);
         }
     }
 
     @ReactMethod
-    public void trackConsentWithdrawnEvent(ReadableMap details, Promise promise) {
+    public void fireSelfDescribingEvent(@Nullable String namespace, String schema, ReadableMap data, @Nullable ReadableArray contexts) {
+        long started = BridgeMetrics.start();
         try {
-            String namespace = details.getString("tracker");
-            TrackerController trackerController = getTracker(namespace);
-            if (trackerController != null) {
-                ReadableMap argmap = details.getMap("eventData");
-                ReadableArray contexts = details.getArray("contexts");
-
-
-                ConsentWithdrawn event = EventUtil.createConsentWithdrawnEvent(argmap);
-
-                List<SelfDescribingJson> evCtxts = EventUtil.createContexts(contexts);
-                event.customContexts.addAll(evCtxts);
-
-                trackerController.track(event);
-                promise.resolve(true);
-            } else {
-                promise.reject("ERROR", "TrackerController is null");
+            EventSampler.Sample sample = eventSampler.sample(EventDispatcher.SELF_DESCRIBING, null, schema);
+            if (!sample.keep || !eventQuota.tryAcquire(namespace, EventDispatcher.SELF_DESCRIBING)) {
+                return;
             }
-
+            HashMap<String, Object> dataSnapshot = data.toHashMap();
+            ReadableArray contextsSnapshot = snapshot(contexts);
+            long spillId = !spillLog.isOpen() ? SpillLog.NOT_LOGGED : spillTyped(namespace, EventDispatcher.SELF_DESCRIBING, null,
+                    eventData("schema", schema, "data", snapshot(data)), contextsSnapshot);
+            fireAndForget(namespace, spillId, (trackerController, capturedAt) -> fire(trackerController, new SelfDescribing(new SelfDescribingJson(schema, dataSnapshot)), contextsSnapshot, capturedAt, sample));
         } catch (Throwable t) {
-            promise.reject("ERROR", t.getMessage());
+            BridgeMetrics.error("fireSelfDescribingEvent");
+            fireAndForgetCounter.recordError(t);
+        } finally {
+            BridgeMetrics.end("fireSelfDescribingEvent", started);
         }
     }
 
     @ReactMethod
-    public void trackEcommerceTransactionEvent(ReadableMap details, Promise promise) {
+    public void fireCustomEvent(@Nullable String namespace, String eventName, ReadableMap eventData) {
+        long started = BridgeMetrics.start();
         try {
-            String namespace = details.getString("tracker");
-            TrackerController trackerController = getTracker(namespace);
-            if (trackerController != null) {
-                ReadableMap argmap = details.getMap("eventData");
-                ReadableArray contexts = details.getArray("contexts");
-
-
-                EcommerceTransaction event = EventUtil.createEcommerceTransactionEvent(argmap);
-
-                List<SelfDescribingJson> evCtxts = EventUtil.createContexts(contexts);
-                event.customContexts.addAll(evCtxts);
-
-                trackerController.track(event);
-                promise.resolve(true);
-            } else {
-                promise.reject("ERROR", "TrackerController is null");
+            EventSampler.Sample sample = eventSampler.sample(EventDispatcher.CUSTOM, eventName, null);
+            if (!sample.keep || !eventQuota.tryAcquire(namespace, EventDispatcher.CUSTOM)) {
+                return;
             }
-
+            ReadableMap eventDataSnapshot = snapshot(eventData);
+            long spillId = !spillLog.isOpen() ? SpillLog.NOT_LOGGED : spillTyped(namespace, EventDispatcher.CUSTOM, eventName, eventDataSnapshot, null);
+            fireAndForget(namespace, spillId, (trackerController, capturedAt) ->
+                    EventDispatcher.trackCustom(trackerController, eventName, sample.stamp(JsonSimpleWriter.toJSONString(eventDataSnapshot))));
         } catch (Throwable t) {
-            promise.reject("ERROR", t.getMessage());
+            BridgeMetrics.error("fireCustomEvent");
+            fireAndForgetCounter.recordError(t);
+        } finally {
+            BridgeMetrics.end("fireCustomEvent", started);
         }
     }
 
     @ReactMethod
-    public void trackDeepLinkReceivedEvent(ReadableMap details, Promise promise) {
+    public void fireClickEvent(@Nullable String namespace, ReadableMap eventData) {
+        long started = BridgeMetrics.start();
         try {
-            String namespace = details.getString("tracker");
-            TrackerController trackerController = getTracker(namespace);
-            if (trackerController != null) {
-                ReadableMap argmap = details.getMap("eventData");
-                ReadableArray contexts = details.getArray("contexts");
-
-
-                DeepLinkReceived event = EventUtil.createDeepLinkReceivedEvent(argmap);
-
-                List<SelfDescribingJson> evCtxts = EventUtil.createContexts(contexts);
-                event.customContexts.addAll(evCtxts);
-
-                trackerController.track(event);
-                promise.resolve(true);
-            } else {
-                promise.reject("ERROR", "TrackerController is null");
+            EventSampler.Sample sample = eventSampler.sample(EventDispatcher.CLICK, null, null);
+            if (!sample.keep || !eventQuota.tryAcquire(namespace, EventDispatcher.CLICK)) {
+                return;
             }
-
+            ReadableMap eventDataSnapshot = snapshot(eventData);
+            long spillId = !spillLog.isOpen() ? SpillLog.NOT_LOGGED : spillTyped(namespace, EventDispatcher.CLICK, null, eventDataSnapshot, null);
+            fireAndForget(namespace, spillId, (trackerController, capturedAt) -> fire(trackerController, EventUtil.createButtonClickEvent(eventDataSnapshot), null, capturedAt, sample));
         } catch (Throwable t) {
-            promise.reject("ERROR", t.getMessage());
+            BridgeMetrics.error("fireClickEvent");
+            fireAndForgetCounter.recordError(t);
+        } finally {
+            BridgeMetrics.end("fireClickEvent", started);
         }
     }
 
+    /**
+     * Returns the module's internal counters, one map per subsystem, for
+     * support tooling and the JS getDiagnostics helper.
+     */
     @ReactMethod
-    public void trackMessageNotificationEvent(ReadableMap details, Promise promise) {
+    public void getDiagnostics(Promise promise) {
+        long started = BridgeMetrics.start();
         try {
-            String namespace = details.getString("tracker");
-            TrackerController trackerController = getTracker(namespace);
-            if (trackerController != null) {
-                ReadableMap argmap = details.getMap("eventData");
-                ReadableArray contexts = details.getArray("contexts");
-
-
-                MessageNotification event = EventUtil.createMessageNotificationEvent(argmap);
-
-                List<SelfDescribingJson> evCtxts = EventUtil.createContexts(contexts);
-                event.customContexts.addAll(evCtxts);
-
-                trackerController.track(event);
-                promise.resolve(true);
-            } else {
-                promise.reject("ERROR", "TrackerController is null");
-            }
-
+            WritableMap diagnostics = Arguments.createMap();
+            diagnostics.putMap("fireAndForget", fireAndForgetCounter.toWritableMap());
+            diagnostics.putMap("trackingQueue", trackingExecutor.toWritableMap());
+            diagnostics.putMap("preInitBuffer", preInitBuffer.toWritableMap());
+            diagnostics.putMap("spillLog", spillLog.toWritableMap());
+            diagnostics.putMap("adaptiveEmitter", adaptiveEmitter.toWritableMap());
+            diagnostics.putMap("startup", StartupProfiler.toWritableMap());
+            diagnostics.putMap("trackerResolver", trackerResolver.toWritableMap());
+            diagnostics.putMap("contextCache", EventUtil.getContextCache().toWritableMap());
+            diagnostics.putMap("errorAggregation", errorAggregator.toWritableMap());
+            diagnostics.putMap("eventQuota", eventQuota.toWritableMap());
+            diagnostics.putMap("remoteConfig", remoteConfigWatcher.toWritableMap());
+            diagnostics.putMap("remoteConfigFetch", remoteConfigFetcher.toWritableMap());
+            diagnostics.putMap("sampling", eventSampler.toWritableMap());
+            diagnostics.putMap("customTags", customTagStore.toWritableMap());
+            diagnostics.putMap("screenViewCoalescing", screenViewCoalescer.toWritableMap());
+            diagnostics.putMap("decoders", MapDecoder.toWritableMap());
+            diagnostics.putMap("collectorHttp", CollectorHttp.toWritableMap());
+            diagnostics.putMap("compression", CompressionInterceptor.toWritableMap());
+            promise.resolve(diagnostics);
         } catch (Throwable t) {
+            BridgeMetrics.error("getDiagnostics");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("getDiagnostics", started);
         }
     }
 
+    /**
+     * Returns the bridge metrics snapshot; empty counters unless
+     * bridgeMetricsConfig enabled them.
+     */
     @ReactMethod
-    public void trackCustomEvent(ReadableMap details, Promise promise) {
+    public void getBridgeMetrics(Promise promise) {
+        long started = BridgeMetrics.start();
         try {
-            String namespace = details.getString("tracker");
-            TrackerController trackerController = getTracker(namespace);
-            if (trackerController != null) {
-                String eventName = details.getString("eventName");
-                ReadableMap argmap = details.getMap("eventData");
-
-                HashMap<String, Object> eventData = argmap.toHashMap();
-
-                trackerController.trackCustomEvent(eventName, JSONValue.toJSONString(eventData));
-                promise.resolve(true);
-            } else {
-                promise.reject("ERROR", "TrackerController is null");
-            }
-
+            promise.resolve(BridgeMetrics.toWritableMap());
         } catch (Throwable t) {
+            BridgeMetrics.error("getBridgeMetrics");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("getBridgeMetrics", started);
         }
     }
 
     @ReactMethod
-    public void trackRevenueEvent(ReadableMap details, Promise promise) {
+    public void setCustomTags(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
-                ReadableMap argmap = details.getMap("eventData");
-
-                double totalOrderAmount = argmap.getDouble("totalOrderAmount");
-                String transactionId = argmap.getString("transactionId");
-                String currency = argmap.getString("currency");
-
-                ConvivaRevenueEvent.Builder builder =
-                    ConvivaRevenueEvent.builder(totalOrderAmount, transactionId, currency);
-
-                if (argmap.hasKey("taxAmount") && !argmap.isNull("taxAmount"))
-                    builder.taxAmount(argmap.getDouble("taxAmount"));
-                if (argmap.hasKey("shippingCost") && !argmap.isNull("shippingCost"))
-                    builder.shippingCost(argmap.getDouble("shippingCost"));
-                if (argmap.hasKey("discount") && !argmap.isNull("discount"))
-                    builder.discount(argmap.getDouble("discount"));
-                if (argmap.hasKey("cartSize") && !argmap.isNull("cartSize"))
-                    builder.cartSize(argmap.getInt("cartSize"));
-                if (argmap.hasKey("paymentMethod") && !argmap.isNull("paymentMethod"))
-                    builder.paymentMethod(argmap.getString("paymentMethod"));
-                if (argmap.hasKey("paymentProvider") && !argmap.isNull("paymentProvider"))
-                    builder.paymentProvider(argmap.getString("paymentProvider"));
-                if (argmap.hasKey("extraMetadata") && !argmap.isNull("extraMetadata"))
-                    builder.extraMetadata(new JSONObject(argmap.getMap("extraMetadata").toHashMap()));
-
-                if (argmap.hasKey("items") && !argmap.isNull("items")) {
-                    ReadableArray itemsArray = argmap.getArray("items");
-                    List<ConvivaRevenueEventItem> items = new ArrayList<>();
-                    for (int i = 0; i < itemsArray.size(); i++) {
-                        ReadableMap itemDict = itemsArray.getMap(i);
-                        ConvivaRevenueEventItem.Builder itemBuilder = ConvivaRevenueEventItem.builder();
-                        if (itemDict.hasKey("productId") && !itemDict.isNull("productId"))
-                            itemBuilder.productId(itemDict.getString("productId"));
-                        if (itemDict.hasKey("name") && !itemDict.isNull("name"))
-                            itemBuilder.name(itemDict.getString("name"));
-                        if (itemDict.hasKey("sku") && !itemDict.isNull("sku"))
-                            itemBuilder.sku(itemDict.getString("sku"));
-                        if (itemDict.hasKey("category") && !itemDict.isNull("category"))
-                            itemBuilder.category(EventUtil.createStrings(itemDict.getArray("category")));
-                        if (itemDict.hasKey("unitPrice") && !itemDict.isNull("unitPrice"))
-                            itemBuilder.unitPrice(itemDict.getDouble("unitPrice"));
-                        if (itemDict.hasKey("quantity") && !itemDict.isNull("quantity"))
-                            itemBuilder.quantity(itemDict.getInt("quantity"));
-                        if (itemDict.hasKey("discount") && !itemDict.isNull("discount"))
-                            itemBuilder.discount(itemDict.getDouble("discount"));
-                        if (itemDict.hasKey("brand") && !itemDict.isNull("brand"))
-                            itemBuilder.brand(itemDict.getString("brand"));
-                        if (itemDict.hasKey("variant") && !itemDict.isNull("variant"))
-                            itemBuilder.variant(itemDict.getString("variant"));
-                        if (itemDict.hasKey("extraMetadata") && !itemDict.isNull("extraMetadata"))
-                            itemBuilder.extraMetadata(new JSONObject(itemDict.getMap("extraMetadata").toHashMap()));
-                        items.add(itemBuilder.build());
-                    }
-                    builder.items(items);
-                }
+                ReadableMap argmap = details.getMap("tags");
 
-                trackerController.trackRevenueEvent(builder.build());
+                putCustomTags(trackerController, namespace, null, argmap);
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("setCustomTags");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("setCustomTags");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setCustomTags", started);
         }
     }
 
     @ReactMethod
-    public void setCustomTags(ReadableMap details, Promise promise) {
+    public void setCustomTagsWithCategory(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
+                String category = details.getString("category");
                 ReadableMap argmap = details.getMap("tags");
 
-                HashMap<String, Object> tags = argmap.toHashMap();
-
-                trackerController.setCustomTags(tags);
+                putCustomTags(trackerController, namespace, category, argmap);
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("setCustomTagsWithCategory");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("setCustomTagsWithCategory");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setCustomTagsWithCategory", started);
         }
     }
 
     @ReactMethod
     public void clearCustomTags(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
                 ReadableArray argArray = details.getArray("tagKeys");
 
-
-                List<String> tagKeys = EventUtil.createStrings(argArray);
-                trackerController.clearCustomTags(new HashSet<>(tagKeys));
+                removeCustomTags(trackerController, namespace, argArray);
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("clearCustomTags");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("clearCustomTags");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("clearCustomTags", started);
         }
     }
 
+    /**
+     * Applies a batch of tag changes in one call: the keys in remove are
+     * cleared, then the tags in put are set (in category, if given). Only
+     * tags whose value changed reach the tracker.
+     */
     @ReactMethod
-    public void clearAllCustomTags(ReadableMap details, Promise promise) {
+    public void updateCustomTags(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
-
-                trackerController.clearAllCustomTags();
+                String category = details.hasKey("category") && !details.isNull("category") ? details.getString("category") : null;
+                synchronized (customTagStore) {
+                    if (details.hasKey("remove") && !details.isNull("remove")) {
+                        removeCustomTags(trackerController, namespace, details.getArray("remove"));
+                    }
+                    if (details.hasKey("put") && !details.isNull("put")) {
+                        putCustomTags(trackerController, namespace, category, details.getMap("put"));
+                    }
+                }
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("updateCustomTags");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("updateCustomTags");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("updateCustomTags", started);
         }
     }
 
     @ReactMethod
-    public void trackClickEvent(ReadableMap details, Promise promise) {
+    public void clearAllCustomTags(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
-                ReadableMap eventMap = details.getMap("eventData");
-
-
-                ButtonClick event = EventUtil.createButtonClickEvent(eventMap);
-                trackerController.track(event);
-
+                synchronized (customTagStore) {
+                    customTagStore.clear(namespace);
+                    trackerController.clearAllCustomTags();
+                }
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("clearAllCustomTags");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("clearAllCustomTags");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("clearAllCustomTags", started);
+        }
+    }
+
+    // The store's lock is held across the SDK call so the tracker sees updates
+    // in the order the store recorded them. If the tracker fails, the store
+    // forgets the namespace rather than claim tags the tracker may lack.
+    private static void putCustomTags(TrackerController trackerController, @Nullable String namespace,
+                                      @Nullable String category, ReadableMap tags) {
+        synchronized (customTagStore) {
+            Map<String, Object> changed = customTagStore.put(namespace, category, tags);
+            if (changed.isEmpty()) {
+                return;
+            }
+            try {
+                if (category == null) {
+                    trackerController.setCustomTags(changed);
+                } else {
+                    trackerController.setCustomTags(category, changed);
+                }
+            } catch (RuntimeException e) {
+                customTagStore.clear(namespace);
+                throw e;
+            }
+        }
+    }
+
+    private static void removeCustomTags(TrackerController trackerController, @Nullable String namespace, ReadableArray tagKeys) {
+        synchronized (customTagStore) {
+            trackerController.clearCustomTags(customTagStore.remove(namespace, tagKeys));
         }
     }
 
+    @ReactMethod
+    public void trackClickEvent(ReadableMap details, Promise promise) {
+        trackEvent("trackClickEvent", EventDispatcher.CLICK, details, promise);
+    }
+
     @ReactMethod
     public void removeGlobalContexts(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             // commented out deprecated methods            
             // String namespace = details.getString("tracker");
@@ -733,12 +1169,16 @@ public class RNConvivaTrackerModule extends ReactContextBaseJavaModule {
             promise.resolve(true);
 
         } catch (Throwable t) {
+            BridgeMetrics.error("removeGlobalContexts");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("removeGlobalContexts", started);
         }
     }
 
     @ReactMethod
     public void addGlobalContexts(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             // commented out deprecated methods   
             // String namespace = details.getString("tracker");
@@ -760,242 +1200,302 @@ public class RNConvivaTrackerModule extends ReactContextBaseJavaModule {
             promise.resolve(true);
 
         } catch (Throwable t) {
+            BridgeMetrics.error("addGlobalContexts");
+            promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("addGlobalContexts", started);
+        }
+    }
+
+    /**
+     * Sets every subject field present in details (a null value clears the
+     * field) in one call. All fields are read before any is applied, so a
+     * malformed field leaves the subject unchanged. The update is serialized
+     * with the single-field setters but is not atomic for events tracked
+     * while it runs.
+     */
+    @ReactMethod
+    public void setSubjectData(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
+        try {
+            String namespace = details.getString("tracker");
+            TrackerController trackerController = getTracker(namespace);
+            if (trackerController != null) {
+                Runnable update = SubjectUpdate.read(trackerController.getSubject(), details);
+                EventDispatcher.updateSubject(update);
+                promise.resolve(true);
+            } else {
+                BridgeMetrics.error("setSubjectData");
+                promise.reject("ERROR", "TrackerController is null");
+            }
+
+        } catch (Throwable t) {
+            BridgeMetrics.error("setSubjectData");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setSubjectData", started);
         }
     }
 
     @ReactMethod
     public void setUserId(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
 
-                if (details.isNull("userId")) {
-                    trackerController.getSubject().setUserId(null);
-                } else {
-                    trackerController.getSubject().setUserId(details.getString("userId"));
-                }
+                String userId = details.isNull("userId") ? null : details.getString("userId");
+                EventDispatcher.updateSubject(() -> trackerController.getSubject().setUserId(userId));
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("setUserId");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("setUserId");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setUserId", started);
         }
     }
 
     @ReactMethod
     public void setNetworkUserId(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
 
-                if (details.isNull("networkUserId")) {
-                    trackerController.getSubject().setNetworkUserId(null);
-                } else {
-                    trackerController.getSubject().setNetworkUserId(details.getString("networkUserId"));
-                }
+                String networkUserId = details.isNull("networkUserId") ? null : details.getString("networkUserId");
+                EventDispatcher.updateSubject(() -> trackerController.getSubject().setNetworkUserId(networkUserId));
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("setNetworkUserId");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("setNetworkUserId");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setNetworkUserId", started);
         }
     }
 
     @ReactMethod
     public void setDomainUserId(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
 
-                if (details.isNull("domainUserId")) {
-                    trackerController.getSubject().setDomainUserId(null);
-                } else {
-                    trackerController.getSubject().setDomainUserId(details.getString("domainUserId"));
-                }
+                String domainUserId = details.isNull("domainUserId") ? null : details.getString("domainUserId");
+                EventDispatcher.updateSubject(() -> trackerController.getSubject().setDomainUserId(domainUserId));
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("setDomainUserId");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("setDomainUserId");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setDomainUserId", started);
         }
     }
 
     @ReactMethod
     public void setIpAddress(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
 
-                if (details.isNull("ipAddress")) {
-                    trackerController.getSubject().setIpAddress(null);
-                } else {
-                    trackerController.getSubject().setIpAddress(details.getString("ipAddress"));
-                }
+                String ipAddress = details.isNull("ipAddress") ? null : details.getString("ipAddress");
+                EventDispatcher.updateSubject(() -> trackerController.getSubject().setIpAddress(ipAddress));
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("setIpAddress");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("setIpAddress");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setIpAddress", started);
         }
     }
 
     @ReactMethod
     public void setUseragent(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
 
-                if (details.isNull("useragent")) {
-                    trackerController.getSubject().setUseragent(null);
-                } else {
-                    trackerController.getSubject().setUseragent(details.getString("useragent"));
-                }
+                String useragent = details.isNull("useragent") ? null : details.getString("useragent");
+                EventDispatcher.updateSubject(() -> trackerController.getSubject().setUseragent(useragent));
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("setUseragent");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("setUseragent");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setUseragent", started);
         }
     }
 
     @ReactMethod
     public void setTimezone(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
 
-                if (details.isNull("timezone")) {
-                    trackerController.getSubject().setTimezone(null);
-                } else {
-                    trackerController.getSubject().setTimezone(details.getString("timezone"));
-                }
+                String timezone = details.isNull("timezone") ? null : details.getString("timezone");
+                EventDispatcher.updateSubject(() -> trackerController.getSubject().setTimezone(timezone));
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("setTimezone");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("setTimezone");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setTimezone", started);
         }
     }
 
     @ReactMethod
     public void setLanguage(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
 
-                if (details.isNull("language")) {
-                    trackerController.getSubject().setLanguage(null);
-                } else {
-                    trackerController.getSubject().setLanguage(details.getString("language"));
-                }
+                String language = details.isNull("language") ? null : details.getString("language");
+                EventDispatcher.updateSubject(() -> trackerController.getSubject().setLanguage(language));
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("setLanguage");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("setLanguage");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setLanguage", started);
         }
     }
 
     @ReactMethod
     public void setScreenResolution(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
 
+                Size screenR;
                 if (details.isNull("screenResolution")) {
-                    trackerController.getSubject().setScreenResolution(null);
+                    screenR = null;
                 } else {
                     ReadableArray screenRes = details.getArray("screenResolution");
                     int width = screenRes.getInt(0);
                     int height = screenRes.getInt(1);
-                    Size screenR = new Size(width, height);
-
-                    trackerController.getSubject().setScreenResolution(screenR);
+                    screenR = new Size(width, height);
                 }
+                EventDispatcher.updateSubject(() -> trackerController.getSubject().setScreenResolution(screenR));
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("setScreenResolution");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("setScreenResolution");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setScreenResolution", started);
         }
     }
 
     @ReactMethod
     public void setScreenViewport(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
 
+                Size screenVP;
                 if (details.isNull("screenViewport")) {
-                    trackerController.getSubject().setScreenViewPort(null);
+                    screenVP = null;
                 } else {
                     ReadableArray screenView = details.getArray("screenViewport");
                     int width = screenView.getInt(0);
                     int height = screenView.getInt(1);
-                    Size screenVP = new Size(width, height);
-
-                    trackerController.getSubject().setScreenViewPort(screenVP);
+                    screenVP = new Size(width, height);
                 }
+                EventDispatcher.updateSubject(() -> trackerController.getSubject().setScreenViewPort(screenVP));
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("setScreenViewport");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("setScreenViewport");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setScreenViewport", started);
         }
     }
 
     @ReactMethod
     public void setColorDepth(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
             if (trackerController != null) {
 
-                if (details.isNull("colorDepth")) {
-                    trackerController.getSubject().setColorDepth(null);
-                } else {
-                    trackerController.getSubject().setColorDepth(details.getInt("colorDepth"));
-                }
+                Integer colorDepth = details.isNull("colorDepth") ? null : details.getInt("colorDepth");
+                EventDispatcher.updateSubject(() -> trackerController.getSubject().setColorDepth(colorDepth));
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("setColorDepth");
                 promise.reject("ERROR", "TrackerController is null");
             }
 
         } catch (Throwable t) {
+            BridgeMetrics.error("setColorDepth");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setColorDepth", started);
         }
     }
 
     @ReactMethod
     public void getSessionUserId(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             // commented out deprecated methods
             // String namespace = details.getString("tracker");
@@ -1005,12 +1505,16 @@ public class RNConvivaTrackerModule extends ReactContextBaseJavaModule {
             // promise.resolve(suid);
             promise.resolve(true);
         } catch (Throwable t) {
+            BridgeMetrics.error("getSessionUserId");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("getSessionUserId", started);
         }
     }
 
     @ReactMethod
     public void getSessionId(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             // commented out deprecated methods
             // String namespace = details.getString("tracker");
@@ -1020,12 +1524,16 @@ public class RNConvivaTrackerModule extends ReactContextBaseJavaModule {
             // promise.resolve(sid);
             promise.resolve(true);
         } catch (Throwable t) {
+            BridgeMetrics.error("getSessionId");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("getSessionId", started);
         }
     }
 
     @ReactMethod
     public void getSessionIndex(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             // commented out deprecated methods
             // String namespace = details.getString("tracker");
@@ -1035,12 +1543,16 @@ public class RNConvivaTrackerModule extends ReactContextBaseJavaModule {
             // promise.resolve(sidx);
             promise.resolve(true);
         } catch (Throwable t) {
+            BridgeMetrics.error("getSessionIndex");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("getSessionIndex", started);
         }
     }
 
     @ReactMethod
     public void getIsInBackground(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             // commented out deprecated methods
             // String namespace = details.getString("tracker");
@@ -1050,12 +1562,16 @@ public class RNConvivaTrackerModule extends ReactContextBaseJavaModule {
             // promise.resolve(isInBg);
             promise.resolve(true);
         } catch (Throwable t) {
+            BridgeMetrics.error("getIsInBackground");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("getIsInBackground", started);
         }
     }
 
     @ReactMethod
     public void getBackgroundIndex(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             // commented out deprecated methods
             // String namespace = details.getString("tracker");
@@ -1065,12 +1581,16 @@ public class RNConvivaTrackerModule extends ReactContextBaseJavaModule {
             // promise.resolve(bgIdx);
             promise.resolve(true);
         } catch (Throwable t) {
+            BridgeMetrics.error("getBackgroundIndex");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("getBackgroundIndex", started);
         }
     }
 
     @ReactMethod
     public void getForegroundIndex(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             // commented out deprecated methods
             // String namespace = details.getString("tracker");
@@ -1080,12 +1600,16 @@ public class RNConvivaTrackerModule extends ReactContextBaseJavaModule {
             // promise.resolve(fgIdx);
             promise.resolve(true);
         } catch (Throwable t) {
+            BridgeMetrics.error("getForegroundIndex");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("getForegroundIndex", started);
         }
     }
 
     @ReactMethod
     private void setContentAppearedTimestamp(ReadableMap argmap, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = argmap.getString("tracker");
             long contentAppearedTimestamp = (long) argmap.getDouble("contentAppearedTimestamp");
@@ -1095,32 +1619,357 @@ public class RNConvivaTrackerModule extends ReactContextBaseJavaModule {
             }
             promise.resolve(true);
         } catch (Throwable t) {
+            BridgeMetrics.error("setContentAppearedTimestamp");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setContentAppearedTimestamp", started);
         }
     }
 
     @ReactMethod
     public void startReplay(Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             ConvivaAppAnalytics.startReplay();
             promise.resolve(true);
         } catch (Throwable t) {
+            BridgeMetrics.error("startReplay");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("startReplay", started);
         }
     }
 
     @ReactMethod
     public void stopReplay(Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             ConvivaAppAnalytics.stopReplay();
             promise.resolve(true);
         } catch (Throwable t) {
+            BridgeMetrics.error("stopReplay");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("stopReplay", started);
         }
     }
 
     private TrackerController getTracker(String namespace) {
-        return namespace == null ? ConvivaAppAnalytics.getDefaultTracker() : ConvivaAppAnalytics.getTracker(namespace);
+        return trackerResolver.resolve(namespace);
+    }
+
+    private static void fire(TrackerController trackerController, AbstractEvent event, @Nullable ReadableArray contexts, @Nullable Long capturedAt,
+                             EventSampler.Sample sample) {
+        if (capturedAt != null) {
+            event.trueTimestamp(capturedAt);
+        }
+        if (contexts != null) {
+            event.customContexts.addAll(EventUtil.createContexts(contexts));
+        }
+        if (sample.context != null) {
+            event.customContexts.add(sample.context);
+        }
+        long started = BridgeMetrics.start();
+        EventDispatcher.track(trackerController, event);
+        BridgeMetrics.endStage(BridgeMetrics.TRACK, started);
+    }
+
+    /**
+     * Dispatches a map-based event. A screen view goes to the coalescer when
+     * it is on; any other event first emits the tracker's held screen view.
+     * Returns true when the coalescer held the screen view and so acks its
+     * spill-log entry itself.
+     */
+    private static boolean dispatch(TrackerController trackerController, @Nullable String namespace, String eventType, ReadableMap details,
+                                    @Nullable Long capturedAt, EventSampler.Sample sample, long spillId) {
+        if (!EventDispatcher.SCREEN_VIEW.equals(eventType)) {
+            screenViewCoalescer.flush(namespace);
+        } else if (screenViewCoalescer.isEnabled()
+                && screenViewCoalescer.offer(namespace, ScreenViewCoalescer.Screen.read(details, capturedAt, sample.context, spillId))) {
+            return true;
+        }
+        EventDispatcher.dispatch(trackerController, eventType, details, capturedAt, sample);
+        return false;
+    }
+
+    /**
+     * Snapshots the details on the calling thread, then builds and tracks the
+     * event on the tracking executor. The promise settles once the event has
+     * been handed to the tracker, or is rejected if the queue drops it.
+     */
+    private void trackEvent(String method, String eventType, ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
+        try {
+            String namespace = details.getString("tracker");
+            EventSampler.Sample sample = eventSampler.sample(eventType, details);
+            if (!sample.keep) {
+                // Sampled out by rule; resolves false rather than rejecting
+                promise.resolve(false);
+                return;
+            }
+            if (!eventQuota.tryAcquire(namespace, eventType)) {
+                BridgeMetrics.error(method);
+                promise.reject("ERROR", EventQuota.REJECTED_MESSAGE);
+                return;
+            }
+            ReadableMap snapshot = snapshot(details);
+            long spillId = spillLog.append(namespace, eventType, snapshot, System.currentTimeMillis());
+            trackingExecutor.execute(() -> {
+                try {
+                    runOrPark(namespace, acking(spillId, (trackerController, capturedAt) -> {
+                        boolean held = dispatch(trackerController, namespace, eventType, snapshot, capturedAt, sample, spillId);
+                        promise.resolve(true);
+                        return held;
+                    }), ackingDiscard(spillId, message -> promise.reject("ERROR", message)));
+                } catch (Throwable t) {
+                    spillLog.ack(spillId);
+                    promise.reject("ERROR", t.getMessage());
+                }
+            }, () -> {
+                spillLog.ack(spillId);
+                BridgeMetrics.error(method);
+                promise.reject("ERROR", TrackingExecutor.DROPPED_MESSAGE);
+            });
+
+        } catch (Throwable t) {
+            BridgeMetrics.error(method);
+            promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end(method, started);
+        }
+    }
+
+    /**
+     * The document fetched from the remoteConfig endpoint when one is set,
+     * otherwise the config the native SDK applied.
+     */
+    @Nullable
+    private static String appliedRemoteConfig() {
+        return remoteConfigFetcher.isConfigured() ? remoteConfigFetcher.get() : ConvivaAppAnalytics.getAppliedRemoteConfigJson();
+    }
+
+    /**
+     * Sends the changed sections of a new remote-config state to JS as a
+     * ConvivaRemoteConfigChanged event:
+     * { version, changed: { section: value }, removed: [section] }.
+     */
+    private static void emitRemoteConfigChange(RemoteConfigState state, List<String> changed, List<String> removed) {
+        ReactApplicationContext context = eventContext.get();
+        if (context == null || !context.hasActiveReactInstance()) {
+            return;
+        }
+        WritableMap event = Arguments.createMap();
+        event.putDouble("version", state.version);
+        event.putMap("changed", state.sectionsToWritableMap(changed));
+        WritableArray removedSections = Arguments.createArray();
+        for (String section : removed) {
+            removedSections.pushString(section);
+        }
+        event.putArray("removed", removedSections);
+        try {
+            context.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(REMOTE_CONFIG_CHANGED_EVENT, event);
+        } catch (Throwable ignored) {
+            // The JS runtime went away; it reads the state again on start.
+        }
+    }
+
+    private void fireAndForget(@Nullable String namespace, long spillId, PreInitBuffer.Task task) {
+        submit(namespace, spillId, (trackerController, capturedAt) -> {
+            screenViewCoalescer.flush(namespace);
+            task.run(trackerController, capturedAt);
+            return false;
+        });
+    }
+
+    /**
+     * Fire-and-forget without first emitting a held screen view; only for
+     * screen views, which go through the coalescer themselves. The spill-log
+     * entry is acked once the event is tracked, discarded or dropped.
+     */
+    private void submit(@Nullable String namespace, long spillId, LoggedTask task) {
+        fireAndForgetCounter.recordCall();
+        trackingExecutor.execute(() -> {
+            try {
+                runOrPark(namespace, acking(spillId, task), ackingDiscard(spillId, this::recordDiscarded));
+            } catch (Throwable t) {
+                spillLog.ack(spillId);
+                fireAndForgetCounter.recordError(t);
+            }
+        }, () -> spillLog.ack(spillId));
+    }
+
+    /**
+     * Logs a typed fire-and-forget event in the shape trackEvent logs, so
+     * replaySpilled can dispatch it. Callers skip building the event data
+     * while the log is closed.
+     */
+    private static long spillTyped(@Nullable String namespace, String eventType, @Nullable String eventName,
+                                   ReadableMap eventData, @Nullable ReadableArray contexts) {
+        JavaOnlyMap details = new JavaOnlyMap();
+        details.putString("tracker", namespace);
+        if (eventName != null) {
+            details.putString("eventName", eventName);
+        }
+        details.putMap("eventData", eventData);
+        if (contexts != null) {
+            details.putArray("contexts", contexts);
+        }
+        return spillLog.append(namespace, eventType, details, System.currentTimeMillis());
+    }
+
+    /**
+     * Builds event data from key/value pairs, leaving out null values as the
+     * JS side leaves out absent properties.
+     */
+    private static ReadableMap eventData(Object... keysAndValues) {
+        JavaOnlyMap map = new JavaOnlyMap();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            String key = (String) keysAndValues[i];
+            Object value = keysAndValues[i + 1];
+            if (value instanceof String) {
+                map.putString(key, (String) value);
+            } else if (value instanceof Double) {
+                map.putDouble(key, (Double) value);
+            } else if (value instanceof ReadableMap) {
+                map.putMap(key, (ReadableMap) value);
+            }
+        }
+        return map;
+    }
+
+    private void recordDiscarded(String message) {
+        fireAndForgetCounter.recordError(new IllegalStateException(message));
+    }
+
+    /**
+     * Runs the task against the namespace's tracker, or parks it in the
+     * pre-init buffer while that tracker does not exist yet (or older work
+     * for it is still parked). Throws as before when the buffer refuses it.
+     * Must run on the tracking executor, which also replays the buffer.
+     */
+    private static void runOrPark(@Nullable String namespace, PreInitBuffer.Task task, @Nullable PreInitBuffer.OnDiscard onDiscard) throws Exception {
+        if (!preInitBuffer.hasPending(namespace)) {
+            TrackerController trackerController = trackerResolver.resolve(namespace);
+            if (trackerController != null) {
+                task.run(trackerController, null);
+                return;
+            }
+        }
+        PreInitBuffer.OnDiscard discard = onDiscard != null ? onDiscard : message -> {
+        };
+        if (!preInitBuffer.park(namespace, task, discard)) {
+            throw new IllegalStateException("TrackerController is null");
+        }
+    }
+
+    /**
+     * Appends every entry of a batch to the spill log and returns their ids
+     * by index (NOT_LOGGED when the log is closed).
+     */
+    private static long[] spill(ReadableArray events) {
+        long[] ids = new long[events.size()];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < ids.length; i++) {
+            ReadableMap entry = events.getMap(i);
+            ids[i] = spillLog.append(entry.getString("tracker"), entry.getString("type"), entry, now);
+        }
+        return ids;
+    }
+
+    private static void ack(long[] spillIds) {
+        for (long spillId : spillIds) {
+            spillLog.ack(spillId);
+        }
+    }
+
+    /**
+     * A logged task; returns true when the screen-view coalescer took over
+     * its spill-log entry.
+     */
+    private interface LoggedTask {
+        boolean run(TrackerController trackerController, @Nullable Long capturedAt) throws Exception;
+    }
+
+    private static PreInitBuffer.Task acking(long spillId, LoggedTask task) {
+        return (trackerController, capturedAt) -> {
+            boolean held = false;
+            try {
+                held = task.run(trackerController, capturedAt);
+            } finally {
+                if (!held) {
+                    spillLog.ack(spillId);
+                }
+            }
+        };
+    }
+
+    private static PreInitBuffer.OnDiscard ackingDiscard(long spillId, @Nullable PreInitBuffer.OnDiscard onDiscard) {
+        return message -> {
+            spillLog.ack(spillId);
+            if (onDiscard != null) {
+                onDiscard.discarded(message);
+            }
+        };
+    }
+
+    /**
+     * Tracks events a previous process logged but did not get to, with
+     * their original capture time. The replay is a control job, so the
+     * queue's overflow policy cannot drop it.
+     */
+    private static void replaySpilled(List<SpillLog.Pending> spilled) {
+        trackingExecutor.executeControl(() -> {
+            for (SpillLog.Pending pending : spilled) {
+                try {
+                    // Sampling is deterministic, so the replay decides as the original call did
+                    EventSampler.Sample sample = eventSampler.sample(pending.eventType, pending.details);
+                    if (!sample.keep) {
+                        spillLog.ack(pending.id);
+                        continue;
+                    }
+                    runOrPark(pending.namespace,
+                            acking(pending.id, (trackerController, capturedAt) -> {
+                                EventDispatcher.dispatch(trackerController, pending.eventType, pending.details, pending.capturedAt, sample);
+                                return false;
+                            }),
+                            ackingDiscard(pending.id, null));
+                } catch (Throwable t) {
+                    spillLog.ack(pending.id);
+                }
+            }
+        });
+    }
+
+    /**
+     * Replays work parked for a newly created namespace. Draining happens on
+     * the tracking executor, behind work submitted before the tracker
+     * existed, so replayed events keep their order. The replay is a control
+     * job: under DROP_OLDEST it is never evicted and run on the caller.
+     */
+    private static void replayPreInitBuffer(String namespace) {
+        trackingExecutor.executeControl(() -> {
+            for (PreInitBuffer.Parked entry : preInitBuffer.drain(namespace)) {
+                preInitBuffer.replay(entry, trackerResolver.resolve(entry.getNamespace()));
+            }
+        });
+    }
+
+    /**
+     * Bridge arguments (ReadableNativeMap/Array) are immutable copies of the
+     * JS values and are handed to the tracking thread as they are; deep
+     * cloning them would also turn nested maps into JavaOnlyMaps, which
+     * toHashMap() does not convert back. Other implementations are mutable
+     * and are cloned.
+     */
+    private static ReadableMap snapshot(ReadableMap map) {
+        return map instanceof ReadableNativeMap ? map : JavaOnlyMap.deepClone(map);
+    }
+
+    private static ReadableArray snapshot(ReadableArray array) {
+        if (array == null || array instanceof ReadableNativeArray) {
+            return array;
+        }
+        return JavaOnlyArray.deepClone(array);
     }
 
     /**
@@ -1134,6 +1983,7 @@ public class RNConvivaTrackerModule extends ReactContextBaseJavaModule {
      */
     @ReactMethod
     public void setJsBundleInfo(ReadableMap details, Promise promise) {
+        long started = BridgeMetrics.start();
         try {
             String namespace = details.getString("tracker");
             TrackerController trackerController = getTracker(namespace);
@@ -1144,16 +1994,21 @@ public class RNConvivaTrackerModule extends ReactContextBaseJavaModule {
                 }
                 promise.resolve(true);
             } else {
+                BridgeMetrics.error("setJsBundleInfo");
                 promise.reject("ERROR", "TrackerController is null");
             }
         } catch (Throwable t) {
+            BridgeMetrics.error("setJsBundleInfo");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("setJsBundleInfo", started);
         }
     }
 
     /**
      * Returns the verbatim remote-config JSON last applied by the native SDK
-     * (from cache, default, or a remote fetch), or null if none has been
+     * (from cache, default, or a remote fetch), or the document fetched from
+     * the remoteConfig endpoint when one is set; null if none has been
      * applied yet. The JS layer parses this to enable/disable error-tracking
      * features and reconfigure the rate limiter — the native side performs no
      * error-tracking gating. D7: never throws (rejects only on unexpected
@@ -1161,15 +2016,54 @@ public class RNConvivaTrackerModule extends ReactContextBaseJavaModule {
      */
     @ReactMethod
     public void getRemoteConfig(Promise promise) {
+        long started = BridgeMetrics.start();
+        try {
+            remoteConfigWatcher.check();
+            promise.resolve(remoteConfigWatcher.current().json);
+        } catch (Throwable t) {
+            BridgeMetrics.error("getRemoteConfig");
+            promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("getRemoteConfig", started);
+        }
+    }
+
+    /**
+     * Returns the parsed remote config as { version, sections }, where
+     * sections are the members of the bundle the RN tracker uses; version is
+     * 0 until a config has been applied. Later changes arrive as
+     * ConvivaRemoteConfigChanged events with a higher version.
+     */
+    @ReactMethod
+    public void getRemoteConfigState(Promise promise) {
+        long started = BridgeMetrics.start();
         try {
-            promise.resolve(ConvivaAppAnalytics.getAppliedRemoteConfigJson());
+            remoteConfigWatcher.check();
+            RemoteConfigState state = remoteConfigWatcher.current();
+            WritableMap result = Arguments.createMap();
+            result.putDouble("version", state.version);
+            result.putMap("sections", state.sectionsToWritableMap(state.sections.keySet()));
+            promise.resolve(result);
         } catch (Throwable t) {
+            BridgeMetrics.error("getRemoteConfigState");
             promise.reject("ERROR", t.getMessage());
+        } finally {
+            BridgeMetrics.end("getRemoteConfigState", started);
         }
     }
 
+    // Required by NativeEventEmitter; events are sent whether or not JS listens.
+    @ReactMethod
+    public void addListener(String eventName) {
+    }
+
+    @ReactMethod
+    public void removeListeners(double count) {
+    }
+
     @ReactMethod
     public void reportJsError(String payloadJson) {
+        long started = BridgeMetrics.start();
         try {
             if (payloadJson == null || payloadJson.length() == 0) {
                 return;
@@ -1178,10 +2072,7 @@ public class RNConvivaTrackerModule extends ReactContextBaseJavaModule {
 
             boolean isFatal = json.optBoolean("isFatal", false);
 
-            TrackerController trackerController = getTracker("CAT");
-            if (trackerController == null) {
-                trackerController = ConvivaAppAnalytics.getDefaultTracker();
-            }
+            TrackerController trackerController = trackerResolver.resolveOrDefault("CAT");
             if (trackerController == null) {
                 return;
             }
@@ -1191,51 +2082,52 @@ public class RNConvivaTrackerModule extends ReactContextBaseJavaModule {
                 // Non-fatal JS error — custom event with descriptive keys.
                 // This is the dedicated metric surface that does not affect
                 // crash-rate dashboards.
-                HashMap<String, Object> eventData = new HashMap<>();
-                eventData.put("message",        json.optString("message", ""));
-                eventData.put("errorType",       json.optString("errorType", ""));
-                eventData.put("stackTrace",      json.optString("stackTrace", ""));
-                eventData.put("timestamp",       json.optLong("timestamp", 0L));
-                eventData.put("isFatal",         false);
-                eventData.put("isHandled",       json.optBoolean("isHandled", true));
-                eventData.put("errorSource",     json.optString("errorSource", ""));
-                eventData.put("severity",        json.optString("severity", ""));
-                eventData.put("componentStack",  json.optString("componentStack", ""));
-                eventData.put("jsEngine",        json.optString("jsEngine", "unknown"));
-
-                if (json.has("lineNumber") && !json.isNull("lineNumber")) {
-                    eventData.put("lineNumber", json.opt("lineNumber"));
+                //
+                // The payload's members are written straight into the event
+                // JSON, with the values the previous org.json -> HashMap ->
+                // json-simple round trip produced.
+                //
+                // Repeats of an error already reported in the current window
+                // are only counted and flushed later as one summary event.
+                if (!errorAggregator.admit(json.optString("errorType", ""), json.optString("stackTrace", ""),
+                        json.optString("fileName", ""), json.optString("message", ""))) {
+                    return;
                 }
-                if (json.has("lineColumn") && !json.isNull("lineColumn")) {
-                    eventData.put("lineColumn", json.opt("lineColumn"));
-                }
-                if (json.has("fileName") && !json.isNull("fileName")) {
-                    eventData.put("fileName", json.opt("fileName"));
-                }
-                if (json.has("bundleId") && !json.isNull("bundleId")) {
-                    eventData.put("bundleId", json.opt("bundleId"));
+
+                JsonSimpleWriter.Members eventData = new JsonSimpleWriter.Members();
+                JsonSimpleWriter.writeString(json.optString("message", ""), eventData.value("message"));
+                JsonSimpleWriter.writeString(json.optString("errorType", ""), eventData.value("errorType"));
+                JsonSimpleWriter.writeString(json.optString("stackTrace", ""), eventData.value("stackTrace"));
+                eventData.value("timestamp").append(json.optLong("timestamp", 0L));
+                eventData.value("isFatal").append(false);
+                eventData.value("isHandled").append(json.optBoolean("isHandled", true));
+                JsonSimpleWriter.writeString(json.optString("errorSource", ""), eventData.value("errorSource"));
+                JsonSimpleWriter.writeString(json.optString("severity", ""), eventData.value("severity"));
+                JsonSimpleWriter.writeString(json.optString("componentStack", ""), eventData.value("componentStack"));
+                JsonSimpleWriter.writeString(json.optString("jsEngine", "unknown"), eventData.value("jsEngine"));
+
+                for (String key : OPTIONAL_ERROR_KEYS) {
+                    if (json.has(key) && !json.isNull(key)) {
+                        JsonSimpleWriter.writeValue(json.opt(key), eventData.value(key));
+                    }
                 }
 
                 // Consumer attributes — all keys not in the known set.
-                HashSet<String> knownKeys = new HashSet<>(Arrays.asList(
-                    "timestamp", "message", "errorType", "stackTrace",
-                    "isFatal", "isHandled", "errorSource", "severity",
-                    "componentStack", "jsEngine",
-                    "lineNumber", "lineColumn", "fileName", "bundleId"
-                ));
                 Iterator<String> keys = json.keys();
                 while (keys.hasNext()) {
                     String key = keys.next();
-                    if (!knownKeys.contains(key)) {
-                        eventData.put(key, json.opt(key));
+                    if (!KNOWN_ERROR_KEYS.contains(key)) {
+                        JsonSimpleWriter.writeValue(json.opt(key), eventData.value(key));
                     }
                 }
 
-                trackerController.trackCustomEvent("conviva_non_fatal_error",
-                    JSONValue.toJSONString(eventData));
+                EventDispatcher.trackCustom(trackerController, "conviva_non_fatal_error", eventData.toJSONString());
             }
         } catch (Throwable t) {
+            BridgeMetrics.error("reportJsError");
             // D7: error-reporting path must never throw.
+        } finally {
+            BridgeMetrics.end("reportJsError", started);
         }
     }
 }
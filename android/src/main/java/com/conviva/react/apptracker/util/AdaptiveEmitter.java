@@ -0,0 +1,450 @@
+package com.conviva.react.apptracker.util;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.os.BatteryManager;
+import android.os.Build;
+
+import androidx.annotation.Nullable;
+
+import com.conviva.apptracker.controller.EmitterController;
+import com.conviva.apptracker.controller.TrackerController;
+import com.conviva.apptracker.emitter.BufferOption;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retunes the emitters of the registered trackers at runtime.
+ *
+ * Every interval the connectivity, battery state and each tracker's backlog
+ * of unsent events are sampled and mapped to a profile:
+ * conserve (metered or no network, or low battery, while not charging):
+ * small batches, the minimum of every range; boost (unmetered and charging,
+ * or unmetered with a backlog over the threshold): heavy batches, the
+ * maximum of every range; balanced otherwise: the values the tracker was
+ * created with, clamped into the ranges. A metered backlog over the
+ * threshold moves conserve up to balanced so it can drain.
+ *
+ * Every change applied to a tracker is tracked on it as a
+ * conviva_emitter_adjustment event. Disabling the mode puts the created
+ * values back.
+ *
+ * Ticks run on their own thread and sample without holding the lock, as
+ * reading a backlog queries the tracker's event store.
+ */
+public class AdaptiveEmitter {
+
+    public static final String ADJUSTMENT_EVENT = "conviva_emitter_adjustment";
+    public static final long DEFAULT_INTERVAL_MS = 30000;
+    public static final long DEFAULT_BACKLOG_THRESHOLD = 500;
+    public static final int LOW_BATTERY_PERCENT = 15;
+
+    public static final Range DEFAULT_EMIT_RANGE = new Range(25, 500);
+    public static final Range DEFAULT_THREAD_POOL_SIZE = new Range(1, 15);
+    public static final Range DEFAULT_BYTE_LIMIT_POST = new Range(10000, 40000);
+
+    public enum Profile {
+        CONSERVE("conserve"),
+        BALANCED("balanced"),
+        BOOST("boost");
+
+        private final String value;
+
+        Profile(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * Resolves a namespace to its current tracker, as trackers may be
+     * recreated between ticks.
+     */
+    public interface Trackers {
+        @Nullable
+        TrackerController resolve(String namespace);
+    }
+
+    public static final class Range {
+        public final long min;
+        public final long max;
+
+        public Range(long min, long max) {
+            this.min = Math.min(min, max);
+            this.max = Math.max(min, max);
+        }
+
+        long clamp(long value) {
+            return Math.max(min, Math.min(max, value));
+        }
+    }
+
+    private static final class Settings {
+        final BufferOption bufferOption;
+        final int emitRange;
+        final int threadPoolSize;
+        final long byteLimitPost;
+
+        Settings(BufferOption bufferOption, int emitRange, int threadPoolSize, long byteLimitPost) {
+            this.bufferOption = bufferOption;
+            this.emitRange = emitRange;
+            this.threadPoolSize = threadPoolSize;
+            this.byteLimitPost = byteLimitPost;
+        }
+
+        boolean sameAs(Settings other) {
+            return other.bufferOption == bufferOption && other.emitRange == emitRange
+                    && other.threadPoolSize == threadPoolSize && other.byteLimitPost == byteLimitPost;
+        }
+
+        static Settings of(EmitterController emitter) {
+            return new Settings(emitter.getBufferOption(), emitter.getEmitRange(),
+                    emitter.getThreadPoolSize(), emitter.getByteLimitPost());
+        }
+    }
+
+    private static final class Conditions {
+        String networkType = "unknown";
+        boolean connected = true;
+        boolean metered;
+        boolean charging;
+        int batteryPercent = -1;
+        int errors;
+    }
+
+    private static final class Tuned {
+        final Settings baseline;
+        Profile profile = Profile.BALANCED;
+
+        Tuned(Settings baseline) {
+            this.baseline = baseline;
+        }
+    }
+
+    private final Trackers trackers;
+
+    private final Map<String, Tuned> tuned = new LinkedHashMap<>();
+    private Context context;
+    private boolean enabled;
+    private long intervalMs = DEFAULT_INTERVAL_MS;
+    private long backlogThreshold = DEFAULT_BACKLOG_THRESHOLD;
+    private Range emitRange = DEFAULT_EMIT_RANGE;
+    private Range threadPoolSize = DEFAULT_THREAD_POOL_SIZE;
+    private Range byteLimitPost = DEFAULT_BYTE_LIMIT_POST;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> tickTask;
+
+    private long ticks;
+    private long adjustments;
+    private long errors;
+    private Conditions lastConditions;
+
+    public AdaptiveEmitter(Trackers trackers) {
+        this.trackers = trackers;
+    }
+
+    public synchronized void configure(Context context, boolean enabled, long intervalMs, long backlogThreshold,
+                                       Range emitRange, Range threadPoolSize, Range byteLimitPost) {
+        this.context = context.getApplicationContext();
+        this.enabled = enabled;
+        this.intervalMs = Math.max(1000, intervalMs);
+        this.backlogThreshold = Math.max(1, backlogThreshold);
+        this.emitRange = emitRange;
+        this.threadPoolSize = threadPoolSize;
+        this.byteLimitPost = byteLimitPost;
+        if (tickTask != null) {
+            tickTask.cancel(false);
+            tickTask = null;
+        }
+        if (enabled) {
+            if (scheduler == null) {
+                scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "conviva-rn-adaptive-emitter");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            tickTask = scheduler.scheduleWithFixedDelay(this::tick, 0, this.intervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            restoreBaselines();
+        }
+    }
+
+    /**
+     * Records the emitter settings a tracker was created with as its
+     * balanced profile.
+     */
+    public synchronized void register(TrackerController trackerController) {
+        try {
+            tuned.put(trackerController.getNamespace(), new Tuned(Settings.of(trackerController.getEmitter())));
+        } catch (Throwable t) {
+            errors++;
+        }
+    }
+
+    public synchronized void unregister(String namespace) {
+        tuned.remove(namespace);
+    }
+
+    public synchronized WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        map.putBoolean("enabled", enabled);
+        map.putDouble("intervalMs", intervalMs);
+        map.putDouble("ticks", ticks);
+        map.putDouble("adjustments", adjustments);
+        map.putDouble("errors", errors);
+        if (lastConditions != null) {
+            map.putString("networkType", lastConditions.networkType);
+            map.putBoolean("metered", lastConditions.metered);
+            map.putBoolean("charging", lastConditions.charging);
+            map.putInt("batteryLevel", lastConditions.batteryPercent);
+        }
+        WritableMap profiles = Arguments.createMap();
+        for (Map.Entry<String, Tuned> entry : tuned.entrySet()) {
+            profiles.putString(entry.getKey(), entry.getValue().profile.getValue());
+        }
+        map.putMap("profiles", profiles);
+        return map;
+    }
+
+    private void tick() {
+        List<String> namespaces;
+        Context appContext;
+        synchronized (this) {
+            if (!enabled) {
+                return;
+            }
+            ticks++;
+            namespaces = new ArrayList<>(tuned.keySet());
+            appContext = context;
+        }
+
+        Conditions conditions = sample(appContext);
+        Map<String, Long> backlogs = new HashMap<>();
+        for (String namespace : namespaces) {
+            try {
+                TrackerController trackerController = trackers.resolve(namespace);
+                if (trackerController != null) {
+                    backlogs.put(namespace, trackerController.getEmitter().getDbCount());
+                }
+            } catch (Throwable t) {
+                conditions.errors++;
+            }
+        }
+
+        List<String[]> pending = new ArrayList<>();
+        synchronized (this) {
+            errors += conditions.errors;
+            if (!enabled) {
+                return;
+            }
+            lastConditions = conditions;
+            for (Map.Entry<String, Tuned> entry : tuned.entrySet()) {
+                Long backlog = backlogs.get(entry.getKey());
+                if (backlog == null) {
+                    continue;
+                }
+                try {
+                    String event = retune(entry.getKey(), entry.getValue(), conditions, backlog);
+                    if (event != null) {
+                        pending.add(new String[]{entry.getKey(), event});
+                    }
+                } catch (Throwable t) {
+                    errors++;
+                }
+            }
+        }
+        for (String[] event : pending) {
+            try {
+                TrackerController trackerController = trackers.resolve(event[0]);
+                if (trackerController != null) {
+                    trackerController.trackCustomEvent(ADJUSTMENT_EVENT, event[1]);
+                }
+            } catch (Throwable ignored) {
+                // Diagnostics must never break the scheduler.
+            }
+        }
+    }
+
+    // Must be called with the lock held; returns the adjustment event, if any.
+    private String retune(String namespace, Tuned state, Conditions conditions, long backlog) {
+        TrackerController trackerController = trackers.resolve(namespace);
+        if (trackerController == null) {
+            return null;
+        }
+        EmitterController emitter = trackerController.getEmitter();
+        Profile profile = profileFor(conditions, backlog);
+        Settings target = settingsFor(profile, state.baseline);
+        Settings current = Settings.of(emitter);
+        Profile previous = state.profile;
+        state.profile = profile;
+        if (current.sameAs(target)) {
+            return null;
+        }
+
+        emitter.setBufferOption(target.bufferOption);
+        emitter.setEmitRange(target.emitRange);
+        emitter.setThreadPoolSize(target.threadPoolSize);
+        emitter.setByteLimitPost(target.byteLimitPost);
+        adjustments++;
+
+        JsonSimpleWriter.Members event = new JsonSimpleWriter.Members();
+        JsonSimpleWriter.writeString(profile.getValue(), event.value("profile"));
+        JsonSimpleWriter.writeString(previous.getValue(), event.value("previousProfile"));
+        JsonSimpleWriter.writeString(conditions.networkType, event.value("networkType"));
+        event.value("metered").append(conditions.metered);
+        event.value("charging").append(conditions.charging);
+        event.value("batteryLevel").append(conditions.batteryPercent);
+        event.value("backlog").append(backlog);
+        JsonSimpleWriter.writeString(target.bufferOption.name(), event.value("bufferOption"));
+        event.value("emitRange").append(target.emitRange);
+        event.value("threadPoolSize").append(target.threadPoolSize);
+        event.value("byteLimitPost").append(target.byteLimitPost);
+        event.value("previousEmitRange").append(current.emitRange);
+        event.value("previousThreadPoolSize").append(current.threadPoolSize);
+        event.value("previousByteLimitPost").append(current.byteLimitPost);
+        event.value("timestamp").append(System.currentTimeMillis());
+        return event.toJSONString();
+    }
+
+    // Must be called with the lock held.
+    private void restoreBaselines() {
+        for (Map.Entry<String, Tuned> entry : tuned.entrySet()) {
+            Tuned state = entry.getValue();
+            if (state.profile == Profile.BALANCED) {
+                continue;
+            }
+            try {
+                TrackerController trackerController = trackers.resolve(entry.getKey());
+                if (trackerController != null) {
+                    EmitterController emitter = trackerController.getEmitter();
+                    emitter.setBufferOption(state.baseline.bufferOption);
+                    emitter.setEmitRange(state.baseline.emitRange);
+                    emitter.setThreadPoolSize(state.baseline.threadPoolSize);
+                    emitter.setByteLimitPost(state.baseline.byteLimitPost);
+                }
+                state.profile = Profile.BALANCED;
+            } catch (Throwable t) {
+                errors++;
+            }
+        }
+    }
+
+    private Profile profileFor(Conditions conditions, long backlog) {
+        boolean backlogged = backlog > backlogThreshold;
+        boolean lowBattery = conditions.batteryPercent >= 0 && conditions.batteryPercent <= LOW_BATTERY_PERCENT;
+        if (!conditions.charging && (lowBattery || conditions.metered || !conditions.connected)) {
+            return backlogged && conditions.connected && !lowBattery ? Profile.BALANCED : Profile.CONSERVE;
+        }
+        if (conditions.connected && !conditions.metered && (conditions.charging || backlogged)) {
+            return Profile.BOOST;
+        }
+        return Profile.BALANCED;
+    }
+
+    private Settings settingsFor(Profile profile, Settings baseline) {
+        switch (profile) {
+            case CONSERVE:
+                return new Settings(BufferOption.DefaultGroup, (int) emitRange.min, (int) threadPoolSize.min, byteLimitPost.min);
+            case BOOST:
+                return new Settings(BufferOption.HeavyGroup, (int) emitRange.max, (int) threadPoolSize.max, byteLimitPost.max);
+            default:
+                return new Settings(baseline.bufferOption, (int) emitRange.clamp(baseline.emitRange),
+                        (int) threadPoolSize.clamp(baseline.threadPoolSize), byteLimitPost.clamp(baseline.byteLimitPost));
+        }
+    }
+
+    private static Conditions sample(Context context) {
+        Conditions conditions = new Conditions();
+        try {
+            ConnectivityManager connectivity = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                sampleNetwork(connectivity, conditions);
+            } else {
+                sampleNetworkInfo(connectivity, conditions);
+            }
+        } catch (Throwable t) {
+            // Without ACCESS_NETWORK_STATE the network is treated as unknown
+            conditions.errors++;
+        }
+        try {
+            Intent battery = context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+            if (battery != null) {
+                conditions.charging = battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+                int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+                int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+                if (level >= 0 && scale > 0) {
+                    conditions.batteryPercent = level * 100 / scale;
+                }
+            }
+        } catch (Throwable t) {
+            conditions.errors++;
+        }
+        return conditions;
+    }
+
+    private static void sampleNetwork(ConnectivityManager connectivity, Conditions conditions) {
+        Network network = connectivity.getActiveNetwork();
+        NetworkCapabilities capabilities = network == null ? null : connectivity.getNetworkCapabilities(network);
+        if (capabilities == null) {
+            conditions.connected = false;
+            conditions.networkType = "none";
+            return;
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
+            conditions.networkType = "wifi";
+        } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+            conditions.networkType = "cellular";
+        } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) {
+            conditions.networkType = "ethernet";
+        } else {
+            conditions.networkType = "other";
+        }
+        conditions.metered = !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+    }
+
+    // getActiveNetwork() and NetworkCapabilities transports need API 23
+    @SuppressWarnings("deprecation")
+    private static void sampleNetworkInfo(ConnectivityManager connectivity, Conditions conditions) {
+        NetworkInfo network = connectivity.getActiveNetworkInfo();
+        if (network == null || !network.isConnected()) {
+            conditions.connected = false;
+            conditions.networkType = "none";
+        } else {
+            conditions.networkType = networkType(network.getType());
+            conditions.metered = connectivity.isActiveNetworkMetered();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static String networkType(int type) {
+        switch (type) {
+            case ConnectivityManager.TYPE_WIFI:
+                return "wifi";
+            case ConnectivityManager.TYPE_MOBILE:
+                return "cellular";
+            case ConnectivityManager.TYPE_ETHERNET:
+                return "ethernet";
+            default:
+                return "other";
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.conviva.react.apptracker.util;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Opt-in latency and throughput counters for the module's bridge methods.
+ *
+ * Every @ReactMethod records its calls, its errors (exceptions and
+ * rejections raised while the bridge call runs) and a histogram of the time
+ * it holds the calling thread. The stages common to tracking are recorded
+ * wherever they run: conversion (building the SDK event from the bridge
+ * arguments), lookup (namespace to tracker) and track (handing the event to
+ * the tracker).
+ *
+ * Histograms have fixed bucket bounds, so recording is a bounds scan and
+ * atomic increments, without allocation or locks. While disabled, start()
+ * returns 0 after one volatile read and every other call returns at once.
+ * Counters are cumulative since the first enable.
+ */
+public final class BridgeMetrics {
+
+    public static final String METRICS_EVENT = "conviva_bridge_metrics";
+
+    public static final String CONVERSION = "conversion";
+    public static final String LOOKUP = "lookup";
+    public static final String TRACK = "track";
+
+    // Upper bounds in microseconds; the last bucket is unbounded
+    private static final long[] BOUNDS_US = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000, 250000};
+
+    /**
+     * Receives the periodic snapshot event.
+     */
+    public interface Sink {
+        void emit(String eventName, String eventJson);
+    }
+
+    private static final class Timer {
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+        final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_US.length + 1);
+
+        void record(long nanos) {
+            totalNanos.addAndGet(nanos);
+            long max;
+            while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+                // retry
+            }
+            long micros = nanos / 1000;
+            int bucket = 0;
+            while (bucket < BOUNDS_US.length && micros > BOUNDS_US[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+        }
+
+        /**
+         * Upper bound of the bucket holding the given quantile, in
+         * microseconds; -1 past the last bound.
+         */
+        long quantileUs(long[] counts, long total, double quantile) {
+            long rank = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return i < BOUNDS_US.length ? BOUNDS_US[i] : -1;
+                }
+            }
+            return 0;
+        }
+    }
+
+    private static volatile boolean enabled;
+    private static volatile long enabledAt;
+    private static final ConcurrentHashMap<String, Timer> methods = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Timer> stages = new ConcurrentHashMap<>();
+
+    private static Sink sink;
+    private static ScheduledFuture<?> emitTask;
+
+    private BridgeMetrics() {
+    }
+
+    public static synchronized void configure(boolean enabled, long emitIntervalMs, Sink sink) {
+        BridgeMetrics.enabled = enabled;
+        if (enabled && enabledAt == 0) {
+            enabledAt = System.currentTimeMillis();
+        }
+        BridgeMetrics.sink = sink;
+        if (emitTask != null) {
+            emitTask.cancel(false);
+            emitTask = null;
+        }
+        if (enabled && emitIntervalMs > 0) {
+            long interval = Math.max(1000, emitIntervalMs);
+            emitTask = SharedScheduler.get().scheduleWithFixedDelay(BridgeMetrics::emit, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start time for end() and endStage(), or 0 while disabled.
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public static void end(String method, long started) {
+        if (started != 0) {
+            timer(methods, method).record(System.nanoTime() - started);
+        }
+    }
+
+    public static void error(String method) {
+        if (enabled) {
+            timer(methods, method).errors.incrementAndGet();
+        }
+    }
+
+    public static void endStage(String stage, long started) {
+        if (started != 0) {
+            timer(stages, stage).record(System.nanoTime() - started);
+        }
+    }
+
+    public static WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        map.putBoolean("enabled", enabled);
+        map.putDouble("since", enabledAt);
+        WritableArray bounds = Arguments.createArray();
+        for (long bound : BOUNDS_US) {
+            bounds.pushDouble(bound);
+        }
+        map.putArray("bucketBoundsUs", bounds);
+        map.putMap("methods", toWritableMap(methods));
+        map.putMap("stages", toWritableMap(stages));
+        return map;
+    }
+
+    private static Timer timer(ConcurrentHashMap<String, Timer> timers, String name) {
+        Timer timer = timers.get(name);
+        if (timer == null) {
+            Timer created = new Timer();
+            timer = timers.putIfAbsent(name, created);
+            if (timer == null) {
+                timer = created;
+            }
+        }
+        return timer;
+    }
+
+    private static WritableMap toWritableMap(Map<String, Timer> timers) {
+        WritableMap map = Arguments.createMap();
+        for (Map.Entry<String, Timer> entry : new TreeMap<>(timers).entrySet()) {
+            Timer timer = entry.getValue();
+            long[] counts = counts(timer);
+            long calls = sum(counts);
+            WritableMap stats = Arguments.createMap();
+            stats.putDouble("calls", calls);
+            stats.putDouble("errors", timer.errors.get());
+            stats.putDouble("totalMs", timer.totalNanos.get() / 1e6);
+            stats.putDouble("meanUs", calls == 0 ? 0 : timer.totalNanos.get() / 1e3 / calls);
+            stats.putDouble("maxUs", timer.maxNanos.get() / 1e3);
+            stats.putDouble("p50Us", timer.quantileUs(counts, calls, 0.50));
+            stats.putDouble("p95Us", timer.quantileUs(counts, calls, 0.95));
+            stats.putDouble("p99Us", timer.quantileUs(counts, calls, 0.99));
+            WritableArray buckets = Arguments.createArray();
+            for (long count : counts) {
+                buckets.pushDouble(count);
+            }
+            stats.putArray("buckets", buckets);
+            map.putMap(entry.getKey(), stats);
+        }
+        return map;
+    }
+
+    private static String toJson(Map<String, Timer> timers) {
+        JsonSimpleWriter.Members members = new JsonSimpleWriter.Members();
+        for (Map.Entry<String, Timer> entry : new TreeMap<>(timers).entrySet()) {
+            Timer timer = entry.getValue();
+            long[] counts = counts(timer);
+            long calls = sum(counts);
+            JsonSimpleWriter.Members stats = new JsonSimpleWriter.Members();
+            stats.value("calls").append(calls);
+            stats.value("errors").append(timer.errors.get());
+            JsonSimpleWriter.writeDouble(timer.totalNanos.get() / 1e6, stats.value("totalMs"));
+            JsonSimpleWriter.writeDouble(timer.maxNanos.get() / 1e3, stats.value("maxUs"));
+            stats.value("p50Us").append(timer.quantileUs(counts, calls, 0.50));
+            stats.value("p95Us").append(timer.quantileUs(counts, calls, 0.95));
+            stats.value("p99Us").append(timer.quantileUs(counts, calls, 0.99));
+            members.value(entry.getKey()).append(stats.toJSONString());
+        }
+        return members.toJSONString();
+    }
+
+    private static long[] counts(Timer timer) {
+        long[] counts = new long[timer.buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = timer.buckets.get(i);
+        }
+        return counts;
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    private static void emit() {
+        Sink target;
+        synchronized (BridgeMetrics.class) {
+            target = sink;
+        }
+        if (target == null || !enabled) {
+            return;
+        }
+        try {
+            JsonSimpleWriter.Members event = new JsonSimpleWriter.Members();
+            event.value("methods").append(toJson(methods));
+            event.value("stages").append(toJson(stages));
+            event.value("since").append(enabledAt);
+            event.value("timestamp").append(System.currentTimeMillis());
+            target.emit(METRICS_EVENT, event.toJSONString());
+        } catch (Throwable ignored) {
+            // Metrics must never break the scheduler.
+        }
+    }
+}
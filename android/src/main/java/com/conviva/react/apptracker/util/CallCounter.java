@@ -0,0 +1,42 @@
+package com.conviva.react.apptracker.util;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts calls and failures of a path that has no promise to reject,
+ * keeping the last failure message for diagnostics.
+ */
+public class CallCounter {
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile String lastError;
+
+    public void recordCall() {
+        calls.incrementAndGet();
+    }
+
+    public void recordError(Throwable t) {
+        errors.incrementAndGet();
+        lastError = t.getClass().getSimpleName() + ": " + t.getMessage();
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("calls", calls.get());
+        map.putDouble("errors", errors.get());
+        map.putString("lastError", lastError);
+        return map;
+    }
+}
@@ -0,0 +1,150 @@
+package com.conviva.react.apptracker.util;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+
+import com.conviva.apptracker.network.CollectorCookieJar;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Process-wide OkHttpClient for collector uploads and remote-config fetches.
+ *
+ * Tracker clients derive from one base client through newBuilder(), so
+ * every tracker shares its connection pool and dispatcher and requests to
+ * the same collector reuse open (TLS) connections. The base client has the
+ * timeouts of the SDK's default collector client; each derived client gets
+ * its own cookie jar and interceptors.
+ */
+public final class CollectorHttp {
+
+    private static final AtomicLong connectionsAcquired = new AtomicLong();
+    private static final AtomicLong connectionsOpened = new AtomicLong();
+    private static final AtomicLong calls = new AtomicLong();
+    private static final AtomicLong failedCalls = new AtomicLong();
+
+    private static final OkHttpClient base = new OkHttpClient.Builder()
+            .connectTimeout(15, TimeUnit.SECONDS)
+            .readTimeout(15, TimeUnit.SECONDS)
+            .eventListener(new EventListener() {
+                @Override
+                public void callStart(Call call) {
+                    calls.incrementAndGet();
+                }
+
+                @Override
+                public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+                    connectionsOpened.incrementAndGet();
+                }
+
+                @Override
+                public void connectionAcquired(Call call, Connection connection) {
+                    connectionsAcquired.incrementAndGet();
+                }
+
+                @Override
+                public void callFailed(Call call, IOException ioe) {
+                    failedCalls.incrementAndGet();
+                }
+            })
+            .build();
+
+    private CollectorHttp() {
+    }
+
+    /**
+     * Returns a client for one tracker, sharing the process-wide pool and
+     * dispatcher. The headers are added to every request, which is then
+     * compressed when a compression interceptor is given.
+     */
+    public static OkHttpClient newTrackerClient(Context context, Headers headers, @Nullable CompressionInterceptor compression) {
+        OkHttpClient.Builder builder = base.newBuilder().cookieJar(new CollectorCookieJar(context));
+        if (headers.size() > 0) {
+            builder.addInterceptor(new HeadersInterceptor(headers));
+        }
+        if (compression != null) {
+            builder.addInterceptor(compression);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns a client for the module's own requests (remote config),
+     * sharing the process-wide pool and dispatcher.
+     */
+    public static OkHttpClient newClient() {
+        return base.newBuilder().build();
+    }
+
+    /**
+     * Snapshots request headers into immutable Headers. Entries OkHttp
+     * rejects as header names or values are skipped.
+     */
+    public static Headers snapshotHeaders(ReadableMap requestHeaders) {
+        Headers.Builder headers = new Headers.Builder();
+        ReadableMapKeySetIterator it = requestHeaders.keySetIterator();
+        while (it.hasNextKey()) {
+            String key = it.nextKey();
+            String value = requestHeaders.getString(key);
+            if (value != null) {
+                try {
+                    headers.set(key, value);
+                } catch (IllegalArgumentException ignored) {
+                    // Such a header would fail every upload
+                }
+            }
+        }
+        return headers.build();
+    }
+
+    public static WritableMap toWritableMap() {
+        long acquired = connectionsAcquired.get();
+        long opened = connectionsOpened.get();
+        WritableMap map = Arguments.createMap();
+        map.putDouble("calls", calls.get());
+        map.putDouble("failedCalls", failedCalls.get());
+        map.putDouble("connectionsOpened", opened);
+        map.putDouble("connectionsReused", Math.max(0, acquired - opened));
+        map.putInt("pooledConnections", base.connectionPool().connectionCount());
+        map.putInt("idleConnections", base.connectionPool().idleConnectionCount());
+        map.putInt("runningCalls", base.dispatcher().runningCallsCount());
+        map.putInt("queuedCalls", base.dispatcher().queuedCallsCount());
+        return map;
+    }
+
+    private static final class HeadersInterceptor implements Interceptor {
+
+        private final Headers headers;
+
+        HeadersInterceptor(Headers headers) {
+            this.headers = headers;
+        }
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request.Builder requestBuilder = chain.request().newBuilder();
+            for (int i = 0; i < headers.size(); i++) {
+                requestBuilder.header(headers.name(i), headers.value(i));
+            }
+            return chain.proceed(requestBuilder.build());
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.conviva.react.apptracker.util;
+
+import android.os.Debug;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+
+/**
+ * Compresses collector POST bodies.
+ *
+ * Bodies smaller than the minimum size, bodies that already carry a
+ * Content-Encoding and bodies that would not shrink are sent as they are.
+ * The deflate mode sends zlib data and may use a preset dictionary of
+ * strings common in payloads (schemas, context keys). A collector only
+ * accepts that mode if it is configured with the same dictionary.
+ *
+ * Counters are process-wide across all tracker clients.
+ */
+public class CompressionInterceptor implements Interceptor {
+
+    public static final int DEFAULT_MIN_BODY_SIZE = 1024;
+
+    public enum Algorithm {
+        GZIP("gzip"),
+        DEFLATE("deflate");
+
+        private final String encoding;
+
+        Algorithm(String encoding) {
+            this.encoding = encoding;
+        }
+
+        /**
+         * Returns the algorithm for a config value, or null for "none" and
+         * unknown values.
+         */
+        public static Algorithm fromString(String value) {
+            for (Algorithm algorithm : values()) {
+                if (algorithm.encoding.equalsIgnoreCase(value)) {
+                    return algorithm;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final AtomicLong compressed = new AtomicLong();
+    private static final AtomicLong skipped = new AtomicLong();
+    private static final AtomicLong bytesIn = new AtomicLong();
+    private static final AtomicLong bytesOut = new AtomicLong();
+    private static final AtomicLong cpuNanos = new AtomicLong();
+
+    private final Algorithm algorithm;
+    private final int minBodySize;
+    private final byte[] dictionary;
+
+    public CompressionInterceptor(Algorithm algorithm, int minBodySize, String dictionary) {
+        this.algorithm = algorithm;
+        this.minBodySize = Math.max(0, minBodySize);
+        this.dictionary = dictionary == null || dictionary.isEmpty() ? null : dictionary.getBytes(Charset.forName("UTF-8"));
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestBody body = request.body();
+        if (body == null || !"POST".equals(request.method()) || request.header("Content-Encoding") != null) {
+            return chain.proceed(request);
+        }
+
+        long contentLength = body.contentLength();
+        if (contentLength >= 0 && contentLength < minBodySize) {
+            skipped.incrementAndGet();
+            return chain.proceed(request);
+        }
+
+        Buffer raw = new Buffer();
+        body.writeTo(raw);
+        long rawSize = raw.size();
+        if (rawSize < minBodySize) {
+            skipped.incrementAndGet();
+            return chain.proceed(request);
+        }
+
+        long cpuStart = Debug.threadCpuTimeNanos();
+        Buffer packed = compress(raw.clone());
+        cpuNanos.addAndGet(Math.max(0, Debug.threadCpuTimeNanos() - cpuStart));
+
+        if (packed.size() >= rawSize) {
+            skipped.incrementAndGet();
+            return chain.proceed(request.newBuilder()
+                    .method(request.method(), RequestBody.create(raw.readByteArray(), body.contentType()))
+                    .build());
+        }
+
+        compressed.incrementAndGet();
+        bytesIn.addAndGet(rawSize);
+        bytesOut.addAndGet(packed.size());
+        return chain.proceed(request.newBuilder()
+                .header("Content-Encoding", algorithm.encoding)
+                .method(request.method(), RequestBody.create(packed.readByteArray(), body.contentType()))
+                .build());
+    }
+
+    private Buffer compress(Buffer raw) throws IOException {
+        Buffer packed = new Buffer();
+        if (algorithm == Algorithm.GZIP) {
+            try (OutputStream out = new GZIPOutputStream(packed.outputStream())) {
+                raw.writeTo(out);
+            }
+            return packed;
+        }
+
+        // A caller-supplied Deflater is not released by the stream
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            try (OutputStream out = new DeflaterOutputStream(packed.outputStream(), deflater)) {
+                raw.writeTo(out);
+            }
+        } finally {
+            deflater.end();
+        }
+        return packed;
+    }
+
+    /**
+     * A snapshot of the process-wide counters.
+     */
+    public static final class Stats {
+        public final long compressed;
+        public final long skipped;
+        public final long bytesIn;
+        public final long bytesOut;
+        public final long cpuNanos;
+
+        Stats(long compressed, long skipped, long bytesIn, long bytesOut, long cpuNanos) {
+            this.compressed = compressed;
+            this.skipped = skipped;
+            this.bytesIn = bytesIn;
+            this.bytesOut = bytesOut;
+            this.cpuNanos = cpuNanos;
+        }
+    }
+
+    public static Stats stats() {
+        return new Stats(compressed.get(), skipped.get(), bytesIn.get(), bytesOut.get(), cpuNanos.get());
+    }
+
+    public static WritableMap toWritableMap() {
+        Stats stats = stats();
+        WritableMap map = Arguments.createMap();
+        map.putDouble("compressed", stats.compressed);
+        map.putDouble("skipped", stats.skipped);
+        map.putDouble("bytesIn", stats.bytesIn);
+        map.putDouble("bytesOut", stats.bytesOut);
+        map.putDouble("bytesSaved", stats.bytesIn - stats.bytesOut);
+        map.putDouble("ratio", stats.bytesIn == 0 ? 0 : stats.bytesOut / (double) stats.bytesIn);
+        map.putDouble("cpuMs", stats.cpuNanos / 1e6);
+        return map;
+    }
+}
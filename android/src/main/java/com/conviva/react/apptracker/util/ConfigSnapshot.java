@@ -0,0 +1,183 @@
+package com.conviva.react.apptracker.util;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The last createTracker configuration that created a tracker, persisted as
+ * JSON so the tracker can be created natively on the next start, before the
+ * JS bundle runs.
+ *
+ * The text is JsonSimpleWriter output, whose member order only depends on
+ * the keys, so two snapshots of equal configurations are equal strings and
+ * changed sections can be found by comparing top-level members.
+ */
+public final class ConfigSnapshot {
+
+    public static final String FILE_NAME = "conviva-rn-config.json";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private ConfigSnapshot() {
+    }
+
+    public static String toJson(ReadableMap config) {
+        return JsonSimpleWriter.toJSONString(config);
+    }
+
+    /**
+     * Replaces the snapshot in the directory; the previous one stays in
+     * place if writing fails.
+     */
+    public static void save(File directory, String json) throws IOException {
+        writeAtomically(new File(directory, FILE_NAME), json);
+    }
+
+    @Nullable
+    public static String load(File directory) {
+        return read(new File(directory, FILE_NAME));
+    }
+
+    /**
+     * Replaces the file's content through a temporary file, so readers see
+     * the old or the new content and never a partial write.
+     */
+    static void writeAtomically(File target, String content) throws IOException {
+        File temp = new File(target.getPath() + ".tmp");
+        OutputStream out = new FileOutputStream(temp);
+        try {
+            out.write(content.getBytes(UTF_8));
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete();
+            throw new IOException("Cannot replace " + target);
+        }
+    }
+
+    @Nullable
+    static String read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            InputStream in = new FileInputStream(file);
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) file.length());
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, read);
+                }
+                return new String(bytes.toByteArray(), UTF_8);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Rebuilds the configuration as a native map, so nested maps convert
+     * back with toHashMap(). Needs the React Native libraries loaded
+     * (SoLoader.init).
+     */
+    public static ReadableMap toReadableMap(String json) throws JSONException {
+        return Arguments.makeNativeMap(toMap(new JSONObject(json)));
+    }
+
+    /**
+     * Returns the top-level keys whose values differ between two snapshots,
+     * including keys present in only one of them.
+     */
+    public static Set<String> changedSections(String before, String after) throws JSONException {
+        return changedMembers(new JSONObject(before), new JSONObject(after));
+    }
+
+    /**
+     * Returns the keys whose values differ inside one top-level section.
+     */
+    public static Set<String> changedKeys(String before, String after, String section) throws JSONException {
+        JSONObject previous = new JSONObject(before).optJSONObject(section);
+        JSONObject next = new JSONObject(after).optJSONObject(section);
+        return changedMembers(previous != null ? previous : new JSONObject(), next != null ? next : new JSONObject());
+    }
+
+    private static Set<String> changedMembers(JSONObject previous, JSONObject next) throws JSONException {
+        Set<String> changed = new HashSet<>();
+        Iterator<String> keys = previous.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (!next.has(key) || !previous.get(key).toString().equals(next.get(key).toString())) {
+                changed.add(key);
+            }
+        }
+        keys = next.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (!previous.has(key)) {
+                changed.add(key);
+            }
+        }
+        return changed;
+    }
+
+    private static Map<String, Object> toMap(JSONObject object) throws JSONException {
+        Map<String, Object> map = new HashMap<>();
+        Iterator<String> keys = object.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            map.put(key, toValue(object.get(key)));
+        }
+        return map;
+    }
+
+    private static List<Object> toList(JSONArray array) throws JSONException {
+        List<Object> list = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            list.add(toValue(array.get(i)));
+        }
+        return list;
+    }
+
+    static Object toValue(Object value) throws JSONException {
+        if (value == JSONObject.NULL) {
+            return null;
+        }
+        if (value instanceof JSONObject) {
+            return toMap((JSONObject) value);
+        }
+        if (value instanceof JSONArray) {
+            return toList((JSONArray) value);
+        }
+        if (value instanceof Number) {
+            // JS numbers cross the bridge as doubles
+            return ((Number) value).doubleValue();
+        }
+        return value;
+    }
+}
@@ -1,5 +1,7 @@
 package com.conviva.react.apptracker.util;
 
+import android.content.Context;
+
 import com.conviva.apptracker.configuration.EmitterConfiguration;
 import com.conviva.apptracker.configuration.GdprConfiguration;
 import com.conviva.apptracker.configuration.GlobalContextsConfiguration;
@@ -7,6 +9,7 @@ import com.conviva.apptracker.configuration.SessionConfiguration;
 import com.conviva.apptracker.configuration.SessionReplayConfiguration;
 import com.conviva.apptracker.configuration.SubjectConfiguration;
 import com.conviva.apptracker.configuration.TrackerConfiguration;
+import com.conviva.apptracker.controller.EmitterController;
 import com.conviva.apptracker.internal.tracker.ClidSyncConfiguration;
 import com.conviva.apptracker.emitter.BufferOption;
 import com.conviva.apptracker.globalcontexts.GlobalContext;
@@ -16,15 +19,18 @@ import com.conviva.apptracker.tracker.LogLevel;
 import com.conviva.apptracker.util.Basis;
 import com.conviva.apptracker.util.Size;
 import com.conviva.apptracker.util.TimeMeasure;
-import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 public class ConfigUtil {
@@ -100,7 +106,7 @@ public class ConfigUtil {
     }
 
     public static TrackerConfiguration mkTrackerConfiguration(ReadableMap trackerConfig, String appName,
-                                                              ReactApplicationContext context) {
+                                                              Context context) {
         TrackerConfiguration trackerConfiguration = new TrackerConfiguration(appName)
                 .trackerVersionSuffix(TrackerVersion.RN_CONVIVA_TRACKER_VERSION);
 
@@ -219,6 +225,27 @@ public class ConfigUtil {
         return emitterConfiguration;
     }
 
+    /**
+     * Applies the emitter settings that can change on a live tracker.
+     */
+    public static void applyEmitterConfiguration(EmitterController emitter, ReadableMap emitterConfig) {
+        if (emitterConfig.hasKey("bufferOption")) {
+            emitter.setBufferOption(mkBufferOption(emitterConfig.getString("bufferOption")));
+        }
+        if (emitterConfig.hasKey("emitRange")) {
+            emitter.setEmitRange((int) emitterConfig.getDouble("emitRange"));
+        }
+        if (emitterConfig.hasKey("threadPoolSize")) {
+            emitter.setThreadPoolSize((int) emitterConfig.getDouble("threadPoolSize"));
+        }
+        if (emitterConfig.hasKey("byteLimitPost")) {
+            emitter.setByteLimitPost((long) emitterConfig.getDouble("byteLimitPost"));
+        }
+        if (emitterConfig.hasKey("byteLimitGet")) {
+            emitter.setByteLimitGet((long) emitterConfig.getDouble("byteLimitGet"));
+        }
+    }
+
     public static SubjectConfiguration mkSubjectConfiguration(ReadableMap subjectConfig) {
         SubjectConfiguration subjectConfiguration = new SubjectConfiguration();
 
@@ -337,6 +364,262 @@ public class ConfigUtil {
         return config;
     }
 
+    public static void configureTrackingExecutor(TrackingExecutor executor, ReadableMap queueConfig) {
+        boolean enabled = true;
+        int capacity = TrackingExecutor.DEFAULT_CAPACITY;
+        TrackingExecutor.Policy policy = TrackingExecutor.Policy.BLOCK;
+
+        if (queueConfig.hasKey("enabled") && !queueConfig.isNull("enabled")) {
+            enabled = queueConfig.getBoolean("enabled");
+        }
+        if (queueConfig.hasKey("capacity") && !queueConfig.isNull("capacity")) {
+            capacity = (int) queueConfig.getDouble("capacity");
+        }
+        if (queueConfig.hasKey("policy") && !queueConfig.isNull("policy")) {
+            policy = TrackingExecutor.Policy.fromString(queueConfig.getString("policy"));
+        }
+        executor.configure(enabled, capacity, policy);
+    }
+
+    public static void configurePreInitBuffer(PreInitBuffer buffer, ReadableMap bufferConfig) {
+        boolean enabled = true;
+        int capacity = PreInitBuffer.DEFAULT_CAPACITY;
+        long maxAgeMs = PreInitBuffer.DEFAULT_MAX_AGE_MS;
+
+        if (bufferConfig.hasKey("enabled") && !bufferConfig.isNull("enabled")) {
+            enabled = bufferConfig.getBoolean("enabled");
+        }
+        if (bufferConfig.hasKey("capacity") && !bufferConfig.isNull("capacity")) {
+            capacity = (int) bufferConfig.getDouble("capacity");
+        }
+        if (bufferConfig.hasKey("maxAgeMs") && !bufferConfig.isNull("maxAgeMs")) {
+            maxAgeMs = (long) bufferConfig.getDouble("maxAgeMs");
+        }
+        buffer.configure(enabled, capacity, maxAgeMs);
+    }
+
+    /**
+     * Opens the spill log when enabled and returns the events a previous
+     * process left in it; returns null when disabled or on I/O failure.
+     */
+    public static List<SpillLog.Pending> openSpillLog(SpillLog spillLog, File directory, ReadableMap spillConfig) {
+        boolean enabled = false;
+        int segmentSize = SpillLog.DEFAULT_SEGMENT_SIZE;
+        SpillLog.Fsync fsync = SpillLog.Fsync.SEGMENT;
+
+        if (spillConfig.hasKey("enabled") && !spillConfig.isNull("enabled")) {
+            enabled = spillConfig.getBoolean("enabled");
+        }
+        if (spillConfig.hasKey("segmentSize") && !spillConfig.isNull("segmentSize")) {
+            segmentSize = (int) spillConfig.getDouble("segmentSize");
+        }
+        if (spillConfig.hasKey("fsync") && !spillConfig.isNull("fsync")) {
+            fsync = SpillLog.Fsync.fromString(spillConfig.getString("fsync"));
+        }
+        if (!enabled) {
+            return null;
+        }
+        try {
+            return spillLog.open(directory, segmentSize, fsync);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public static void configureContextCache(ContextCache cache, ReadableMap cacheConfig) {
+        boolean enabled = true;
+        int maxEntries = ContextCache.DEFAULT_MAX_ENTRIES;
+
+        if (cacheConfig.hasKey("enabled") && !cacheConfig.isNull("enabled")) {
+            enabled = cacheConfig.getBoolean("enabled");
+        }
+        if (cacheConfig.hasKey("maxEntries") && !cacheConfig.isNull("maxEntries")) {
+            maxEntries = (int) cacheConfig.getDouble("maxEntries");
+        }
+        cache.configure(enabled, maxEntries);
+    }
+
+    public static void configureErrorAggregator(ErrorAggregator aggregator, ReadableMap aggregationConfig) {
+        boolean enabled = true;
+        long windowMs = ErrorAggregator.DEFAULT_WINDOW_MS;
+        int maxFingerprints = ErrorAggregator.DEFAULT_MAX_FINGERPRINTS;
+        int frames = ErrorAggregator.DEFAULT_FRAMES;
+
+        if (aggregationConfig.hasKey("enabled") && !aggregationConfig.isNull("enabled")) {
+            enabled = aggregationConfig.getBoolean("enabled");
+        }
+        if (aggregationConfig.hasKey("windowMs") && !aggregationConfig.isNull("windowMs")) {
+            windowMs = (long) aggregationConfig.getDouble("windowMs");
+        }
+        if (aggregationConfig.hasKey("maxFingerprints") && !aggregationConfig.isNull("maxFingerprints")) {
+            maxFingerprints = (int) aggregationConfig.getDouble("maxFingerprints");
+        }
+        if (aggregationConfig.hasKey("frames") && !aggregationConfig.isNull("frames")) {
+            frames = (int) aggregationConfig.getDouble("frames");
+        }
+        aggregator.configure(enabled, windowMs, maxFingerprints, frames);
+    }
+
+    public static void configureEventQuota(EventQuota quota, ReadableMap quotaConfig) {
+        boolean enabled = true;
+        long reportIntervalMs = EventQuota.DEFAULT_REPORT_INTERVAL_MS;
+        Map<String, EventQuota.Limit> limits = new HashMap<>();
+
+        if (quotaConfig.hasKey("enabled") && !quotaConfig.isNull("enabled")) {
+            enabled = quotaConfig.getBoolean("enabled");
+        }
+        if (quotaConfig.hasKey("reportIntervalMs") && !quotaConfig.isNull("reportIntervalMs")) {
+            reportIntervalMs = (long) quotaConfig.getDouble("reportIntervalMs");
+        }
+        if (quotaConfig.hasKey("limits") && !quotaConfig.isNull("limits")) {
+            ReadableMap limitsMap = quotaConfig.getMap("limits");
+            ReadableMapKeySetIterator it = limitsMap.keySetIterator();
+            while (it.hasNextKey()) {
+                String eventType = it.nextKey();
+                ReadableMap limit = limitsMap.getMap(eventType);
+                if (limit == null || !limit.hasKey("maxEvents") || !limit.hasKey("timeWindow")) {
+                    continue;
+                }
+                long maxEvents = (long) limit.getDouble("maxEvents");
+                long timeWindow = (long) limit.getDouble("timeWindow");
+                if (maxEvents > 0 && timeWindow > 0) {
+                    limits.put(eventType, new EventQuota.Limit(maxEvents, timeWindow));
+                }
+            }
+        }
+        quota.configure(enabled, reportIntervalMs, limits);
+    }
+
+    public static void configureRemoteConfigFetcher(RemoteConfigFetcher fetcher, File directory, ReadableMap remoteConfig) {
+        String endpoint = null;
+        long ttlMs = RemoteConfigFetcher.DEFAULT_TTL_MS;
+        long staleWhileRevalidateMs = RemoteConfigFetcher.DEFAULT_STALE_WHILE_REVALIDATE_MS;
+
+        if (remoteConfig.hasKey("endpoint") && !remoteConfig.isNull("endpoint")) {
+            endpoint = remoteConfig.getString("endpoint");
+        }
+        if (remoteConfig.hasKey("cacheTtlMs") && !remoteConfig.isNull("cacheTtlMs")) {
+            ttlMs = (long) remoteConfig.getDouble("cacheTtlMs");
+        }
+        if (remoteConfig.hasKey("staleWhileRevalidateMs") && !remoteConfig.isNull("staleWhileRevalidateMs")) {
+            staleWhileRevalidateMs = (long) remoteConfig.getDouble("staleWhileRevalidateMs");
+        }
+        fetcher.configure(directory, endpoint == null || endpoint.isEmpty() ? null : endpoint, ttlMs, staleWhileRevalidateMs);
+    }
+
+    public static void configureEventSampler(EventSampler sampler, ReadableMap samplingConfig) {
+        boolean enabled = true;
+        List<EventSampler.Rule> rules = new ArrayList<>();
+
+        if (samplingConfig.hasKey("enabled") && !samplingConfig.isNull("enabled")) {
+            enabled = samplingConfig.getBoolean("enabled");
+        }
+        if (samplingConfig.hasKey("rules") && !samplingConfig.isNull("rules")) {
+            ReadableArray rulesArray = samplingConfig.getArray("rules");
+            for (int i = 0; i < rulesArray.size(); i++) {
+                ReadableMap rule = rulesArray.getMap(i);
+                if (rule == null || !rule.hasKey("rate") || rule.isNull("rate")) {
+                    continue;
+                }
+                double rate = rule.getDouble("rate");
+                if (rule.hasKey("schema") && !rule.isNull("schema")) {
+                    rules.add(new EventSampler.Rule(EventSampler.BY_SCHEMA, rule.getString("schema"), rate));
+                } else if (rule.hasKey("eventName") && !rule.isNull("eventName")) {
+                    rules.add(new EventSampler.Rule(EventSampler.BY_NAME, rule.getString("eventName"), rate));
+                } else if (rule.hasKey("eventType") && !rule.isNull("eventType")) {
+                    rules.add(new EventSampler.Rule(EventSampler.BY_TYPE, rule.getString("eventType"), rate));
+                }
+            }
+        }
+        sampler.configure(enabled, rules);
+    }
+
+    public static void configureScreenViewCoalescer(ScreenViewCoalescer coalescer, ReadableMap coalescingConfig) {
+        boolean enabled = true;
+        long settleMs = ScreenViewCoalescer.DEFAULT_SETTLE_MS;
+        long maxHoldMs = ScreenViewCoalescer.DEFAULT_MAX_HOLD_MS;
+
+        if (coalescingConfig.hasKey("enabled") && !coalescingConfig.isNull("enabled")) {
+            enabled = coalescingConfig.getBoolean("enabled");
+        }
+        if (coalescingConfig.hasKey("settleMs") && !coalescingConfig.isNull("settleMs")) {
+            settleMs = (long) coalescingConfig.getDouble("settleMs");
+        }
+        if (coalescingConfig.hasKey("maxHoldMs") && !coalescingConfig.isNull("maxHoldMs")) {
+            maxHoldMs = (long) coalescingConfig.getDouble("maxHoldMs");
+        }
+        coalescer.configure(enabled ? settleMs : 0, maxHoldMs);
+    }
+
+    public static void configureBridgeMetrics(ReadableMap metricsConfig, BridgeMetrics.Sink sink) {
+        boolean enabled = true;
+        long emitIntervalMs = 0;
+
+        if (metricsConfig.hasKey("enabled") && !metricsConfig.isNull("enabled")) {
+            enabled = metricsConfig.getBoolean("enabled");
+        }
+        if (metricsConfig.hasKey("emitIntervalMs") && !metricsConfig.isNull("emitIntervalMs")) {
+            emitIntervalMs = (long) metricsConfig.getDouble("emitIntervalMs");
+        }
+        BridgeMetrics.configure(enabled, emitIntervalMs, sink);
+    }
+
+    public static void configureAdaptiveEmitter(AdaptiveEmitter adaptiveEmitter, Context context, ReadableMap adaptiveConfig) {
+        boolean enabled = true;
+        long intervalMs = AdaptiveEmitter.DEFAULT_INTERVAL_MS;
+        long backlogThreshold = AdaptiveEmitter.DEFAULT_BACKLOG_THRESHOLD;
+
+        if (adaptiveConfig.hasKey("enabled") && !adaptiveConfig.isNull("enabled")) {
+            enabled = adaptiveConfig.getBoolean("enabled");
+        }
+        if (adaptiveConfig.hasKey("intervalMs") && !adaptiveConfig.isNull("intervalMs")) {
+            intervalMs = (long) adaptiveConfig.getDouble("intervalMs");
+        }
+        if (adaptiveConfig.hasKey("backlogThreshold") && !adaptiveConfig.isNull("backlogThreshold")) {
+            backlogThreshold = (long) adaptiveConfig.getDouble("backlogThreshold");
+        }
+        adaptiveEmitter.configure(context, enabled, intervalMs, backlogThreshold,
+                mkRange(adaptiveConfig, "emitRange", AdaptiveEmitter.DEFAULT_EMIT_RANGE),
+                mkRange(adaptiveConfig, "threadPoolSize", AdaptiveEmitter.DEFAULT_THREAD_POOL_SIZE),
+                mkRange(adaptiveConfig, "byteLimitPost", AdaptiveEmitter.DEFAULT_BYTE_LIMIT_POST));
+    }
+
+    private static AdaptiveEmitter.Range mkRange(ReadableMap config, String key, AdaptiveEmitter.Range defaults) {
+        if (!config.hasKey(key) || config.isNull(key)) {
+            return defaults;
+        }
+        ReadableMap range = config.getMap(key);
+        long min = defaults.min;
+        long max = defaults.max;
+        if (range.hasKey("min") && !range.isNull("min")) {
+            min = Math.max(1, (long) range.getDouble("min"));
+        }
+        if (range.hasKey("max") && !range.isNull("max")) {
+            max = Math.max(1, (long) range.getDouble("max"));
+        }
+        return new AdaptiveEmitter.Range(min, max);
+    }
+
+    /**
+     * Returns null when compression is off or the algorithm is unknown.
+     */
+    public static CompressionInterceptor mkCompressionInterceptor(ReadableMap compressionConfig) {
+        CompressionInterceptor.Algorithm algorithm = CompressionInterceptor.Algorithm.GZIP;
+        int minBodySize = CompressionInterceptor.DEFAULT_MIN_BODY_SIZE;
+        String dictionary = null;
+
+        if (compressionConfig.hasKey("algorithm") && !compressionConfig.isNull("algorithm")) {
+            algorithm = CompressionInterceptor.Algorithm.fromString(compressionConfig.getString("algorithm"));
+        }
+        if (compressionConfig.hasKey("minBodySize") && !compressionConfig.isNull("minBodySize")) {
+            minBodySize = (int) compressionConfig.getDouble("minBodySize");
+        }
+        if (compressionConfig.hasKey("dictionary") && !compressionConfig.isNull("dictionary")) {
+            dictionary = compressionConfig.getString("dictionary");
+        }
+        return algorithm == null ? null : new CompressionInterceptor(algorithm, minBodySize, dictionary);
+    }
+
     public static GlobalContextsConfiguration mkGCConfiguration(ReadableArray gcConfig) {
 
         HashMap contextGens = new HashMap<>();
@@ -0,0 +1,287 @@
+package com.conviva.react.apptracker.util;
+
+import com.conviva.apptracker.payload.SelfDescribingJson;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of event context payloads.
+ *
+ * Apps tend to attach the same few static contexts to every event. A
+ * context is looked up by schema and a hash of its data computed straight
+ * from the ReadableMap; on a hit the data is compared with the cached copy
+ * (again without converting it) and the cached SelfDescribingJson is
+ * reused, so identical contexts skip toHashMap() entirely. Cached payloads
+ * are shared between events and must not be modified.
+ */
+public class ContextCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    private static final class Key {
+        final String schema;
+        final int hash;
+
+        Key(String schema, int hash) {
+            this.schema = schema;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && schema.equals(other.schema);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * schema.hashCode() + hash;
+        }
+    }
+
+    private static final class CachedContext {
+        final HashMap<String, Object> data;
+        final SelfDescribingJson json;
+
+        CachedContext(HashMap<String, Object> data, SelfDescribingJson json) {
+            this.data = data;
+            this.json = json;
+        }
+    }
+
+    private volatile boolean enabled = true;
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private final LinkedHashMap<Key, CachedContext> entries = new LinkedHashMap<Key, CachedContext>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CachedContext> eldest) {
+            if (size() > maxEntries) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    };
+
+    public synchronized void configure(boolean enabled, int maxEntries) {
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        if (!enabled) {
+            entries.clear();
+        } else {
+            while (entries.size() > this.maxEntries) {
+                entries.remove(entries.keySet().iterator().next());
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * Returns the SelfDescribingJson for a {schema, data} context map,
+     * reusing a cached instance when an identical context was seen before.
+     */
+    public SelfDescribingJson get(ReadableMap context) {
+        String schema = context.getString("schema");
+        ReadableMap data = context.getMap("data");
+        if (!enabled) {
+            return new SelfDescribingJson(schema, data.toHashMap());
+        }
+
+        Key key = new Key(schema, hash(data));
+        synchronized (this) {
+            CachedContext entry = entries.get(key);
+            if (entry != null && equal(data, entry.data)) {
+                hits++;
+                return entry.json;
+            }
+            misses++;
+        }
+
+        HashMap<String, Object> copy = data.toHashMap();
+        SelfDescribingJson json = new SelfDescribingJson(schema, copy);
+        synchronized (this) {
+            if (enabled) {
+                entries.put(key, new CachedContext(copy, json));
+            }
+        }
+        return json;
+    }
+
+    public synchronized WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        map.putBoolean("enabled", enabled);
+        map.putInt("maxEntries", maxEntries);
+        map.putInt("size", entries.size());
+        map.putDouble("hits", hits);
+        map.putDouble("misses", misses);
+        map.putDouble("evictions", evictions);
+        long lookups = hits + misses;
+        map.putDouble("hitRate", lookups == 0 ? 0 : (double) hits / lookups);
+        return map;
+    }
+
+    // Order-independent, like AbstractMap.hashCode, as key order may differ between calls
+    private static int hash(ReadableMap map) {
+        int h = 0;
+        ReadableMapKeySetIterator it = map.keySetIterator();
+        while (it.hasNextKey()) {
+            String key = it.nextKey();
+            h += key.hashCode() ^ hashValue(map, key);
+        }
+        return h;
+    }
+
+    private static int hashValue(ReadableMap map, String key) {
+        switch (map.getType(key)) {
+            case Boolean:
+                return map.getBoolean(key) ? 1231 : 1237;
+            case Number:
+                long bits = Double.doubleToLongBits(map.getDouble(key));
+                return (int) (bits ^ (bits >>> 32));
+            case String:
+                return map.getString(key).hashCode();
+            case Map:
+                return hash(map.getMap(key));
+            case Array:
+                return hash(map.getArray(key));
+            default:
+                return 0;
+        }
+    }
+
+    private static int hash(ReadableArray array) {
+        int h = 1;
+        for (int i = 0; i < array.size(); i++) {
+            int element;
+            switch (array.getType(i)) {
+                case Boolean:
+                    element = array.getBoolean(i) ? 1231 : 1237;
+                    break;
+                case Number:
+                    long bits = Double.doubleToLongBits(array.getDouble(i));
+                    element = (int) (bits ^ (bits >>> 32));
+                    break;
+                case String:
+                    element = array.getString(i).hashCode();
+                    break;
+                case Map:
+                    element = hash(array.getMap(i));
+                    break;
+                case Array:
+                    element = hash(array.getArray(i));
+                    break;
+                default:
+                    element = 0;
+            }
+            h = 31 * h + element;
+        }
+        return h;
+    }
+
+    // Compares a ReadableMap with the toHashMap() copy of an earlier one
+    private static boolean equal(ReadableMap map, Map<?, ?> data) {
+        int size = 0;
+        ReadableMapKeySetIterator it = map.keySetIterator();
+        while (it.hasNextKey()) {
+            String key = it.nextKey();
+            size++;
+            if (!data.containsKey(key)) {
+                return false;
+            }
+            Object cached = data.get(key);
+            switch (map.getType(key)) {
+                case Null:
+                    if (cached != null) {
+                        return false;
+                    }
+                    break;
+                case Boolean:
+                    if (!(cached instanceof Boolean) || (Boolean) cached != map.getBoolean(key)) {
+                        return false;
+                    }
+                    break;
+                case Number:
+                    if (!(cached instanceof Number) || !sameNumber((Number) cached, map.getDouble(key))) {
+                        return false;
+                    }
+                    break;
+                case String:
+                    if (!map.getString(key).equals(cached)) {
+                        return false;
+                    }
+                    break;
+                case Map:
+                    if (!(cached instanceof Map) || !equal(map.getMap(key), (Map<?, ?>) cached)) {
+                        return false;
+                    }
+                    break;
+                case Array:
+                    if (!(cached instanceof List) || !equal(map.getArray(key), (List<?>) cached)) {
+                        return false;
+                    }
+                    break;
+            }
+        }
+        return size == data.size();
+    }
+
+    private static boolean equal(ReadableArray array, List<?> data) {
+        if (array.size() != data.size()) {
+            return false;
+        }
+        for (int i = 0; i < array.size(); i++) {
+            Object cached = data.get(i);
+            switch (array.getType(i)) {
+                case Null:
+                    if (cached != null) {
+                        return false;
+                    }
+                    break;
+                case Boolean:
+                    if (!(cached instanceof Boolean) || (Boolean) cached != array.getBoolean(i)) {
+                        return false;
+                    }
+                    break;
+                case Number:
+                    if (!(cached instanceof Number) || !sameNumber((Number) cached, array.getDouble(i))) {
+                        return false;
+                    }
+                    break;
+                case String:
+                    if (!array.getString(i).equals(cached)) {
+                        return false;
+                    }
+                    break;
+                case Map:
+                    if (!(cached instanceof Map) || !equal(array.getMap(i), (Map<?, ?>) cached)) {
+                        return false;
+                    }
+                    break;
+                case Array:
+                    if (!(cached instanceof List) || !equal(array.getArray(i), (List<?>) cached)) {
+                        return false;
+                    }
+                    break;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameNumber(Number cached, double value) {
+        return Double.doubleToLongBits(cached.doubleValue()) == Double.doubleToLongBits(value);
+    }
+}
@@ -0,0 +1,231 @@
+package com.conviva.react.apptracker.util;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The custom tags last handed to each tracker, kept so that updates reach
+ * the SDK as deltas.
+ *
+ * Each tracker's tags are one immutable, versioned snapshot (category ->
+ * tag -> value) replaced copy-on-write: an update copies only the category
+ * it touches, and readers share the published instance. put() returns just
+ * the entries whose value differs from the snapshot, so re-setting the same
+ * playback state or tab costs no SDK call.
+ *
+ * The snapshot must never claim a value the SDK does not hold, so whenever
+ * that is uncertain the store forgets: a tag set in one category is dropped
+ * from the others, removals apply to every category, and a recreated or
+ * removed tracker starts empty. Removals are always passed on.
+ */
+public class CustomTagStore {
+
+    public static final String NO_CATEGORY = "";
+
+    public static final class Snapshot {
+        public final long version;
+        // Category (NO_CATEGORY for plain tags) -> tag -> value; both levels unmodifiable
+        public final Map<String, Map<String, Object>> categories;
+
+        Snapshot(long version, Map<String, Map<String, Object>> categories) {
+            this.version = version;
+            this.categories = categories;
+        }
+
+        public int size() {
+            int size = 0;
+            for (Map<String, Object> tags : categories.values()) {
+                size += tags.size();
+            }
+            return size;
+        }
+    }
+
+    private static final Snapshot EMPTY = new Snapshot(0, Collections.<String, Map<String, Object>>emptyMap());
+
+    // namespace ("" for the default tracker) -> snapshot
+    private final ConcurrentHashMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong tagsWritten = new AtomicLong();
+    private final AtomicLong tagsRemoved = new AtomicLong();
+
+    public Snapshot snapshot(@Nullable String namespace) {
+        Snapshot snapshot = snapshots.get(key(namespace));
+        return snapshot != null ? snapshot : EMPTY;
+    }
+
+    /**
+     * Records the tags and returns the entries that changed, in a new map
+     * the caller owns; empty when every tag already had its value. Callers
+     * passing the result on hold the store's lock, so the SDK sees updates
+     * in the order they were recorded.
+     */
+    public Map<String, Object> put(@Nullable String namespace, @Nullable String category, ReadableMap tags) {
+        String target = category == null ? NO_CATEGORY : category;
+        String key = key(namespace);
+        synchronized (this) {
+            Snapshot current = snapshot(namespace);
+            Map<String, Object> existing = current.categories.get(target);
+            Map<String, Object> changed = new HashMap<>();
+            ReadableMapKeySetIterator it = tags.keySetIterator();
+            while (it.hasNextKey()) {
+                String tag = it.nextKey();
+                Object value = read(tags, tag);
+                if (existing == null || !existing.containsKey(tag) || !same(existing.get(tag), value)) {
+                    changed.put(tag, value);
+                }
+            }
+            if (changed.isEmpty()) {
+                unchanged.incrementAndGet();
+                return changed;
+            }
+
+            Map<String, Map<String, Object>> categories = new HashMap<>();
+            for (Map.Entry<String, Map<String, Object>> entry : current.categories.entrySet()) {
+                if (!entry.getKey().equals(target)) {
+                    // The SDK may key tags across categories; forget what it may have overwritten
+                    putIfNotEmpty(categories, entry.getKey(), without(entry.getValue(), changed.keySet()));
+                }
+            }
+            Map<String, Object> merged = existing == null ? new HashMap<String, Object>() : new HashMap<>(existing);
+            merged.putAll(changed);
+            categories.put(target, Collections.unmodifiableMap(merged));
+            snapshots.put(key, new Snapshot(current.version + 1, Collections.unmodifiableMap(categories)));
+
+            updates.incrementAndGet();
+            tagsWritten.addAndGet(changed.size());
+            return changed;
+        }
+    }
+
+    /**
+     * Forgets the tags in every category and returns the keys in a new set
+     * the caller owns.
+     */
+    public Set<String> remove(@Nullable String namespace, ReadableArray tagKeys) {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < tagKeys.size(); i++) {
+            String tag = tagKeys.getString(i);
+            if (tag != null) {
+                keys.add(tag);
+            }
+        }
+        String key = key(namespace);
+        synchronized (this) {
+            Snapshot current = snapshot(namespace);
+            Map<String, Map<String, Object>> categories = new HashMap<>();
+            int removed = 0;
+            for (Map.Entry<String, Map<String, Object>> entry : current.categories.entrySet()) {
+                Map<String, Object> remaining = without(entry.getValue(), keys);
+                removed += entry.getValue().size() - remaining.size();
+                putIfNotEmpty(categories, entry.getKey(), remaining);
+            }
+            if (removed > 0) {
+                snapshots.put(key, new Snapshot(current.version + 1, Collections.unmodifiableMap(categories)));
+                updates.incrementAndGet();
+                tagsRemoved.addAndGet(removed);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Forgets every tag of the tracker, for clearAllCustomTags or when the
+     * tracker is recreated or removed.
+     */
+    public synchronized void clear(@Nullable String namespace) {
+        Snapshot current = snapshots.remove(key(namespace));
+        if (current != null && !current.categories.isEmpty()) {
+            updates.incrementAndGet();
+            tagsRemoved.addAndGet(current.size());
+        }
+    }
+
+    public synchronized void clearAll() {
+        snapshots.clear();
+    }
+
+    public WritableMap toWritableMap() {
+        int trackers = 0;
+        int tags = 0;
+        for (Snapshot snapshot : snapshots.values()) {
+            trackers++;
+            tags += snapshot.size();
+        }
+        WritableMap map = Arguments.createMap();
+        map.putInt("trackers", trackers);
+        map.putInt("tags", tags);
+        map.putDouble("updates", updates.get());
+        map.putDouble("unchanged", unchanged.get());
+        map.putDouble("tagsWritten", tagsWritten.get());
+        map.putDouble("tagsRemoved", tagsRemoved.get());
+        return map;
+    }
+
+    private static String key(@Nullable String namespace) {
+        return namespace == null ? "" : namespace;
+    }
+
+    private static Map<String, Object> without(Map<String, Object> tags, Set<String> keys) {
+        boolean affected = false;
+        for (String key : keys) {
+            if (tags.containsKey(key)) {
+                affected = true;
+                break;
+            }
+        }
+        if (!affected) {
+            return tags;
+        }
+        Map<String, Object> remaining = new HashMap<>(tags);
+        remaining.keySet().removeAll(keys);
+        return Collections.unmodifiableMap(remaining);
+    }
+
+    private static void putIfNotEmpty(Map<String, Map<String, Object>> categories, String category, Map<String, Object> tags) {
+        if (!tags.isEmpty()) {
+            categories.put(category, tags);
+        }
+    }
+
+    /**
+     * The tag value as toHashMap() would convert it; only nested values are
+     * converted as a whole.
+     */
+    @Nullable
+    private static Object read(ReadableMap tags, String tag) {
+        switch (tags.getType(tag)) {
+            case Boolean:
+                return tags.getBoolean(tag);
+            case Number:
+                return tags.getDouble(tag);
+            case String:
+                return tags.getString(tag);
+            case Map:
+                return tags.getMap(tag).toHashMap();
+            case Array:
+                return tags.getArray(tag).toArrayList();
+            default:
+                return null;
+        }
+    }
+
+    private static boolean same(@Nullable Object a, @Nullable Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,278 @@
+package com.conviva.react.apptracker.util;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Coalesces bursts of identical non-fatal JS errors.
+ *
+ * Errors are fingerprinted by errorType, fileName and their top stack
+ * frames with line and column numbers stripped. The first occurrence of a
+ * fingerprint opens a window and is reported in full; later occurrences in
+ * the window are only counted, and every window that counted any ends with
+ * one summary event carrying the count. A window that ends without further
+ * occurrences closes the burst, so the next occurrence is reported in full
+ * again. The fingerprint table is bounded and evicts least recently seen
+ * entries, flushing their pending counts first.
+ */
+public class ErrorAggregator {
+
+    public static final String SUMMARY_EVENT = "conviva_non_fatal_error_summary";
+    public static final long DEFAULT_WINDOW_MS = 60000;
+    public static final int DEFAULT_MAX_FINGERPRINTS = 256;
+    public static final int DEFAULT_FRAMES = 3;
+
+    private static final int MAX_MESSAGE_LENGTH = 256;
+    private static final Pattern LINE_COLUMN = Pattern.compile(":\\d+(:\\d+)?");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Receives summary events; called on the scheduler thread or on the
+     * thread reporting the error, never while the table is locked.
+     */
+    public interface SummarySink {
+        void emit(String eventName, String eventJson);
+    }
+
+    private static final class Burst {
+        final String fingerprint;
+        final String errorType;
+        final String fileName;
+        final String message;
+        long windowStart;
+        long firstSeen;
+        long lastSeen;
+        long suppressed;
+        boolean open;
+
+        Burst(String fingerprint, String errorType, String fileName, String message) {
+            this.fingerprint = fingerprint;
+            this.errorType = errorType;
+            this.fileName = fileName;
+            this.message = message;
+        }
+    }
+
+    private final SummarySink sink;
+
+    private boolean enabled = true;
+    private long windowMs = DEFAULT_WINDOW_MS;
+    private int maxFingerprints = DEFAULT_MAX_FINGERPRINTS;
+    private int frames = DEFAULT_FRAMES;
+    private ScheduledFuture<?> sweepTask;
+
+    private long reported;
+    private long emittedInFull;
+    private long suppressedTotal;
+    private long summaries;
+    private long evicted;
+
+    private final List<String> evictedSummaries = new ArrayList<>();
+
+    private final LinkedHashMap<String, Burst> bursts = new LinkedHashMap<String, Burst>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Burst> eldest) {
+            if (size() <= maxFingerprints) {
+                return false;
+            }
+            evicted++;
+            Burst burst = eldest.getValue();
+            if (burst.suppressed > 0) {
+                evictedSummaries.add(summaryJson(burst, System.currentTimeMillis()));
+            }
+            return true;
+        }
+    };
+
+    public ErrorAggregator(SummarySink sink) {
+        this.sink = sink;
+    }
+
+    public synchronized void configure(boolean enabled, long windowMs, int maxFingerprints, int frames) {
+        this.enabled = enabled;
+        this.windowMs = Math.max(1000, windowMs);
+        this.maxFingerprints = Math.max(1, maxFingerprints);
+        this.frames = Math.max(1, frames);
+        if (sweepTask != null) {
+            sweepTask.cancel(false);
+            sweepTask = null;
+        }
+        // Open bursts still need closing, now on the new window
+        for (Burst burst : bursts.values()) {
+            if (burst.open) {
+                ensureSweepScheduled();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Records an occurrence and returns whether it should be reported in
+     * full.
+     */
+    public boolean admit(String errorType, String stackTrace, String fileName, String message) {
+        List<String> pending = null;
+        boolean report;
+        synchronized (this) {
+            reported++;
+            if (!enabled) {
+                emittedInFull++;
+                return true;
+            }
+
+            long now = System.currentTimeMillis();
+            String fingerprint = fingerprint(errorType, stackTrace, fileName);
+            Burst burst = bursts.get(fingerprint);
+            if (burst == null) {
+                burst = new Burst(fingerprint, errorType, fileName, truncate(message));
+                bursts.put(fingerprint, burst);
+            }
+            if (burst.open) {
+                burst.suppressed++;
+                burst.lastSeen = now;
+                suppressedTotal++;
+                report = false;
+            } else {
+                burst.open = true;
+                burst.windowStart = now;
+                burst.firstSeen = now;
+                burst.lastSeen = now;
+                emittedInFull++;
+                report = true;
+                ensureSweepScheduled();
+            }
+
+            if (!evictedSummaries.isEmpty()) {
+                pending = new ArrayList<>(evictedSummaries);
+                summaries += pending.size();
+                evictedSummaries.clear();
+            }
+        }
+        emit(pending);
+        return report;
+    }
+
+    public synchronized WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        map.putBoolean("enabled", enabled);
+        map.putDouble("windowMs", windowMs);
+        map.putInt("fingerprints", bursts.size());
+        map.putDouble("reported", reported);
+        map.putDouble("emittedInFull", emittedInFull);
+        map.putDouble("suppressed", suppressedTotal);
+        map.putDouble("summaries", summaries);
+        map.putDouble("evicted", evicted);
+        return map;
+    }
+
+    // Must be called with the lock held.
+    private void ensureSweepScheduled() {
+        if (sweepTask == null) {
+            sweepTask = SharedScheduler.get().scheduleWithFixedDelay(this::sweep, windowMs, windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void sweep() {
+        List<String> pending = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            boolean anyOpen = false;
+            Iterator<Burst> it = bursts.values().iterator();
+            while (it.hasNext()) {
+                Burst burst = it.next();
+                if (!burst.open) {
+                    continue;
+                }
+                if (now - burst.windowStart >= windowMs) {
+                    if (burst.suppressed > 0) {
+                        pending.add(summaryJson(burst, now));
+                        burst.suppressed = 0;
+                        burst.windowStart = now;
+                    } else {
+                        burst.open = false;
+                    }
+                }
+                anyOpen |= burst.open;
+            }
+            summaries += pending.size();
+            if (!anyOpen && sweepTask != null) {
+                sweepTask.cancel(false);
+                sweepTask = null;
+            }
+        }
+        emit(pending);
+    }
+
+    private void emit(List<String> events) {
+        if (events == null) {
+            return;
+        }
+        for (String event : events) {
+            try {
+                sink.emit(SUMMARY_EVENT, event);
+            } catch (Throwable ignored) {
+                // D7: error-reporting path must never throw.
+            }
+        }
+    }
+
+    private String summaryJson(Burst burst, long now) {
+        JsonSimpleWriter.Members summary = new JsonSimpleWriter.Members();
+        JsonSimpleWriter.writeString(burst.fingerprint, summary.value("fingerprint"));
+        JsonSimpleWriter.writeString(burst.errorType, summary.value("errorType"));
+        JsonSimpleWriter.writeString(burst.fileName, summary.value("fileName"));
+        JsonSimpleWriter.writeString(burst.message, summary.value("message"));
+        summary.value("occurrences").append(burst.suppressed);
+        summary.value("windowStart").append(burst.windowStart);
+        summary.value("windowEnd").append(now);
+        summary.value("firstSeen").append(burst.firstSeen);
+        summary.value("lastSeen").append(burst.lastSeen);
+        summary.value("isFatal").append(false);
+        return summary.toJSONString();
+    }
+
+    private String fingerprint(String errorType, String stackTrace, String fileName) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(errorType).append('|').append(fileName);
+        int taken = 0;
+        int start = 0;
+        while (taken < frames && start < stackTrace.length()) {
+            int end = stackTrace.indexOf('\n', start);
+            if (end < 0) {
+                end = stackTrace.length();
+            }
+            String line = stackTrace.substring(start, end).trim();
+            start = end + 1;
+            // Hermes and V8 put "Type: message" above the frames
+            if (line.isEmpty() || (!errorType.isEmpty() && line.startsWith(errorType + ":"))) {
+                continue;
+            }
+            line = LINE_COLUMN.matcher(line).replaceAll("");
+            sb.append('|').append(WHITESPACE.matcher(line).replaceAll(" "));
+            taken++;
+        }
+        return Long.toHexString(fnv1a64(sb));
+    }
+
+    private static long fnv1a64(CharSequence text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_MESSAGE_LENGTH ? message : message.substring(0, MAX_MESSAGE_LENGTH);
+    }
+}
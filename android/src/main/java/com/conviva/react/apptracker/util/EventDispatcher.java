@@ -0,0 +1,145 @@
+package com.conviva.react.apptracker.util;
+
+import androidx.annotation.Nullable;
+
+import com.conviva.apptracker.controller.TrackerController;
+import com.conviva.apptracker.event.AbstractEvent;
+import com.conviva.apptracker.event.SelfDescribing;
+import com.conviva.apptracker.revenue.ConvivaRevenueEvent;
+import com.facebook.react.bridge.ReadableMap;
+
+/**
+ * Routes a typed event to its EventUtil factory and tracks it.
+ *
+ * The event type strings are shared with the JS wrapper, which tags every
+ * entry of a trackEventsBatch call with one of them. The details map has the
+ * same shape as the argument of the single-event track methods
+ * (eventData, contexts and, for custom events, eventName).
+ *
+ * A true timestamp, when given, is set on the built event; custom and
+ * revenue events have no event object and are timestamped by the tracker.
+ * A sampled event gets the sampler's context, or for custom events its
+ * member.
+ */
+public class EventDispatcher {
+
+    public static final String SELF_DESCRIBING = "selfDescribing";
+    public static final String STRUCTURED = "structured";
+    public static final String SCREEN_VIEW = "screenView";
+    public static final String PAGE_VIEW = "pageView";
+    public static final String TIMING = "timing";
+    public static final String CONSENT_GRANTED = "consentGranted";
+    public static final String CONSENT_WITHDRAWN = "consentWithdrawn";
+    public static final String ECOMMERCE_TRANSACTION = "ecommerceTransaction";
+    public static final String DEEP_LINK_RECEIVED = "deepLinkReceived";
+    public static final String MESSAGE_NOTIFICATION = "messageNotification";
+    public static final String CUSTOM = "custom";
+    public static final String REVENUE = "revenue";
+    public static final String CLICK = "click";
+
+    private static final Object subjectLock = new Object();
+
+    public static void dispatch(TrackerController trackerController, String eventType, ReadableMap details) {
+        dispatch(trackerController, eventType, details, null);
+    }
+
+    public static void dispatch(TrackerController trackerController, String eventType, ReadableMap details, @Nullable Long trueTimestamp) {
+        dispatch(trackerController, eventType, details, trueTimestamp, EventSampler.UNSAMPLED);
+    }
+
+    /**
+     * Dispatches an event kept by the sampler, stamped with its sample rate.
+     */
+    public static void dispatch(TrackerController trackerController, String eventType, ReadableMap details, @Nullable Long trueTimestamp,
+                                EventSampler.Sample sample) {
+        ReadableMap argmap = details.getMap("eventData");
+        long started = BridgeMetrics.start();
+
+        switch (eventType) {
+            case CUSTOM: {
+                String eventJson = sample.stamp(JsonSimpleWriter.toJSONString(argmap));
+                BridgeMetrics.endStage(BridgeMetrics.CONVERSION, started);
+                started = BridgeMetrics.start();
+                trackCustom(trackerController, details.getString("eventName"), eventJson);
+                BridgeMetrics.endStage(BridgeMetrics.TRACK, started);
+                return;
+            }
+            case REVENUE: {
+                ConvivaRevenueEvent revenueEvent = EventUtil.createRevenueEvent(argmap);
+                BridgeMetrics.endStage(BridgeMetrics.CONVERSION, started);
+                started = BridgeMetrics.start();
+                trackerController.trackRevenueEvent(revenueEvent);
+                BridgeMetrics.endStage(BridgeMetrics.TRACK, started);
+                return;
+            }
+            default:
+                break;
+        }
+
+        AbstractEvent event = build(eventType, argmap);
+        if (trueTimestamp != null) {
+            event.trueTimestamp(trueTimestamp);
+        }
+        // Click events never carried custom contexts
+        if (!CLICK.equals(eventType) && details.hasKey("contexts") && !details.isNull("contexts")) {
+            event.customContexts.addAll(EventUtil.createContexts(details.getArray("contexts")));
+        }
+        if (sample.context != null) {
+            event.customContexts.add(sample.context);
+        }
+        BridgeMetrics.endStage(BridgeMetrics.CONVERSION, started);
+        started = BridgeMetrics.start();
+        track(trackerController, event);
+        BridgeMetrics.endStage(BridgeMetrics.TRACK, started);
+    }
+
+    /**
+     * Applies a subject update; updates from every bridge call run one at a
+     * time, so concurrent calls do not interleave their fields. This is not
+     * atomic for events: the tracker reads the subject field by field when
+     * it processes an event, possibly after track() returned, so an event
+     * tracked during an update may carry part of it.
+     */
+    public static void updateSubject(Runnable update) {
+        synchronized (subjectLock) {
+            update.run();
+        }
+    }
+
+    public static void track(TrackerController trackerController, AbstractEvent event) {
+        trackerController.track(event);
+    }
+
+    public static void trackCustom(TrackerController trackerController, String eventName, String eventJson) {
+        trackerController.trackCustomEvent(eventName, eventJson);
+    }
+
+    private static AbstractEvent build(String eventType, ReadableMap argmap) {
+        switch (eventType) {
+            case SELF_DESCRIBING:
+                return new SelfDescribing(EventUtil.createSelfDescribingJson(argmap));
+            case STRUCTURED:
+                return EventUtil.createStructuredEvent(argmap);
+            case SCREEN_VIEW:
+                return EventUtil.createScreenViewEvent(argmap);
+            case PAGE_VIEW:
+                return EventUtil.createPageViewEvent(argmap);
+            case TIMING:
+                return EventUtil.createTimingEvent(argmap);
+            case CONSENT_GRANTED:
+                return EventUtil.createConsentGrantedEvent(argmap);
+            case CONSENT_WITHDRAWN:
+                return EventUtil.createConsentWithdrawnEvent(argmap);
+            case ECOMMERCE_TRANSACTION:
+                return EventUtil.createEcommerceTransactionEvent(argmap);
+            case DEEP_LINK_RECEIVED:
+                return EventUtil.createDeepLinkReceivedEvent(argmap);
+            case MESSAGE_NOTIFICATION:
+                return EventUtil.createMessageNotificationEvent(argmap);
+            case CLICK:
+                return EventUtil.createButtonClickEvent(argmap);
+            default:
+                throw new IllegalArgumentException("Unknown event type: " + eventType);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.conviva.react.apptracker.util;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-namespace, per-event-type rate quotas.
+ *
+ * Each (namespace, event type) pair with a limit gets a token bucket of
+ * maxEvents tokens refilled over timeWindow milliseconds. Buckets are kept
+ * as a single theoretical-arrival-time counter (GCRA), so an admission is a
+ * map lookup and one compare-and-set, without locks.
+ *
+ * Limits come from the quotaConfig of createTracker and from the
+ * collectionRateLimit section of the applied remote config, as parsed by
+ * RemoteConfigState; a remote limit for the tracker's namespace (or, failing
+ * that, for the default bundle) overrides a local one. exceptionAutotracking is left to the JS error
+ * tracker. Rejected events are counted and reported per namespace as a
+ * conviva_event_quota_drops event every report interval.
+ */
+public class EventQuota {
+
+    public static final String DROP_EVENT = "conviva_event_quota_drops";
+    public static final String REJECTED_MESSAGE = "Event quota exceeded";
+    public static final long DEFAULT_REPORT_INTERVAL_MS = 60000;
+
+    private static final String JS_OWNED_LIMIT = "exceptionAutotracking";
+
+    /**
+     * Receives drop reports; namespace is null for the default tracker.
+     */
+    public interface DropSink {
+        void emit(String namespace, String eventName, String eventJson);
+    }
+
+    public static final class Limit {
+        final long maxEvents;
+        final long windowMs;
+
+        public Limit(long maxEvents, long windowMs) {
+            this.maxEvents = maxEvents;
+            this.windowMs = windowMs;
+        }
+
+        boolean sameAs(Limit other) {
+            return other != null && other.maxEvents == maxEvents && other.windowMs == windowMs;
+        }
+    }
+
+    private static final class Rules {
+        final Map<String, Limit> local;
+        final Map<String, Limit> remoteDefault;
+        final Map<String, Map<String, Limit>> remoteByNamespace;
+
+        Rules(Map<String, Limit> local, Map<String, Limit> remoteDefault, Map<String, Map<String, Limit>> remoteByNamespace) {
+            this.local = local;
+            this.remoteDefault = remoteDefault;
+            this.remoteByNamespace = remoteByNamespace;
+        }
+
+        boolean isEmpty() {
+            return local.isEmpty() && remoteDefault.isEmpty() && remoteByNamespace.isEmpty();
+        }
+
+        Limit limitFor(String namespace, String eventType) {
+            Map<String, Limit> remote = remoteByNamespace.get(namespace);
+            Limit limit = remote == null ? null : remote.get(eventType);
+            if (limit == null) {
+                limit = remoteDefault.get(eventType);
+            }
+            if (limit == null) {
+                limit = local.get(eventType);
+            }
+            return limit;
+        }
+    }
+
+    private static final class Bucket {
+        final Rules rules;
+        // null when the pair is unlimited
+        final Limit limit;
+        final long intervalNanos;
+        final long toleranceNanos;
+        final AtomicLong theoreticalArrival;
+        final AtomicLong pendingDrops = new AtomicLong();
+
+        Bucket(Rules rules, Limit limit, long arrival) {
+            this.rules = rules;
+            this.limit = limit;
+            if (limit == null) {
+                intervalNanos = 0;
+                toleranceNanos = 0;
+            } else {
+                long windowNanos = TimeUnit.MILLISECONDS.toNanos(limit.windowMs);
+                intervalNanos = Math.max(1, windowNanos / limit.maxEvents);
+                toleranceNanos = windowNanos - intervalNanos;
+            }
+            theoreticalArrival = new AtomicLong(arrival);
+        }
+
+        boolean tryAcquire(long now) {
+            while (true) {
+                long arrival = theoreticalArrival.get();
+                long base = Math.max(arrival, now);
+                if (base - now > toleranceNanos) {
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(arrival, base + intervalNanos)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private static final Map<String, Limit> NO_LIMITS = Collections.emptyMap();
+
+    private final DropSink sink;
+
+    private volatile boolean enabled = true;
+    private volatile Rules rules = new Rules(NO_LIMITS, NO_LIMITS, Collections.<String, Map<String, Limit>>emptyMap());
+    private long appliedRemoteVersion;
+
+    // namespace ("" for the default tracker) -> event type -> bucket
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Bucket>> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong reports = new AtomicLong();
+
+    private long reportIntervalMs = DEFAULT_REPORT_INTERVAL_MS;
+    private ScheduledFuture<?> reportTask;
+
+    public EventQuota(DropSink sink) {
+        this.sink = sink;
+    }
+
+    public synchronized void configure(boolean enabled, long reportIntervalMs, Map<String, Limit> localLimits) {
+        this.enabled = enabled;
+        this.reportIntervalMs = Math.max(1000, reportIntervalMs);
+        Rules current = rules;
+        publish(new Rules(new HashMap<>(localLimits), current.remoteDefault, current.remoteByNamespace));
+
+        if (reportTask != null) {
+            reportTask.cancel(false);
+            reportTask = null;
+        }
+        ensureReporting();
+    }
+
+    /**
+     * Takes a token for the event and returns whether it may be tracked.
+     */
+    public boolean tryAcquire(String namespace, String eventType) {
+        if (!enabled) {
+            return true;
+        }
+        Rules current = rules;
+        if (current.isEmpty()) {
+            return true;
+        }
+        String key = namespace == null ? "" : namespace;
+        ConcurrentHashMap<String, Bucket> byType = buckets.get(key);
+        if (byType == null) {
+            byType = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, Bucket> raced = buckets.putIfAbsent(key, byType);
+            if (raced != null) {
+                byType = raced;
+            }
+        }
+
+        long now = System.nanoTime();
+        Bucket bucket = byType.get(eventType);
+        while (bucket == null || bucket.rules != current) {
+            bucket = rebuild(byType, eventType, bucket, current, namespace, now);
+        }
+        if (bucket.limit == null || bucket.tryAcquire(now)) {
+            return true;
+        }
+        bucket.pendingDrops.incrementAndGet();
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Applies the collectionRateLimit limits of a remote-config state. A
+     * state no newer than the last applied one is ignored.
+     */
+    public synchronized void applyRemoteConfig(RemoteConfigState state) {
+        if (state.version <= appliedRemoteVersion) {
+            return;
+        }
+        Map<String, Map<String, Limit>> byNamespace = new HashMap<>();
+        for (Map.Entry<String, Map<String, Limit>> namespace : state.limitsByNamespace.entrySet()) {
+            byNamespace.put(namespace.getKey(), withoutJsOwned(namespace.getValue()));
+        }
+        Rules current = rules;
+        publish(new Rules(current.local, withoutJsOwned(state.defaultLimits), byNamespace));
+        appliedRemoteVersion = state.version;
+        ensureReporting();
+    }
+
+    public WritableMap toWritableMap() {
+        Rules current = rules;
+        WritableMap map = Arguments.createMap();
+        map.putBoolean("enabled", enabled);
+        map.putInt("localLimits", current.local.size());
+        map.putInt("remoteLimits", current.remoteDefault.size());
+        map.putInt("remoteNamespaces", current.remoteByNamespace.size());
+        map.putDouble("remoteConfigVersion", appliedRemoteVersion());
+        map.putDouble("dropped", dropped.get());
+        map.putDouble("reports", reports.get());
+        return map;
+    }
+
+    private synchronized long appliedRemoteVersion() {
+        return appliedRemoteVersion;
+    }
+
+    // Must be called with the lock held. Buckets notice the new rules on
+    // their next admission.
+    private void publish(Rules next) {
+        rules = next;
+    }
+
+    // Must be called with the lock held. Drops are reported whenever rules
+    // exist, whether they came from createTracker or only from remote config.
+    private void ensureReporting() {
+        if (enabled && reportTask == null && !rules.isEmpty()) {
+            reportTask = SharedScheduler.get().scheduleWithFixedDelay(this::report,
+                    reportIntervalMs, reportIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Replaces a missing or stale bucket and returns the bucket now in the
+     * map. A bucket whose limit did not change keeps its state; unreported
+     * drops are carried over.
+     */
+    private static Bucket rebuild(ConcurrentHashMap<String, Bucket> byType, String eventType, Bucket stale,
+                                  Rules current, String namespace, long now) {
+        Limit limit = current.limitFor(namespace == null ? RemoteConfigState.DEFAULT_BUNDLE_NAMESPACE : namespace, eventType);
+        long arrival = stale != null && limit != null && limit.sameAs(stale.limit) ? stale.theoreticalArrival.get() : now;
+        Bucket fresh = new Bucket(current, limit, arrival);
+        if (stale == null) {
+            Bucket raced = byType.putIfAbsent(eventType, fresh);
+            return raced != null ? raced : fresh;
+        }
+        if (byType.replace(eventType, stale, fresh)) {
+            fresh.pendingDrops.addAndGet(stale.pendingDrops.getAndSet(0));
+            return fresh;
+        }
+        return byType.get(eventType);
+    }
+
+    private static Map<String, Limit> withoutJsOwned(Map<String, Limit> limits) {
+        if (!limits.containsKey(JS_OWNED_LIMIT)) {
+            return limits;
+        }
+        Map<String, Limit> filtered = new HashMap<>(limits);
+        filtered.remove(JS_OWNED_LIMIT);
+        return filtered;
+    }
+
+    private void report() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, ConcurrentHashMap<String, Bucket>> namespace : buckets.entrySet()) {
+            List<String> types = new ArrayList<>();
+            List<Long> counts = new ArrayList<>();
+            long total = 0;
+            for (Map.Entry<String, Bucket> entry : namespace.getValue().entrySet()) {
+                long count = entry.getValue().pendingDrops.getAndSet(0);
+                if (count > 0) {
+                    types.add(entry.getKey());
+                    counts.add(count);
+                    total += count;
+                }
+            }
+            if (total == 0) {
+                continue;
+            }
+
+            JsonSimpleWriter.Members byType = new JsonSimpleWriter.Members();
+            for (int i = 0; i < types.size(); i++) {
+                byType.value(types.get(i)).append(counts.get(i).longValue());
+            }
+            String droppedJson = byType.toJSONString();
+
+            JsonSimpleWriter.Members event = new JsonSimpleWriter.Members();
+            event.value("dropped").append(droppedJson);
+            event.value("total").append(total);
+            event.value("intervalMs").append(reportIntervalMs);
+            event.value("timestamp").append(now);
+            try {
+                sink.emit(namespace.getKey().isEmpty() ? null : namespace.getKey(), DROP_EVENT, event.toJSONString());
+                reports.incrementAndGet();
+            } catch (Throwable ignored) {
+                // The report is lost; the drops stay in the dropped counter.
+            }
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.conviva.react.apptracker.util;
+
+import androidx.annotation.Nullable;
+
+import com.conviva.apptracker.payload.SelfDescribingJson;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deterministic per-user sampling of events, decided before the event is
+ * converted.
+ *
+ * A rule matches an event type, a custom event name or a self-describing
+ * schema (the most specific matching rule wins) and keeps a fraction of
+ * users: a user is in when a 64-bit hash of the client id and the rule
+ * falls below the rate, so the same user is consistently in or out of each
+ * rule. As the decision only changes with the rules or the client id, it is
+ * computed once per rule and an admission is a volatile read and a map
+ * lookup. Until a client id is known nothing is sampled.
+ *
+ * Kept events carry a conviva_sampling context (custom events a
+ * conviva_sampling member) with the rate and rule, so the backend can
+ * re-weight them. Revenue events are never sampled.
+ */
+public class EventSampler {
+
+    public static final String SAMPLING_SCHEMA = "iglu:com.conviva/sampling/jsonschema/1-0-0";
+    public static final String SAMPLING_MEMBER = "conviva_sampling";
+
+    public static final String BY_TYPE = "eventType";
+    public static final String BY_NAME = "eventName";
+    public static final String BY_SCHEMA = "schema";
+
+    /**
+     * A configured rule: events matching kind/value are kept for the given
+     * fraction of users.
+     */
+    public static final class Rule {
+        final String kind;
+        final String value;
+        final double rate;
+
+        public Rule(String kind, String value, double rate) {
+            this.kind = kind;
+            this.value = value;
+            this.rate = Math.max(0, Math.min(1, rate));
+        }
+
+        String key() {
+            return kind + ":" + value;
+        }
+    }
+
+    /**
+     * The outcome for one rule and the current client id; shared by every
+     * event the rule matches, so the context must not be modified.
+     */
+    public static final class Sample {
+        public final boolean keep;
+        public final double rate;
+        @Nullable
+        public final SelfDescribingJson context;
+        @Nullable
+        final String member;
+
+        Sample(boolean keep, double rate, @Nullable String rule) {
+            this.keep = keep;
+            this.rate = rate;
+            if (rule == null) {
+                context = null;
+                member = null;
+            } else {
+                Map<String, Object> data = new HashMap<>();
+                data.put("sampleRate", rate);
+                data.put("rule", rule);
+                context = new SelfDescribingJson(SAMPLING_SCHEMA, Collections.unmodifiableMap(data));
+                JsonSimpleWriter.Members members = new JsonSimpleWriter.Members();
+                JsonSimpleWriter.writeDouble(rate, members.value("sampleRate"));
+                JsonSimpleWriter.writeString(rule, members.value("rule"));
+                member = members.toJSONString();
+            }
+        }
+
+        /**
+         * Adds the sampling member to a custom event's JSON object.
+         */
+        public String stamp(String eventJson) {
+            if (member == null || eventJson.length() < 2 || eventJson.charAt(eventJson.length() - 1) != '}') {
+                return eventJson;
+            }
+            StringBuilder sb = new StringBuilder(eventJson.length() + member.length() + SAMPLING_MEMBER.length() + 4);
+            sb.append(eventJson, 0, eventJson.length() - 1);
+            if (eventJson.length() > 2) {
+                sb.append(',');
+            }
+            JsonSimpleWriter.writeString(SAMPLING_MEMBER, sb);
+            sb.append(':').append(member).append('}');
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Kept without a rule: nothing to stamp.
+     */
+    public static final Sample UNSAMPLED = new Sample(true, 1, null);
+
+    private static final class Rules {
+        final Map<String, Sample> byType;
+        final Map<String, Sample> byName;
+        final Map<String, Sample> bySchema;
+
+        Rules(Map<String, Sample> byType, Map<String, Sample> byName, Map<String, Sample> bySchema) {
+            this.byType = byType;
+            this.byName = byName;
+            this.bySchema = bySchema;
+        }
+
+        boolean isEmpty() {
+            return byType.isEmpty() && byName.isEmpty() && bySchema.isEmpty();
+        }
+
+        int size() {
+            return byType.size() + byName.size() + bySchema.size();
+        }
+    }
+
+    private static final Map<String, Sample> NO_SAMPLES = Collections.emptyMap();
+
+    private volatile boolean enabled = true;
+    private volatile Rules rules = new Rules(NO_SAMPLES, NO_SAMPLES, NO_SAMPLES);
+
+    private List<Rule> configured = Collections.emptyList();
+    private String clientId;
+
+    private final AtomicLong kept = new AtomicLong();
+    private final AtomicLong sampledOut = new AtomicLong();
+
+    public synchronized void configure(boolean enabled, List<Rule> rules) {
+        this.enabled = enabled;
+        this.configured = rules;
+        publish();
+    }
+
+    /**
+     * Recomputes every rule's decision for a new client id.
+     */
+    public synchronized void setClientId(@Nullable String clientId) {
+        if (clientId == null || clientId.isEmpty() || clientId.equals(this.clientId)) {
+            return;
+        }
+        this.clientId = clientId;
+        publish();
+    }
+
+    /**
+     * Samples an event from its bridge details (the shape the track methods
+     * take), reading only the event name or schema a rule needs.
+     */
+    public Sample sample(String eventType, ReadableMap details) {
+        if (!enabled) {
+            return UNSAMPLED;
+        }
+        Rules current = rules;
+        if (current.isEmpty()) {
+            return UNSAMPLED;
+        }
+        String name = null;
+        String schema = null;
+        if (!current.byName.isEmpty() && EventDispatcher.CUSTOM.equals(eventType) && details.hasKey("eventName")) {
+            name = details.getString("eventName");
+        }
+        if (!current.bySchema.isEmpty() && EventDispatcher.SELF_DESCRIBING.equals(eventType) && details.hasKey("eventData")) {
+            ReadableMap eventData = details.getMap("eventData");
+            if (eventData != null && eventData.hasKey("schema")) {
+                schema = eventData.getString("schema");
+            }
+        }
+        return count(lookup(current, eventType, name, schema));
+    }
+
+    /**
+     * Samples an event of the typed fire-and-forget paths.
+     */
+    public Sample sample(String eventType, @Nullable String eventName, @Nullable String schema) {
+        if (!enabled) {
+            return UNSAMPLED;
+        }
+        Rules current = rules;
+        if (current.isEmpty()) {
+            return UNSAMPLED;
+        }
+        return count(lookup(current, eventType, eventName, schema));
+    }
+
+    public WritableMap toWritableMap() {
+        Rules current = rules;
+        WritableMap map = Arguments.createMap();
+        map.putBoolean("enabled", enabled);
+        map.putInt("rules", current.size());
+        map.putBoolean("clientIdKnown", clientIdKnown());
+        map.putDouble("kept", kept.get());
+        map.putDouble("sampledOut", sampledOut.get());
+        return map;
+    }
+
+    private synchronized boolean clientIdKnown() {
+        return clientId != null;
+    }
+
+    private static Sample lookup(Rules current, String eventType, @Nullable String name, @Nullable String schema) {
+        if (EventDispatcher.REVENUE.equals(eventType)) {
+            return UNSAMPLED;
+        }
+        Sample sample = schema == null ? null : current.bySchema.get(schema);
+        if (sample == null && name != null) {
+            sample = current.byName.get(name);
+        }
+        if (sample == null) {
+            sample = current.byType.get(eventType);
+        }
+        return sample != null ? sample : UNSAMPLED;
+    }
+
+    private Sample count(Sample sample) {
+        if (sample != UNSAMPLED) {
+            (sample.keep ? kept : sampledOut).incrementAndGet();
+        }
+        return sample;
+    }
+
+    // Must be called with the lock held.
+    private void publish() {
+        if (clientId == null) {
+            rules = new Rules(NO_SAMPLES, NO_SAMPLES, NO_SAMPLES);
+            return;
+        }
+        Map<String, Sample> byType = new HashMap<>();
+        Map<String, Sample> byName = new HashMap<>();
+        Map<String, Sample> bySchema = new HashMap<>();
+        for (Rule rule : configured) {
+            Map<String, Sample> target = BY_NAME.equals(rule.kind) ? byName : BY_SCHEMA.equals(rule.kind) ? bySchema : byType;
+            String key = rule.key();
+            target.put(rule.value, new Sample(bucket(clientId, key) < rule.rate, rule.rate, key));
+        }
+        rules = new Rules(byType, byName, bySchema);
+    }
+
+    /**
+     * Uniform value in [0, 1) from FNV-1a over the client id and rule key,
+     * finished with the murmur3 mixer.
+     */
+    static double bucket(String clientId, String ruleKey) {
+        long hash = 0xcbf29ce484222325L;
+        hash = fnv(hash, clientId);
+        // A zero byte between the two strings
+        hash *= 0x100000001b3L;
+        hash = fnv(hash, ruleKey);
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+
+    private static long fnv(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * 0x100000001b3L;
+            hash = (hash ^ (c >>> 8)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+}
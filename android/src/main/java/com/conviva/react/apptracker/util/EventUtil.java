@@ -16,9 +16,13 @@ import com.conviva.apptracker.event.ScreenView;
 import com.conviva.apptracker.event.Structured;
 import com.conviva.apptracker.event.Timing;
 import com.conviva.apptracker.payload.SelfDescribingJson;
+import com.conviva.apptracker.revenue.ConvivaRevenueEvent;
+import com.conviva.apptracker.revenue.ConvivaRevenueEventItem;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 
+import org.json.JSONObject;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -26,6 +30,72 @@ import java.util.UUID;
 
 public class EventUtil {
 
+    // Contexts repeat across events far more than event payloads do
+    private static final ContextCache contextCache = new ContextCache();
+
+    // Optional-field tables; required fields are read before construction
+    private static final MapDecoder<ConsentGranted> CONSENT_GRANTED = new MapDecoder<ConsentGranted>(EventDispatcher.CONSENT_GRANTED)
+            .field("name", (event, map, key) -> event.documentName(map.getString(key)))
+            .field("documentDescription", (event, map, key) -> event.documentDescription(map.getString(key)));
+
+    private static final MapDecoder<ConsentWithdrawn> CONSENT_WITHDRAWN = new MapDecoder<ConsentWithdrawn>(EventDispatcher.CONSENT_WITHDRAWN)
+            .field("name", (event, map, key) -> event.documentName(map.getString(key)))
+            .field("documentDescription", (event, map, key) -> event.documentDescription(map.getString(key)));
+
+    private static final MapDecoder<EcommerceTransactionItem> ECOMMERCE_ITEM = new MapDecoder<EcommerceTransactionItem>("ecommerceItem")
+            .field("name", (item, map, key) -> item.name(map.getString(key)))
+            .field("category", (item, map, key) -> item.category(map.getString(key)))
+            .field("currency", (item, map, key) -> item.currency(map.getString(key)));
+
+    private static final MapDecoder<EcommerceTransaction> ECOMMERCE_TRANSACTION = new MapDecoder<EcommerceTransaction>(EventDispatcher.ECOMMERCE_TRANSACTION)
+            .field("affiliation", (event, map, key) -> event.affiliation(map.getString(key)))
+            .field("taxValue", (event, map, key) -> event.taxValue(map.getDouble(key)))
+            .field("shipping", (event, map, key) -> event.shipping(map.getDouble(key)))
+            .field("city", (event, map, key) -> event.city(map.getString(key)))
+            .field("state", (event, map, key) -> event.state(map.getString(key)))
+            .field("country", (event, map, key) -> event.country(map.getString(key)))
+            .field("currency", (event, map, key) -> event.currency(map.getString(key)));
+
+    private static final MapDecoder<MessageNotification> MESSAGE_NOTIFICATION = new MapDecoder<MessageNotification>(EventDispatcher.MESSAGE_NOTIFICATION)
+            .field("action", (event, map, key) -> event.action(map.getString(key)))
+            .field("attachments", (event, map, key) -> event.attachments(createMessageNotificationAttachments(map.getArray(key))))
+            .field("bodyLocArgs", (event, map, key) -> event.bodyLocArgs(createStrings(map.getArray(key))))
+            .field("bodyLocKey", (event, map, key) -> event.bodyLocKey(map.getString(key)))
+            .field("category", (event, map, key) -> event.category(map.getString(key)))
+            .field("contentAvailable", (event, map, key) -> event.contentAvailable(map.getBoolean(key)))
+            .field("group", (event, map, key) -> event.group(map.getString(key)))
+            .field("icon", (event, map, key) -> event.icon(map.getString(key)))
+            .field("notificationCount", (event, map, key) -> event.notificationCount(map.getInt(key)))
+            .field("notificationTimestamp", (event, map, key) -> event.notificationTimestamp(map.getString(key)))
+            .field("sound", (event, map, key) -> event.sound(map.getString(key)))
+            .field("subtitle", (event, map, key) -> event.subtitle(map.getString(key)))
+            .field("tag", (event, map, key) -> event.tag(map.getString(key)))
+            .field("threadIdentifier", (event, map, key) -> event.threadIdentifier(map.getString(key)))
+            .field("titleLocArgs", (event, map, key) -> event.titleLocArgs(createStrings(map.getArray(key))))
+            .field("titleLocKey", (event, map, key) -> event.titleLocKey(map.getString(key)));
+
+    private static final MapDecoder<ConvivaRevenueEvent.Builder> REVENUE = new MapDecoder<ConvivaRevenueEvent.Builder>(EventDispatcher.REVENUE)
+            .field("taxAmount", (builder, map, key) -> builder.taxAmount(map.getDouble(key)))
+            .field("shippingCost", (builder, map, key) -> builder.shippingCost(map.getDouble(key)))
+            .field("discount", (builder, map, key) -> builder.discount(map.getDouble(key)))
+            .field("cartSize", (builder, map, key) -> builder.cartSize(map.getInt(key)))
+            .field("paymentMethod", (builder, map, key) -> builder.paymentMethod(map.getString(key)))
+            .field("paymentProvider", (builder, map, key) -> builder.paymentProvider(map.getString(key)))
+            .field("extraMetadata", (builder, map, key) -> builder.extraMetadata(new JSONObject(map.getMap(key).toHashMap())))
+            .field("items", (builder, map, key) -> builder.items(createRevenueEventItems(map.getArray(key))));
+
+    private static final MapDecoder<ConvivaRevenueEventItem.Builder> REVENUE_ITEM = new MapDecoder<ConvivaRevenueEventItem.Builder>("revenueItem")
+            .field("productId", (builder, map, key) -> builder.productId(map.getString(key)))
+            .field("name", (builder, map, key) -> builder.name(map.getString(key)))
+            .field("sku", (builder, map, key) -> builder.sku(map.getString(key)))
+            .field("category", (builder, map, key) -> builder.category(createStrings(map.getArray(key))))
+            .field("unitPrice", (builder, map, key) -> builder.unitPrice(map.getDouble(key)))
+            .field("quantity", (builder, map, key) -> builder.quantity(map.getInt(key)))
+            .field("discount", (builder, map, key) -> builder.discount(map.getDouble(key)))
+            .field("brand", (builder, map, key) -> builder.brand(map.getString(key)))
+            .field("variant", (builder, map, key) -> builder.variant(map.getString(key)))
+            .field("extraMetadata", (builder, map, key) -> builder.extraMetadata(new JSONObject(map.getMap(key).toHashMap())));
+
     public static SelfDescribingJson createSelfDescribingJson(ReadableMap json) {
         String schema = json.getString("schema");
         ReadableMap dataMap = json.getMap("data");
@@ -33,10 +103,14 @@ public class EventUtil {
         return new SelfDescribingJson(schema, dataMap.toHashMap());
     }
 
+    public static ContextCache getContextCache() {
+        return contextCache;
+    }
+
     public static List<SelfDescribingJson> createContexts(ReadableArray contexts) {
-        List<SelfDescribingJson> nativeContexts = new ArrayList<>();
+        List<SelfDescribingJson> nativeContexts = new ArrayList<>(contexts.size());
         for (int i = 0; i < contexts.size(); i++) {
-            SelfDescribingJson json = createSelfDescribingJson(contexts.getMap(i));
+            SelfDescribingJson json = contextCache.get(contexts.getMap(i));
             nativeContexts.add(json);
         }
 
@@ -63,6 +137,26 @@ public class EventUtil {
         return event;
     }
 
+    public static Structured createStructuredEvent(String category, String action, String label, String property, double value) {
+        Structured event = new Structured(
+                Objects.requireNonNull(category, "category can't be null"),
+                Objects.requireNonNull(action, "action can't be null")
+        );
+
+        if (label != null) {
+            event.label(label);
+        }
+        if (property != null) {
+            event.property(property);
+        }
+        // NaN stands in for a missing value on the typed fire-and-forget path
+        if (!Double.isNaN(value)) {
+            event.value(value);
+        }
+
+        return event;
+    }
+
     public static ScreenView createScreenViewEvent(ReadableMap argmap) {
         @NonNull String name = Objects.requireNonNull(argmap.getString("name"), "name can't be null");
         ScreenView event = (
@@ -90,6 +184,34 @@ public class EventUtil {
         return event;
     }
 
+    public static ScreenView createScreenViewEvent(String name, String id, String type, String previousName,
+                                                   String previousType, String previousId, String transitionType) {
+        Objects.requireNonNull(name, "name can't be null");
+        ScreenView event = (
+                id != null ?
+                        new ScreenView(name, UUID.fromString(id)) :
+                        new ScreenView(name)
+        );
+
+        if (type != null) {
+            event.type(type);
+        }
+        if (previousName != null) {
+            event.previousName(previousName);
+        }
+        if (previousType != null) {
+            event.previousType(previousType);
+        }
+        if (previousId != null) {
+            event.previousId(previousId);
+        }
+        if (transitionType != null) {
+            event.transitionType(transitionType);
+        }
+
+        return event;
+    }
+
     public static PageView createPageViewEvent(ReadableMap argmap) {
         PageView event = new PageView(
                 Objects.requireNonNull(argmap.getString("pageUrl"), "pageUrl can't be null")
@@ -126,14 +248,7 @@ public class EventUtil {
                 Objects.requireNonNull(argmap.getString("version"), "version can't be null")
         );
 
-        if (argmap.hasKey("name")) {
-            event.documentName(argmap.getString("name"));
-        }
-        if (argmap.hasKey("documentDescription")) {
-            event.documentDescription(argmap.getString("documentDescription"));
-        }
-
-        return event;
+        return CONSENT_GRANTED.decode(argmap, event);
     }
 
     public static ConsentWithdrawn createConsentWithdrawnEvent(ReadableMap argmap) {
@@ -143,18 +258,11 @@ public class EventUtil {
                 Objects.requireNonNull(argmap.getString("version"), "version can't be null")
         );
 
-        if (argmap.hasKey("name")) {
-            event.documentName(argmap.getString("name"));
-        }
-        if (argmap.hasKey("documentDescription")) {
-            event.documentDescription(argmap.getString("documentDescription"));
-        }
-
-        return event;
+        return CONSENT_WITHDRAWN.decode(argmap, event);
     }
 
     public static List<EcommerceTransactionItem> createEcommerceTransactionItems(ReadableArray items) {
-        List<EcommerceTransactionItem> ecomItems = new ArrayList<>();
+        List<EcommerceTransactionItem> ecomItems = new ArrayList<>(items.size());
         for (int i = 0; i < items.size(); i++) {
             ReadableMap argItem = items.getMap(i);
             EcommerceTransactionItem item = new EcommerceTransactionItem(
@@ -163,17 +271,7 @@ public class EventUtil {
                     argItem.getInt("quantity")
             );
 
-            if (argItem.hasKey("name")) {
-                item.name(argItem.getString("name"));
-            }
-            if (argItem.hasKey("category")) {
-                item.category(argItem.getString("category"));
-            }
-            if (argItem.hasKey("currency")) {
-                item.currency(argItem.getString("currency"));
-            }
-
-            ecomItems.add(item);
+            ecomItems.add(ECOMMERCE_ITEM.decode(argItem, item));
         }
 
         return ecomItems;
@@ -190,29 +288,7 @@ public class EventUtil {
                 ecomItems
         );
 
-        if (argmap.hasKey("affiliation")) {
-            event.affiliation(argmap.getString("affiliation"));
-        }
-        if (argmap.hasKey("taxValue")) {
-            event.taxValue(argmap.getDouble("taxValue"));
-        }
-        if (argmap.hasKey("shipping")) {
-            event.shipping(argmap.getDouble("shipping"));
-        }
-        if (argmap.hasKey("city")) {
-            event.city(argmap.getString("city"));
-        }
-        if (argmap.hasKey("state")) {
-            event.state(argmap.getString("state"));
-        }
-        if (argmap.hasKey("country")) {
-            event.country(argmap.getString("country"));
-        }
-        if (argmap.hasKey("currency")) {
-            event.currency(argmap.getString("currency"));
-        }
-
-        return event;
+        return ECOMMERCE_TRANSACTION.decode(argmap, event);
     }
 
     public static DeepLinkReceived createDeepLinkReceivedEvent(ReadableMap argmap) {
@@ -277,65 +353,27 @@ public class EventUtil {
                 trigger
         );
 
-        if (argmap.hasKey("action")) {
-            event.action(argmap.getString("action"));
-        }
-        if (argmap.hasKey("attachments")) {
-            ReadableArray attachments = argmap.getArray("attachments");
-            if (attachments != null) {
-                event.attachments(createMessageNotificationAttachments(attachments));
-            }
-        }
-        if (argmap.hasKey("bodyLocArgs")) {
-            ReadableArray bodyLocArgs = argmap.getArray("bodyLocArgs");
-            if (bodyLocArgs != null) {
-                event.bodyLocArgs(createStrings(bodyLocArgs));
-            }
-        }
-        if (argmap.hasKey("bodyLocKey")) {
-            event.bodyLocKey(argmap.getString("bodyLocKey"));
-        }
-        if (argmap.hasKey("category")) {
-            event.category(argmap.getString("category"));
-        }
-        if (argmap.hasKey("contentAvailable")) {
-            event.contentAvailable(argmap.getBoolean("contentAvailable"));
-        }
-        if (argmap.hasKey("group")) {
-            event.group(argmap.getString("group"));
-        }
-        if (argmap.hasKey("icon")) {
-            event.icon(argmap.getString("icon"));
-        }
-        if (argmap.hasKey("notificationCount")) {
-            event.notificationCount(argmap.getInt("notificationCount"));
-        }
-        if (argmap.hasKey("notificationTimestamp")) {
-            event.notificationTimestamp(argmap.getString("notificationTimestamp"));
-        }
-        if (argmap.hasKey("sound")) {
-            event.sound(argmap.getString("sound"));
-        }
-        if (argmap.hasKey("subtitle")) {
-            event.subtitle(argmap.getString("subtitle"));
-        }
-        if (argmap.hasKey("tag")) {
-            event.tag(argmap.getString("tag"));
-        }
-        if (argmap.hasKey("threadIdentifier")) {
-            event.threadIdentifier(argmap.getString("threadIdentifier"));
-        }
-        if (argmap.hasKey("titleLocArgs")) {
-            ReadableArray titleLocArgs = argmap.getArray("titleLocArgs");
-            if (titleLocArgs != null) {
-                event.titleLocArgs(createStrings(titleLocArgs));
-            }
-        }
-        if (argmap.hasKey("titleLocKey")) {
-            event.titleLocKey(argmap.getString("titleLocKey"));
+        return MESSAGE_NOTIFICATION.decode(argmap, event);
+    }
+
+    public static ConvivaRevenueEvent createRevenueEvent(ReadableMap argmap) {
+        double totalOrderAmount = argmap.getDouble("totalOrderAmount");
+        String transactionId = argmap.getString("transactionId");
+        String currency = argmap.getString("currency");
+
+        ConvivaRevenueEvent.Builder builder =
+            ConvivaRevenueEvent.builder(totalOrderAmount, transactionId, currency);
+
+        return REVENUE.decode(argmap, builder).build();
+    }
+
+    public static List<ConvivaRevenueEventItem> createRevenueEventItems(ReadableArray itemsArray) {
+        List<ConvivaRevenueEventItem> items = new ArrayList<>(itemsArray.size());
+        for (int i = 0; i < itemsArray.size(); i++) {
+            items.add(REVENUE_ITEM.decode(itemsArray.getMap(i), ConvivaRevenueEventItem.builder()).build());
         }
 
-        return event;
+        return items;
     }
 
     public static ButtonClick createButtonClickEvent(ReadableMap argmap) {
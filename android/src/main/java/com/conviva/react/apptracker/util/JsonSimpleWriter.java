@@ -0,0 +1,246 @@
+package com.conviva.react.apptracker.util;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Streams ReadableMaps straight to JSON text, with the values and escaping
+ * json-simple's JSONValue.toJSONString produces for the map's toHashMap()
+ * graph, without building that graph.
+ *
+ * Members are written in the map's key-iteration order (Members: in the
+ * order they were added) rather than json-simple's HashMap order; JSON
+ * objects are unordered. Numbers are written as Doubles, as React Native
+ * hands every JS number over as a double.
+ *
+ * Output is built in a per-thread buffer that is reused across calls.
+ */
+public final class JsonSimpleWriter {
+
+    private static final int MAX_RETAINED_BUFFER = 16 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
+    private JsonSimpleWriter() {
+    }
+
+    /**
+     * Equivalent to JSONValue.toJSONString(map.toHashMap()).
+     */
+    public static String toJSONString(ReadableMap map) {
+        StringBuilder sb = acquire();
+        writeMap(map, sb);
+        return release(sb);
+    }
+
+    public static void writeString(String value, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\b':
+                    sb.append("\\b");
+                    break;
+                case '\f':
+                    sb.append("\\f");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '/':
+                    sb.append("\\/");
+                    break;
+                default:
+                    if (ch <= '\u001F' || (ch >= '\u007F' && ch <= '\u009F') || (ch >= '\u2000' && ch <= '\u20FF')) {
+                        appendUnicodeEscape(ch, sb, true);
+                    } else {
+                        sb.append(ch);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Writes a value as json-simple would: strings escaped, non-finite
+     * doubles as null, anything else (org.json objects and arrays included)
+     * through toString().
+     */
+    public static void writeValue(Object value, StringBuilder sb) {
+        if (value == null || value == JSONObject.NULL) {
+            sb.append("null");
+        } else if (value instanceof String) {
+            writeString((String) value, sb);
+        } else if (value instanceof Double) {
+            writeDouble((Double) value, sb);
+        } else if (value instanceof Float) {
+            writeDouble((Float) value, sb);
+        } else {
+            sb.append(value);
+        }
+    }
+
+    public static void writeDouble(double value, StringBuilder sb) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            sb.append("null");
+        } else {
+            sb.append(value);
+        }
+    }
+
+    static void appendUnicodeEscape(char ch, StringBuilder sb, boolean upperCase) {
+        String hex = Integer.toHexString(ch);
+        sb.append("\\u");
+        for (int k = hex.length(); k < 4; k++) {
+            sb.append('0');
+        }
+        sb.append(upperCase ? hex.toUpperCase() : hex);
+    }
+
+    /**
+     * Members of an object whose values are rendered by the caller, emitted in
+     * the order they were added. Keys must be distinct.
+     */
+    public static final class Members {
+
+        private final StringBuilder values = new StringBuilder(256);
+        private String[] keys = new String[16];
+        private int[] starts = new int[16];
+        private int count;
+
+        /**
+         * Starts a member and returns the buffer its JSON value must be
+         * appended to before the next call.
+         */
+        public StringBuilder value(String key) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            keys[count] = key;
+            starts[count] = values.length();
+            count++;
+            return values;
+        }
+
+        public String toJSONString() {
+            StringBuilder sb = acquire();
+            sb.append('{');
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                writeString(keys[i], sb);
+                sb.append(':');
+                int end = i + 1 < count ? starts[i + 1] : values.length();
+                sb.append(values, starts[i], end);
+            }
+            sb.append('}');
+            return release(sb);
+        }
+    }
+
+    private static void writeMap(ReadableMap map, StringBuilder sb) {
+        sb.append('{');
+        boolean first = true;
+        ReadableMapKeySetIterator it = map.keySetIterator();
+        while (it.hasNextKey()) {
+            String key = it.nextKey();
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            writeString(key, sb);
+            sb.append(':');
+            writeMapValue(map, key, sb);
+        }
+        sb.append('}');
+    }
+
+    private static void writeMapValue(ReadableMap map, String key, StringBuilder sb) {
+        switch (map.getType(key)) {
+            case Boolean:
+                sb.append(map.getBoolean(key));
+                break;
+            case Number:
+                writeDouble(map.getDouble(key), sb);
+                break;
+            case String:
+                writeString(map.getString(key), sb);
+                break;
+            case Map:
+                writeMap(map.getMap(key), sb);
+                break;
+            case Array:
+                writeArray(map.getArray(key), sb);
+                break;
+            default:
+                sb.append("null");
+        }
+    }
+
+    private static void writeArray(ReadableArray array, StringBuilder sb) {
+        sb.append('[');
+        for (int i = 0; i < array.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            switch (array.getType(i)) {
+                case Boolean:
+                    sb.append(array.getBoolean(i));
+                    break;
+                case Number:
+                    writeDouble(array.getDouble(i), sb);
+                    break;
+                case String:
+                    writeString(array.getString(i), sb);
+                    break;
+                case Map:
+                    writeMap(array.getMap(i), sb);
+                    break;
+                case Array:
+                    writeArray(array.getArray(i), sb);
+                    break;
+                default:
+                    sb.append("null");
+            }
+        }
+        sb.append(']');
+    }
+
+    private static StringBuilder acquire() {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        return sb;
+    }
+
+    private static String release(StringBuilder sb) {
+        String json = sb.toString();
+        if (sb.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.set(new StringBuilder(256));
+        }
+        return json;
+    }
+}
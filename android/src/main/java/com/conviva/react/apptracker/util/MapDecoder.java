@@ -0,0 +1,86 @@
+package com.conviva.react.apptracker.util;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decodes the optional fields of a ReadableMap into a builder or event in a
+ * single pass.
+ *
+ * Instead of probing every known field with hasKey/isNull/get, the map's
+ * own keys are walked once and each is dispatched through a precomputed
+ * field table; keys without an entry are skipped, as are null values.
+ * Required fields are read by the caller before the target is constructed.
+ *
+ * Every decoder records how often it ran and for how long; a decoder whose
+ * fields decode nested maps (order items) includes their time in its own.
+ */
+public final class MapDecoder<T> {
+
+    public interface Field<T> {
+        void decode(T target, ReadableMap map, String key);
+    }
+
+    private static final List<MapDecoder<?>> decoders = new CopyOnWriteArrayList<>();
+
+    private final String type;
+    private final HashMap<String, Field<T>> fields = new HashMap<>();
+
+    private final AtomicLong decodes = new AtomicLong();
+    private final AtomicLong decodeNanos = new AtomicLong();
+
+    public MapDecoder(String type) {
+        this.type = type;
+        decoders.add(this);
+    }
+
+    /**
+     * Adds a field to the table. Only to be called while the decoder is
+     * being set up.
+     */
+    public MapDecoder<T> field(String key, Field<T> field) {
+        fields.put(key, field);
+        return this;
+    }
+
+    public T decode(ReadableMap map, T target) {
+        long start = System.nanoTime();
+        ReadableMapKeySetIterator it = map.keySetIterator();
+        while (it.hasNextKey()) {
+            String key = it.nextKey();
+            Field<T> field = fields.get(key);
+            if (field != null && map.getType(key) != ReadableType.Null) {
+                field.decode(target, map, key);
+            }
+        }
+        decodes.incrementAndGet();
+        decodeNanos.addAndGet(System.nanoTime() - start);
+        return target;
+    }
+
+    /**
+     * Returns one map per decoder type with its decode count and times.
+     */
+    public static WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        for (MapDecoder<?> decoder : decoders) {
+            long count = decoder.decodes.get();
+            long nanos = decoder.decodeNanos.get();
+            WritableMap stats = Arguments.createMap();
+            stats.putDouble("decodes", count);
+            stats.putDouble("totalMs", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+            stats.putDouble("averageMicros", count == 0 ? 0 : nanos / (double) count / TimeUnit.MICROSECONDS.toNanos(1));
+            map.putMap(decoder.type, stats);
+        }
+        return map;
+    }
+}
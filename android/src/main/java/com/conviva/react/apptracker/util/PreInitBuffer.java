@@ -0,0 +1,250 @@
+package com.conviva.react.apptracker.util;
+
+import androidx.annotation.Nullable;
+
+import com.conviva.apptracker.controller.TrackerController;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parks tracking work that arrives while its tracker does not exist yet.
+ *
+ * Parked tasks keep their capture time and are replayed in arrival order
+ * once createTracker creates their namespace; tasks without a namespace
+ * wait for the default tracker. While a namespace has parked tasks, newer
+ * ones for it are parked behind them so order is kept. The buffer is
+ * bounded: a task that does not fit is refused (and fails as before), and
+ * tasks older than the age limit are discarded.
+ */
+public class PreInitBuffer {
+
+    public static final int DEFAULT_CAPACITY = 100;
+    public static final long DEFAULT_MAX_AGE_MS = 30000;
+    public static final String EXPIRED_MESSAGE = "TrackerController is null, buffered event expired";
+
+    public interface Task {
+        /**
+         * Runs against the tracker; capturedAt is null when the task was
+         * not parked.
+         */
+        void run(TrackerController trackerController, @Nullable Long capturedAt) throws Exception;
+    }
+
+    public interface OnDiscard {
+        void discarded(String message);
+    }
+
+    public static final class Parked {
+        final String namespace;
+        final long capturedAt;
+        final Task task;
+        final OnDiscard onDiscard;
+
+        Parked(String namespace, long capturedAt, Task task, OnDiscard onDiscard) {
+            this.namespace = namespace;
+            this.capturedAt = capturedAt;
+            this.task = task;
+            this.onDiscard = onDiscard;
+        }
+
+        @Nullable
+        public String getNamespace() {
+            return namespace;
+        }
+    }
+
+    private final ArrayDeque<Parked> parked = new ArrayDeque<>();
+    private final Map<String, Integer> pendingByNamespace = new HashMap<>();
+    private volatile int size;
+
+    private boolean enabled = true;
+    private int capacity = DEFAULT_CAPACITY;
+    private long maxAgeMs = DEFAULT_MAX_AGE_MS;
+    private ScheduledFuture<?> sweepTask;
+
+    private final AtomicLong parkedTotal = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public synchronized void configure(boolean enabled, int capacity, long maxAgeMs) {
+        this.enabled = enabled;
+        this.capacity = Math.max(1, capacity);
+        this.maxAgeMs = Math.max(1000, maxAgeMs);
+        if (sweepTask != null) {
+            sweepTask.cancel(false);
+            sweepTask = null;
+            scheduleSweep();
+        }
+    }
+
+    /**
+     * Whether tasks for the namespace are parked and newer ones must queue
+     * behind them.
+     */
+    public boolean hasPending(@Nullable String namespace) {
+        if (size == 0) {
+            return false;
+        }
+        synchronized (this) {
+            return pendingByNamespace.containsKey(namespace);
+        }
+    }
+
+    /**
+     * Parks the task and returns true, or returns false when the buffer is
+     * disabled or full.
+     */
+    public boolean park(@Nullable String namespace, Task task, OnDiscard onDiscard) {
+        List<Parked> stale;
+        boolean accepted;
+        synchronized (this) {
+            stale = removeExpired(System.currentTimeMillis());
+            if (!enabled) {
+                accepted = false;
+            } else if (parked.size() >= capacity) {
+                overflowed.incrementAndGet();
+                accepted = false;
+            } else {
+                parked.addLast(new Parked(namespace, System.currentTimeMillis(), task, onDiscard));
+                Integer pending = pendingByNamespace.get(namespace);
+                pendingByNamespace.put(namespace, pending == null ? 1 : pending + 1);
+                size = parked.size();
+                parkedTotal.incrementAndGet();
+                scheduleSweep();
+                accepted = true;
+            }
+        }
+        discard(stale, EXPIRED_MESSAGE);
+        return accepted;
+    }
+
+    /**
+     * Removes and returns, in arrival order, the tasks for the namespace and
+     * those without one.
+     */
+    public List<Parked> drain(@Nullable String namespace) {
+        List<Parked> stale;
+        List<Parked> drained = new ArrayList<>();
+        synchronized (this) {
+            stale = removeExpired(System.currentTimeMillis());
+            Iterator<Parked> it = parked.iterator();
+            while (it.hasNext()) {
+                Parked entry = it.next();
+                if (entry.namespace == null || Objects.equals(entry.namespace, namespace)) {
+                    it.remove();
+                    release(entry);
+                    drained.add(entry);
+                }
+            }
+            size = parked.size();
+        }
+        discard(stale, EXPIRED_MESSAGE);
+        return drained;
+    }
+
+    /**
+     * Runs a drained task with its capture time, or discards it when its
+     * tracker is still missing.
+     */
+    public void replay(Parked entry, @Nullable TrackerController trackerController) {
+        if (trackerController == null) {
+            failed.incrementAndGet();
+            notifyDiscard(entry, "TrackerController is null");
+            return;
+        }
+        try {
+            entry.task.run(trackerController, entry.capturedAt);
+            replayed.incrementAndGet();
+        } catch (Throwable t) {
+            failed.incrementAndGet();
+            notifyDiscard(entry, t.getMessage());
+        }
+    }
+
+    public WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        map.putBoolean("enabled", enabled);
+        map.putInt("size", size);
+        map.putDouble("parked", parkedTotal.get());
+        map.putDouble("replayed", replayed.get());
+        map.putDouble("expired", expired.get());
+        map.putDouble("overflowed", overflowed.get());
+        map.putDouble("failed", failed.get());
+        return map;
+    }
+
+    // Must be called with the lock held.
+    private List<Parked> removeExpired(long now) {
+        List<Parked> stale = null;
+        while (!parked.isEmpty() && now - parked.peekFirst().capturedAt > maxAgeMs) {
+            Parked entry = parked.removeFirst();
+            release(entry);
+            if (stale == null) {
+                stale = new ArrayList<>();
+            }
+            stale.add(entry);
+        }
+        size = parked.size();
+        return stale;
+    }
+
+    // Must be called with the lock held.
+    private void release(Parked entry) {
+        Integer pending = pendingByNamespace.get(entry.namespace);
+        if (pending == null || pending <= 1) {
+            pendingByNamespace.remove(entry.namespace);
+        } else {
+            pendingByNamespace.put(entry.namespace, pending - 1);
+        }
+    }
+
+    // Must be called with the lock held.
+    private void scheduleSweep() {
+        if (sweepTask == null) {
+            sweepTask = SharedScheduler.get().scheduleWithFixedDelay(this::sweep, maxAgeMs, maxAgeMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void sweep() {
+        List<Parked> stale;
+        synchronized (this) {
+            stale = removeExpired(System.currentTimeMillis());
+            if (parked.isEmpty() && sweepTask != null) {
+                sweepTask.cancel(false);
+                sweepTask = null;
+            }
+        }
+        discard(stale, EXPIRED_MESSAGE);
+    }
+
+    private void discard(List<Parked> entries, String message) {
+        if (entries == null) {
+            return;
+        }
+        for (Parked entry : entries) {
+            expired.incrementAndGet();
+            notifyDiscard(entry, message);
+        }
+    }
+
+    private static void notifyDiscard(Parked entry, String message) {
+        try {
+            entry.onDiscard.discarded(message);
+        } catch (Throwable ignored) {
+            // A settled promise must not break the replay of others
+        }
+    }
+}
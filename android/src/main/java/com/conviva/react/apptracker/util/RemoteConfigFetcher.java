@@ -0,0 +1,316 @@
+package com.conviva.react.apptracker.util;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Fetches the remoteConfig endpoint with HTTP validation and keeps the
+ * document in a persisted cache.
+ *
+ * A document younger than the TTL is served without a request. An older one
+ * is still served for the stale-while-revalidate window while a conditional
+ * GET (If-None-Match with the stored ETag, If-Modified-Since with the
+ * stored Last-Modified) runs in the background; past that window nothing is
+ * served until the revalidation completes. A 304 only renews the document's
+ * age. The document and its validators survive restarts, so a launch within
+ * the TTL sends no request at all.
+ *
+ * At most one request is in flight. It runs on the given executor, which
+ * also reads and writes the cache, so that executor must tolerate blocking
+ * tasks; get() only ever serves the in-memory copy and returns null until
+ * configure's preload of the persisted cache has completed. The listener is
+ * called after a full fetch returned a document different from the cached
+ * one.
+ */
+public class RemoteConfigFetcher {
+
+    public static final long DEFAULT_TTL_MS = 600000;
+    public static final long DEFAULT_STALE_WHILE_REVALIDATE_MS = 86400000;
+
+    private static final String BODY_FILE = "remote-config.json";
+    private static final String META_FILE = "remote-config-meta.json";
+
+    /**
+     * Receives a newly fetched document on the fetching thread.
+     */
+    public interface Listener {
+        void onUpdated(String json);
+    }
+
+    private static final class Entry {
+        final String body;
+        @Nullable
+        final String etag;
+        @Nullable
+        final String lastModified;
+        final long fetchedAt;
+
+        Entry(String body, @Nullable String etag, @Nullable String lastModified, long fetchedAt) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    private final OkHttpClient client;
+    private final Executor executor;
+    private final Listener listener;
+
+    // Guarded by this
+    private File directory;
+    private String endpoint;
+    private long ttlMs = DEFAULT_TTL_MS;
+    private long staleWhileRevalidateMs = DEFAULT_STALE_WHILE_REVALIDATE_MS;
+    private Entry entry;
+    private boolean loaded;
+
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong fullFetches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public RemoteConfigFetcher(OkHttpClient client, Executor executor, Listener listener) {
+        this.client = client;
+        this.executor = executor;
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the endpoint and cache policy; a null endpoint disables fetching.
+     * The cache in the directory is kept only if it was fetched from the
+     * same endpoint.
+     */
+    public void configure(File directory, @Nullable String endpoint, long ttlMs, long staleWhileRevalidateMs) {
+        boolean preload;
+        synchronized (this) {
+            if (!same(endpoint, this.endpoint) || !directory.equals(this.directory)) {
+                entry = null;
+                loaded = false;
+            }
+            this.directory = directory;
+            this.endpoint = endpoint;
+            this.ttlMs = Math.max(0, ttlMs);
+            this.staleWhileRevalidateMs = Math.max(0, staleWhileRevalidateMs);
+            preload = endpoint != null && !loaded;
+        }
+        if (preload) {
+            try {
+                executor.execute(this::load);
+            } catch (Throwable ignored) {
+                // The first fetch loads the cache instead.
+            }
+        }
+    }
+
+    public synchronized boolean isConfigured() {
+        return endpoint != null;
+    }
+
+    /**
+     * Returns the cached document if it may be served, starting a
+     * revalidation when it is older than the TTL; null when there is no
+     * usable document yet. Never blocks on the network or the disk.
+     */
+    @Nullable
+    public String get() {
+        Entry current;
+        boolean serve;
+        synchronized (this) {
+            if (endpoint == null) {
+                return null;
+            }
+            current = entry;
+            long age = current == null ? Long.MAX_VALUE : System.currentTimeMillis() - current.fetchedAt;
+            if (current != null && age >= 0 && age < ttlMs) {
+                hits.incrementAndGet();
+                return current.body;
+            }
+            serve = current != null && age >= 0 && age - ttlMs < staleWhileRevalidateMs;
+        }
+        (serve ? staleHits : misses).incrementAndGet();
+        revalidate();
+        return serve ? current.body : null;
+    }
+
+    public WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        synchronized (this) {
+            map.putBoolean("configured", endpoint != null);
+            map.putDouble("ttlMs", ttlMs);
+            map.putDouble("staleWhileRevalidateMs", staleWhileRevalidateMs);
+            map.putDouble("fetchedAt", entry == null ? 0 : entry.fetchedAt);
+            map.putBoolean("hasEtag", entry != null && entry.etag != null);
+        }
+        map.putDouble("hits", hits.get());
+        map.putDouble("staleHits", staleHits.get());
+        map.putDouble("misses", misses.get());
+        map.putDouble("notModified", notModified.get());
+        map.putDouble("fullFetches", fullFetches.get());
+        map.putDouble("failures", failures.get());
+        return map;
+    }
+
+    private void revalidate() {
+        if (!revalidating.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    fetch();
+                } finally {
+                    revalidating.set(false);
+                }
+            });
+        } catch (Throwable t) {
+            revalidating.set(false);
+        }
+    }
+
+    private void fetch() {
+        load();
+        String url;
+        Entry cached;
+        long ttl;
+        synchronized (this) {
+            url = endpoint;
+            cached = entry;
+            ttl = ttlMs;
+        }
+        if (url == null) {
+            return;
+        }
+        long age = cached == null ? Long.MAX_VALUE : System.currentTimeMillis() - cached.fetchedAt;
+        if (age >= 0 && age < ttl) {
+            // Requested before the preload found a fresh document
+            return;
+        }
+        try {
+            Request.Builder request = new Request.Builder().url(url).get();
+            if (cached != null && cached.etag != null) {
+                request.header("If-None-Match", cached.etag);
+            }
+            if (cached != null && cached.lastModified != null) {
+                request.header("If-Modified-Since", cached.lastModified);
+            }
+            Response response = client.newCall(request.build()).execute();
+            try {
+                long now = System.currentTimeMillis();
+                if (response.code() == 304 && cached != null) {
+                    notModified.incrementAndGet();
+                    store(url, new Entry(cached.body, cached.etag, cached.lastModified, now), false);
+                    return;
+                }
+                ResponseBody body = response.body();
+                if (!response.isSuccessful() || body == null) {
+                    failures.incrementAndGet();
+                    return;
+                }
+                String json = body.string();
+                fullFetches.incrementAndGet();
+                store(url, new Entry(json, response.header("ETag"), response.header("Last-Modified"), now), true);
+                if (cached == null || !json.equals(cached.body)) {
+                    listener.onUpdated(json);
+                }
+            } finally {
+                response.close();
+            }
+        } catch (Throwable t) {
+            // The cached document, if any, stays in use.
+            failures.incrementAndGet();
+        }
+    }
+
+    private void store(String url, Entry fetched, boolean bodyChanged) {
+        File target;
+        synchronized (this) {
+            if (!url.equals(endpoint)) {
+                // Reconfigured while the request ran
+                return;
+            }
+            entry = fetched;
+            target = directory;
+        }
+        try {
+            if (!target.isDirectory() && !target.mkdirs()) {
+                return;
+            }
+            if (bodyChanged) {
+                ConfigSnapshot.writeAtomically(new File(target, BODY_FILE), fetched.body);
+            }
+            JsonSimpleWriter.Members meta = new JsonSimpleWriter.Members();
+            JsonSimpleWriter.writeString(url, meta.value("endpoint"));
+            if (fetched.etag != null) {
+                JsonSimpleWriter.writeString(fetched.etag, meta.value("etag"));
+            }
+            if (fetched.lastModified != null) {
+                JsonSimpleWriter.writeString(fetched.lastModified, meta.value("lastModified"));
+            }
+            meta.value("fetchedAt").append(fetched.fetchedAt);
+            ConfigSnapshot.writeAtomically(new File(target, META_FILE), meta.toJSONString());
+        } catch (Throwable ignored) {
+            // The in-memory copy is used until the next launch refetches.
+        }
+    }
+
+    // Runs on the executor; reads the persisted cache once per configuration
+    // without holding the lock.
+    private void load() {
+        File source;
+        String url;
+        synchronized (this) {
+            if (loaded || endpoint == null) {
+                return;
+            }
+            source = directory;
+            url = endpoint;
+        }
+        Entry persisted = null;
+        try {
+            String meta = ConfigSnapshot.read(new File(source, META_FILE));
+            String body = ConfigSnapshot.read(new File(source, BODY_FILE));
+            if (meta != null && body != null) {
+                JSONObject json = new JSONObject(meta);
+                if (url.equals(json.optString("endpoint"))) {
+                    persisted = new Entry(body, json.has("etag") ? json.getString("etag") : null,
+                            json.has("lastModified") ? json.getString("lastModified") : null, json.optLong("fetchedAt", 0));
+                }
+            }
+        } catch (Throwable ignored) {
+            // An unreadable cache is refetched.
+        }
+        synchronized (this) {
+            if (loaded || !url.equals(endpoint) || !source.equals(directory)) {
+                // Reconfigured while reading
+                return;
+            }
+            loaded = true;
+            if (entry == null) {
+                entry = persisted;
+            }
+        }
+    }
+
+    private static boolean same(@Nullable String a, @Nullable String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
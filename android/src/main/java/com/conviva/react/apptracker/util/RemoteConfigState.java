@@ -0,0 +1,164 @@
+package com.conviva.react.apptracker.util;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * One applied remote configuration, parsed once and never modified.
+ *
+ * Native gates read the fields they need from the current state instead of
+ * parsing the JSON again. The sections are the top-level members of the
+ * bundle the RN tracker uses (the "CAT" bundle, or the first one), kept as
+ * JSON text for change detection and as maps for JS; the maps are shared
+ * and must not be modified.
+ */
+public final class RemoteConfigState {
+
+    public static final String DEFAULT_BUNDLE_NAMESPACE = "CAT";
+
+    public static final RemoteConfigState EMPTY = new RemoteConfigState(0, null,
+            Collections.<String, String>emptyMap(), Collections.<String, Object>emptyMap(),
+            Collections.<String, EventQuota.Limit>emptyMap(), Collections.<String, Map<String, EventQuota.Limit>>emptyMap());
+
+    public final long version;
+    public final String json;
+    // Section name -> JSON text, for diffing
+    public final Map<String, String> sectionJson;
+    // Section name -> parsed value (maps, lists, doubles, strings, booleans)
+    public final Map<String, Object> sections;
+    // collectionRateLimit of the default bundle, and of every namespaced one
+    public final Map<String, EventQuota.Limit> defaultLimits;
+    public final Map<String, Map<String, EventQuota.Limit>> limitsByNamespace;
+
+    private RemoteConfigState(long version, String json, Map<String, String> sectionJson, Map<String, Object> sections,
+                              Map<String, EventQuota.Limit> defaultLimits, Map<String, Map<String, EventQuota.Limit>> limitsByNamespace) {
+        this.version = version;
+        this.json = json;
+        this.sectionJson = sectionJson;
+        this.sections = sections;
+        this.defaultLimits = defaultLimits;
+        this.limitsByNamespace = limitsByNamespace;
+    }
+
+    public static RemoteConfigState parse(String json, long version) throws JSONException {
+        JSONObject root = new JSONObject(json);
+        JSONArray bundles = root.optJSONArray("configurationBundle");
+        JSONObject selected = null;
+        Map<String, EventQuota.Limit> defaultLimits = Collections.emptyMap();
+        Map<String, Map<String, EventQuota.Limit>> byNamespace = new HashMap<>();
+        for (int i = 0; bundles != null && i < bundles.length(); i++) {
+            JSONObject bundle = bundles.optJSONObject(i);
+            if (bundle == null) {
+                continue;
+            }
+            Map<String, EventQuota.Limit> limits = parseCollectionRateLimit(bundle.optJSONObject("collectionRateLimit"));
+            String namespace = bundle.optString("namespace", "");
+            if (selected == null || DEFAULT_BUNDLE_NAMESPACE.equals(namespace)) {
+                if (selected == null || !DEFAULT_BUNDLE_NAMESPACE.equals(selected.optString("namespace", ""))) {
+                    selected = bundle;
+                    defaultLimits = limits;
+                }
+            }
+            if (!namespace.isEmpty() && !byNamespace.containsKey(namespace)) {
+                byNamespace.put(namespace, Collections.unmodifiableMap(limits));
+            }
+        }
+
+        Map<String, String> sectionJson = new HashMap<>();
+        Map<String, Object> sections = new HashMap<>();
+        if (selected != null) {
+            Iterator<String> keys = selected.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                Object value = selected.get(key);
+                sectionJson.put(key, value.toString());
+                sections.put(key, ConfigSnapshot.toValue(value));
+            }
+        }
+        return new RemoteConfigState(version, json, Collections.unmodifiableMap(sectionJson), Collections.unmodifiableMap(sections),
+                Collections.unmodifiableMap(defaultLimits), Collections.unmodifiableMap(byNamespace));
+    }
+
+    /**
+     * The same state and version for a payload that did not change anything
+     * (or could not be parsed), so it is not compared again.
+     */
+    static RemoteConfigState withJson(RemoteConfigState state, String json) {
+        return new RemoteConfigState(state.version, json, state.sectionJson, state.sections,
+                state.defaultLimits, state.limitsByNamespace);
+    }
+
+    /**
+     * Whether both states carry the same collectionRateLimit rules, for the
+     * default bundle and for every namespaced one.
+     */
+    boolean sameLimits(RemoteConfigState other) {
+        if (!sameLimits(defaultLimits, other.defaultLimits) || !limitsByNamespace.keySet().equals(other.limitsByNamespace.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, Map<String, EventQuota.Limit>> entry : limitsByNamespace.entrySet()) {
+            if (!sameLimits(entry.getValue(), other.limitsByNamespace.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameLimits(Map<String, EventQuota.Limit> a, Map<String, EventQuota.Limit> b) {
+        if (!a.keySet().equals(b.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, EventQuota.Limit> entry : a.entrySet()) {
+            if (!entry.getValue().sameAs(b.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The given sections as a bridge map; sections missing from this state
+     * are left out.
+     */
+    @SuppressWarnings("unchecked")
+    public WritableMap sectionsToWritableMap(Collection<String> names) {
+        Map<String, Object> selected = new HashMap<>();
+        for (String name : names) {
+            if (sections.containsKey(name)) {
+                selected.put(name, sections.get(name));
+            }
+        }
+        return Arguments.makeNativeMap(selected);
+    }
+
+    private static Map<String, EventQuota.Limit> parseCollectionRateLimit(JSONObject collectionRateLimit) {
+        if (collectionRateLimit == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, EventQuota.Limit> limits = new HashMap<>();
+        Iterator<String> keys = collectionRateLimit.keys();
+        while (keys.hasNext()) {
+            String eventType = keys.next();
+            JSONObject limit = collectionRateLimit.optJSONObject(eventType);
+            if (limit == null) {
+                continue;
+            }
+            long maxEvents = limit.optLong("maxEvents", 0);
+            long timeWindow = limit.optLong("timeWindow", 0);
+            if (maxEvents > 0 && timeWindow > 0) {
+                limits.put(eventType, new EventQuota.Limit(maxEvents, timeWindow));
+            }
+        }
+        return limits;
+    }
+}
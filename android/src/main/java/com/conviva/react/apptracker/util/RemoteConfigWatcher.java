@@ -0,0 +1,150 @@
+package com.conviva.react.apptracker.util;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the applied remote config as a parsed, versioned RemoteConfigState
+ * and pushes changes to listeners.
+ *
+ * The SDK has no callback for a newly applied config, so the watcher reads
+ * the applied JSON on a slow timer and whenever check() is called (tracker
+ * creation, host resume). The string comparison is the only per-check cost;
+ * a different payload is parsed once, given the next version and diffed
+ * section by section against the previous state. Listeners get the new
+ * state with the changed and removed section names, and are not called for
+ * a payload whose sections and rate limits are all unchanged. A change to
+ * the collectionRateLimit of another namespace's bundle gives a new version
+ * with no changed sections.
+ */
+public class RemoteConfigWatcher {
+
+    public static final long DEFAULT_POLL_INTERVAL_MS = 15000;
+
+    /**
+     * Receives each new state on the thread that noticed it.
+     */
+    public interface Listener {
+        void onChanged(RemoteConfigState state, List<String> changed, List<String> removed);
+    }
+
+    private final Callable<String> source;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile RemoteConfigState current = RemoteConfigState.EMPTY;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong parseFailures = new AtomicLong();
+    private long appliedAt;
+    private ScheduledFuture<?> pollTask;
+
+    public RemoteConfigWatcher(Callable<String> source) {
+        this.source = source;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Starts polling the source if no earlier call did.
+     */
+    public synchronized void start(long pollIntervalMs) {
+        if (pollTask != null) {
+            return;
+        }
+        long interval = Math.max(1000, pollIntervalMs);
+        pollTask = SharedScheduler.get().scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public RemoteConfigState current() {
+        return current;
+    }
+
+    /**
+     * Reads the applied config and publishes it if it differs from the
+     * current state. Never throws.
+     */
+    public void check() {
+        checks.incrementAndGet();
+        String json;
+        try {
+            json = source.call();
+        } catch (Throwable t) {
+            return;
+        }
+        if (json == null || json.equals(current.json)) {
+            return;
+        }
+
+        RemoteConfigState next;
+        List<String> changed = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        synchronized (this) {
+            RemoteConfigState previous = current;
+            if (json.equals(previous.json)) {
+                return;
+            }
+            try {
+                next = RemoteConfigState.parse(json, previous.version + 1);
+            } catch (Throwable t) {
+                // Schema drift must not disable tracking; keep the current state
+                // and do not retry the same payload.
+                parseFailures.incrementAndGet();
+                current = RemoteConfigState.withJson(previous, json);
+                return;
+            }
+            for (Map.Entry<String, String> section : next.sectionJson.entrySet()) {
+                if (!section.getValue().equals(previous.sectionJson.get(section.getKey()))) {
+                    changed.add(section.getKey());
+                }
+            }
+            for (String section : previous.sectionJson.keySet()) {
+                if (!next.sectionJson.containsKey(section)) {
+                    removed.add(section);
+                }
+            }
+            if (changed.isEmpty() && removed.isEmpty() && next.sameLimits(previous)) {
+                // Same bundle and rate limits, other bytes: keep the version
+                current = RemoteConfigState.withJson(previous, json);
+                return;
+            }
+            current = next;
+            appliedAt = System.currentTimeMillis();
+        }
+
+        List<String> changedView = Collections.unmodifiableList(changed);
+        List<String> removedView = Collections.unmodifiableList(removed);
+        for (Listener listener : listeners) {
+            try {
+                listener.onChanged(next, changedView, removedView);
+            } catch (Throwable ignored) {
+                // One listener must not keep the change from the others.
+            }
+        }
+    }
+
+    public WritableMap toWritableMap() {
+        RemoteConfigState state = current;
+        WritableMap map = Arguments.createMap();
+        map.putDouble("version", state.version);
+        map.putInt("sections", state.sections.size());
+        map.putDouble("checks", checks.get());
+        map.putDouble("parseFailures", parseFailures.get());
+        synchronized (this) {
+            map.putBoolean("polling", pollTask != null);
+            map.putDouble("appliedAt", appliedAt);
+        }
+        return map;
+    }
+}
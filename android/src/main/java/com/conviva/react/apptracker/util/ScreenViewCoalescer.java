@@ -0,0 +1,320 @@
+package com.conviva.react.apptracker.util;
+
+import androidx.annotation.Nullable;
+
+import com.conviva.apptracker.event.ScreenView;
+import com.conviva.apptracker.payload.SelfDescribingJson;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds screen views per tracker until navigation settles and tracks only
+ * the last one.
+ *
+ * A screen view is held for the settle window; a newer one for the same
+ * tracker within the window replaces it and restarts the window, up to
+ * maxHoldMs after the first was held. The emitted screen view is the last
+ * one, timestamped when it was tracked, with the previous-screen fields of
+ * the first (so it follows the last screen actually emitted) and a
+ * screen_view_coalesced context listing the skipped screen names.
+ * Any other event for the tracker emits the held screen view first, so it
+ * is never attributed to a screen the user has left.
+ *
+ * A held screen view keeps its spill-log entry until it is emitted, so it
+ * is replayed if the process dies within the window; a skipped one is
+ * acked when it is replaced. Until configured, and with a settle window of
+ * 0, every screen view is tracked directly.
+ */
+public class ScreenViewCoalescer {
+
+    public static final String COALESCED_SCHEMA = "iglu:com.conviva/screen_view_coalesced/jsonschema/1-0-0";
+
+    public static final long DEFAULT_SETTLE_MS = 300;
+    public static final long DEFAULT_MAX_HOLD_MS = 2000;
+    // Skipped names recorded per emitted screen view; further ones are only counted
+    public static final int MAX_SKIPPED_NAMES = 10;
+
+    /**
+     * Tracks an emitted screen view. Called with the coalescer's lock held,
+     * on the scheduler thread or on the thread that forced the flush.
+     */
+    public interface Sink {
+        void track(@Nullable String namespace, ScreenView event);
+    }
+
+    /**
+     * Acks a screen view's spill-log entry once it was emitted, skipped or
+     * discarded.
+     */
+    public interface Ack {
+        void ack(long spillId);
+    }
+
+    /**
+     * One screen view as tracked from JS, with its spill-log id
+     * (SpillLog.NOT_LOGGED for fire-and-forget calls). The id is validated
+     * when the screen is read, so a malformed one fails the track call.
+     */
+    public static final class Screen {
+        final String name;
+        @Nullable
+        final String id;
+        @Nullable
+        final String type;
+        @Nullable
+        final String previousName;
+        @Nullable
+        final String previousType;
+        @Nullable
+        final String previousId;
+        @Nullable
+        final String transitionType;
+        final List<SelfDescribingJson> contexts;
+        final long timestamp;
+        final long spillId;
+
+        public Screen(String name, @Nullable String id, @Nullable String type, @Nullable String previousName,
+                      @Nullable String previousType, @Nullable String previousId, @Nullable String transitionType,
+                      List<SelfDescribingJson> contexts, long timestamp, long spillId) {
+            this.name = Objects.requireNonNull(name, "name can't be null");
+            if (id != null) {
+                UUID.fromString(id);
+            }
+            this.id = id;
+            this.type = type;
+            this.previousName = previousName;
+            this.previousType = previousType;
+            this.previousId = previousId;
+            this.transitionType = transitionType;
+            this.contexts = contexts;
+            this.timestamp = timestamp;
+            this.spillId = spillId;
+        }
+
+        /**
+         * Reads a map-based track call: eventData with the ScreenViewProps
+         * and optional contexts.
+         */
+        public static Screen read(ReadableMap details, @Nullable Long capturedAt, @Nullable SelfDescribingJson sampleContext, long spillId) {
+            ReadableMap argmap = details.getMap("eventData");
+            List<SelfDescribingJson> contexts = new ArrayList<>();
+            if (details.hasKey("contexts") && !details.isNull("contexts")) {
+                contexts.addAll(EventUtil.createContexts(details.getArray("contexts")));
+            }
+            if (sampleContext != null) {
+                contexts.add(sampleContext);
+            }
+            return new Screen(argmap.getString("name"), optString(argmap, "id"), optString(argmap, "type"),
+                    optString(argmap, "previousName"), optString(argmap, "previousType"), optString(argmap, "previousId"),
+                    optString(argmap, "transitionType"), contexts, capturedAt != null ? capturedAt : System.currentTimeMillis(), spillId);
+        }
+
+        @Nullable
+        private static String optString(ReadableMap argmap, String key) {
+            return argmap.hasKey(key) ? argmap.getString(key) : null;
+        }
+    }
+
+    private static final class Pending {
+        @Nullable
+        final String namespace;
+        final Screen first;
+        final long heldAt;
+        Screen last;
+        final List<String> skippedNames = new ArrayList<>();
+        int skipped;
+        ScheduledFuture<?> flushTask;
+
+        Pending(@Nullable String namespace, Screen first, long heldAt) {
+            this.namespace = namespace;
+            this.first = first;
+            this.last = first;
+            this.heldAt = heldAt;
+        }
+    }
+
+    private final Sink sink;
+    private final Ack ack;
+
+    // Guarded by this
+    private long settleMs;
+    private long maxHoldMs = DEFAULT_MAX_HOLD_MS;
+    private final Map<String, Pending> pending = new HashMap<>();
+
+    // Lets events skip the lock while nothing is held
+    private volatile int held;
+
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong emitted = new AtomicLong();
+    private final AtomicLong forcedFlushes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public ScreenViewCoalescer(Sink sink, Ack ack) {
+        this.sink = sink;
+        this.ack = ack;
+    }
+
+    /**
+     * Sets the windows; held screen views are emitted when coalescing is
+     * turned off.
+     */
+    public synchronized void configure(long settleMs, long maxHoldMs) {
+        this.settleMs = Math.max(0, settleMs);
+        this.maxHoldMs = Math.max(this.settleMs, maxHoldMs);
+        if (this.settleMs == 0) {
+            flushAll();
+        }
+    }
+
+    public synchronized boolean isEnabled() {
+        return settleMs > 0;
+    }
+
+    /**
+     * Holds the screen view and returns true, or returns false when
+     * coalescing is off and the caller should track it.
+     */
+    public synchronized boolean offer(@Nullable String namespace, Screen screen) {
+        if (settleMs == 0) {
+            return false;
+        }
+        offered.incrementAndGet();
+        String key = key(namespace);
+        long now = System.currentTimeMillis();
+        Pending current = pending.get(key);
+        if (current == null) {
+            current = new Pending(namespace, screen, now);
+            pending.put(key, current);
+            held = pending.size();
+        } else {
+            current.flushTask.cancel(false);
+            if (current.skippedNames.size() < MAX_SKIPPED_NAMES) {
+                current.skippedNames.add(current.last.name);
+            }
+            current.skipped++;
+            ack.ack(current.last.spillId);
+            current.last = screen;
+            coalesced.incrementAndGet();
+        }
+        long delay = Math.min(settleMs, current.heldAt + maxHoldMs - now);
+        if (delay <= 0) {
+            remove(key);
+            emit(current);
+            return true;
+        }
+        Pending scheduled = current;
+        current.flushTask = SharedScheduler.get().schedule(() -> flushIfCurrent(key, scheduled), delay, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * Emits the tracker's held screen view, if any, before another event is
+     * tracked.
+     */
+    public void flush(@Nullable String namespace) {
+        if (held == 0) {
+            return;
+        }
+        synchronized (this) {
+            Pending current = remove(key(namespace));
+            if (current != null) {
+                current.flushTask.cancel(false);
+                forcedFlushes.incrementAndGet();
+                emit(current);
+            }
+        }
+    }
+
+    /**
+     * Drops the tracker's held screen view, for a removed tracker.
+     */
+    public synchronized void discard(@Nullable String namespace) {
+        Pending current = remove(key(namespace));
+        if (current != null) {
+            current.flushTask.cancel(false);
+            ack.ack(current.last.spillId);
+        }
+    }
+
+    public WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        synchronized (this) {
+            map.putDouble("settleMs", settleMs);
+            map.putDouble("maxHoldMs", maxHoldMs);
+            map.putInt("held", pending.size());
+        }
+        map.putDouble("offered", offered.get());
+        map.putDouble("coalesced", coalesced.get());
+        map.putDouble("emitted", emitted.get());
+        map.putDouble("forcedFlushes", forcedFlushes.get());
+        map.putDouble("failures", failures.get());
+        return map;
+    }
+
+    private synchronized void flushIfCurrent(String key, Pending scheduled) {
+        if (pending.get(key) == scheduled) {
+            remove(key);
+            emit(scheduled);
+        }
+    }
+
+    // Must be called with the lock held.
+    private void flushAll() {
+        List<Pending> all = new ArrayList<>(pending.values());
+        pending.clear();
+        held = 0;
+        for (Pending current : all) {
+            current.flushTask.cancel(false);
+            emit(current);
+        }
+    }
+
+    // Must be called with the lock held.
+    @Nullable
+    private Pending remove(String key) {
+        Pending current = pending.remove(key);
+        held = pending.size();
+        return current;
+    }
+
+    // Must be called with the lock held. A failed emit leaves the spill-log
+    // entry in place for the next launch to replay.
+    private void emit(Pending current) {
+        Screen last = current.last;
+        try {
+            ScreenView event = EventUtil.createScreenViewEvent(last.name, last.id, last.type, current.first.previousName,
+                    current.first.previousType, current.first.previousId, last.transitionType);
+            event.trueTimestamp(last.timestamp);
+            event.customContexts.addAll(last.contexts);
+            if (current.skipped > 0) {
+                Map<String, Object> data = new HashMap<>();
+                data.put("skipped", current.skipped);
+                data.put("skippedNames", Collections.unmodifiableList(current.skippedNames));
+                data.put("spanMs", last.timestamp - current.first.timestamp);
+                event.customContexts.add(new SelfDescribingJson(COALESCED_SCHEMA, Collections.unmodifiableMap(data)));
+            }
+            sink.track(current.namespace, event);
+            emitted.incrementAndGet();
+            ack.ack(last.spillId);
+        } catch (Throwable t) {
+            failures.incrementAndGet();
+        }
+    }
+
+    private static String key(@Nullable String namespace) {
+        return namespace == null ? "" : namespace;
+    }
+}
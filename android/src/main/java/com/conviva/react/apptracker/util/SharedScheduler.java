@@ -0,0 +1,34 @@
+package com.conviva.react.apptracker.util;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Single daemon thread for the module's periodic housekeeping (summary
+ * flushes and similar). Tasks must be short and must not block.
+ */
+public final class SharedScheduler {
+
+    private static volatile ScheduledExecutorService instance;
+
+    private SharedScheduler() {
+    }
+
+    public static ScheduledExecutorService get() {
+        ScheduledExecutorService scheduler = instance;
+        if (scheduler == null) {
+            synchronized (SharedScheduler.class) {
+                scheduler = instance;
+                if (scheduler == null) {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "conviva-rn-scheduler");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    instance = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+}
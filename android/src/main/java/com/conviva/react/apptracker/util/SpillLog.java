@@ -0,0 +1,546 @@
+package com.conviva.react.apptracker.util;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped log of events that were accepted from JS but
+ * not tracked yet.
+ *
+ * Every accepted event is appended before it is queued and acknowledged
+ * once it has been tracked or given up on, so events still on the heap when
+ * the process dies (crash, OOM kill) are found in the log on the next start
+ * and replayed. Records are written to memory-mapped segment files: once a
+ * record is in the mapping it survives the process, and reaches the disk
+ * with the page cache or on the configured fsync. Segments are deleted
+ * oldest first once none of their events is pending, so acknowledgements
+ * are never dropped ahead of the events they settle.
+ *
+ * Record layout: int length, int CRC32 of the body, then the body: byte
+ * kind, long id and, for appends, long capturedAt, namespace, event type
+ * and the event details as tagged values. The length is written last; a
+ * zero length ends a segment and a bad CRC ends recovery of it.
+ */
+public class SpillLog {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+    public static final long NOT_LOGGED = -1;
+
+    public enum Fsync {
+        NEVER("never"),
+        SEGMENT("segment"),
+        ALWAYS("always");
+
+        private final String value;
+
+        Fsync(String value) {
+            this.value = value;
+        }
+
+        public static Fsync fromString(String value) {
+            for (Fsync fsync : values()) {
+                if (fsync.value.equals(value)) {
+                    return fsync;
+                }
+            }
+            return SEGMENT;
+        }
+    }
+
+    /**
+     * A pending event recovered from a previous process.
+     */
+    public static final class Pending {
+        public final long id;
+        public final long capturedAt;
+        @Nullable
+        public final String namespace;
+        public final String eventType;
+        public final ReadableMap details;
+
+        Pending(long id, long capturedAt, @Nullable String namespace, String eventType, ReadableMap details) {
+            this.id = id;
+            this.capturedAt = capturedAt;
+            this.namespace = namespace;
+            this.eventType = eventType;
+            this.details = details;
+        }
+    }
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte APPEND = 1;
+    private static final byte ACK = 2;
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte NUMBER = 3;
+    private static final byte STRING = 4;
+    private static final byte MAP = 5;
+    private static final byte ARRAY = 6;
+
+    private static final class Segment {
+        final long sequence;
+        final File file;
+        final RandomAccessFile raf;
+        final MappedByteBuffer buffer;
+        int live;
+
+        Segment(long sequence, File file, RandomAccessFile raf, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.file = file;
+            this.raf = raf;
+            this.buffer = buffer;
+        }
+
+        void close() {
+            try {
+                raf.close();
+            } catch (IOException ignored) {
+                // The mapping stays valid until it is collected
+            }
+        }
+    }
+
+    private volatile File directory;
+    private int segmentSize = DEFAULT_SEGMENT_SIZE;
+    private Fsync fsync = Fsync.SEGMENT;
+
+    // sequence -> segment, oldest first; the last one is written to
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    // pending id -> sequence of the segment holding its append
+    private final HashMap<Long, Long> pendingSegment = new HashMap<>();
+    private long nextId = 1;
+
+    private ByteBuffer scratch = ByteBuffer.allocate(512);
+    private final CRC32 crc = new CRC32();
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong acked = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong fsyncs = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * Opens the log in the directory and returns the events a previous
+     * process left pending, in append order. They stay pending, rewritten
+     * into a fresh segment, until acknowledged; the old segments are
+     * deleted. Does nothing and returns an empty list if already open.
+     */
+    public synchronized List<Pending> open(File directory, int segmentSize, Fsync fsync) throws IOException {
+        if (this.directory != null) {
+            return new ArrayList<>();
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        this.segmentSize = Math.max(4096, segmentSize);
+        this.fsync = fsync;
+
+        File[] files = directory.listFiles();
+        TreeMap<Long, File> old = new TreeMap<>();
+        if (files != null) {
+            for (File file : files) {
+                long sequence = sequenceOf(file.getName());
+                if (sequence >= 0) {
+                    old.put(sequence, file);
+                }
+            }
+        }
+
+        LinkedHashMap<Long, Pending> pending = new LinkedHashMap<>();
+        for (File file : old.values()) {
+            recover(file, pending);
+        }
+
+        this.directory = directory;
+        long sequence = old.isEmpty() ? 0 : old.lastKey() + 1;
+        rotate(sequence);
+        List<Pending> result = new ArrayList<>(pending.values());
+        for (Pending entry : result) {
+            // Keep the original id so a late ack of it still matches
+            nextId = Math.max(nextId, entry.id + 1);
+            write(APPEND, entry.id, entry.capturedAt, entry.namespace, entry.eventType, entry.details);
+        }
+        force();
+        for (File file : old.values()) {
+            file.delete();
+        }
+        recovered.addAndGet(result.size());
+        return result;
+    }
+
+    public boolean isOpen() {
+        return directory != null;
+    }
+
+    /**
+     * Appends an event and returns its id, or NOT_LOGGED when the log is
+     * closed or the write failed.
+     */
+    public long append(@Nullable String namespace, String eventType, ReadableMap details, long capturedAt) {
+        if (directory == null) {
+            return NOT_LOGGED;
+        }
+        synchronized (this) {
+            long id = nextId++;
+            try {
+                write(APPEND, id, capturedAt, namespace, eventType, details);
+                appended.incrementAndGet();
+                return id;
+            } catch (Throwable t) {
+                errors.incrementAndGet();
+                return NOT_LOGGED;
+            }
+        }
+    }
+
+    /**
+     * Marks the event as settled; its segment is deleted once it and every
+     * older segment has no pending event left.
+     */
+    public void ack(long id) {
+        if (id == NOT_LOGGED) {
+            return;
+        }
+        synchronized (this) {
+            if (!pendingSegment.containsKey(id)) {
+                return;
+            }
+            try {
+                write(ACK, id, 0, null, null, null);
+                acked.incrementAndGet();
+            } catch (Throwable t) {
+                errors.incrementAndGet();
+            }
+            deleteSettledSegments();
+        }
+    }
+
+    public synchronized WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        map.putBoolean("open", directory != null);
+        map.putInt("segments", segments.size());
+        map.putInt("pending", pendingSegment.size());
+        map.putDouble("appended", appended.get());
+        map.putDouble("acked", acked.get());
+        map.putDouble("recovered", recovered.get());
+        map.putDouble("bytesWritten", bytesWritten.get());
+        map.putDouble("fsyncs", fsyncs.get());
+        map.putDouble("errors", errors.get());
+        return map;
+    }
+
+    // Must be called with the lock held.
+    private void write(byte kind, long id, long capturedAt, String namespace, String eventType, ReadableMap details) throws IOException {
+        scratch.clear();
+        scratch.position(HEADER_SIZE);
+        ensure(1 + 8);
+        scratch.put(kind);
+        scratch.putLong(id);
+        if (kind == APPEND) {
+            ensure(8);
+            scratch.putLong(capturedAt);
+            putString(namespace);
+            putString(eventType);
+            putMap(details);
+        }
+        int bodyLength = scratch.position() - HEADER_SIZE;
+        int recordLength = HEADER_SIZE + bodyLength;
+        if (recordLength + 4 > segmentSize) {
+            throw new IOException("Event too large for a segment");
+        }
+
+        Segment segment = segments.lastEntry().getValue();
+        if (segment.buffer.remaining() < recordLength + 4) {
+            // Leave the zero length behind the last record as end marker
+            if (fsync == Fsync.SEGMENT) {
+                segment.buffer.force();
+                fsyncs.incrementAndGet();
+            }
+            segment = rotate(segment.sequence + 1);
+        }
+
+        crc.reset();
+        crc.update(scratch.array(), HEADER_SIZE, bodyLength);
+        MappedByteBuffer out = segment.buffer;
+        int start = out.position();
+        out.position(start + 4);
+        out.putInt((int) crc.getValue());
+        out.put(scratch.array(), HEADER_SIZE, bodyLength);
+        int end = out.position();
+        out.putInt(start, bodyLength);
+        out.position(end);
+        bytesWritten.addAndGet(recordLength);
+
+        if (kind == APPEND) {
+            pendingSegment.put(id, segment.sequence);
+            segment.live++;
+        } else {
+            Long sequence = pendingSegment.remove(id);
+            Segment owner = sequence == null ? null : segments.get(sequence);
+            if (owner != null) {
+                owner.live--;
+            }
+        }
+        if (fsync == Fsync.ALWAYS) {
+            out.force();
+            fsyncs.incrementAndGet();
+        }
+    }
+
+    // Must be called with the lock held.
+    private Segment rotate(long sequence) throws IOException {
+        File file = new File(directory, SEGMENT_PREFIX + sequence + SEGMENT_SUFFIX);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(segmentSize);
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            Segment segment = new Segment(sequence, file, raf, buffer);
+            segments.put(sequence, segment);
+            return segment;
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    // Must be called with the lock held.
+    private void force() {
+        if (fsync != Fsync.NEVER) {
+            segments.lastEntry().getValue().buffer.force();
+            fsyncs.incrementAndGet();
+        }
+    }
+
+    // Must be called with the lock held.
+    private void deleteSettledSegments() {
+        Iterator<Segment> it = segments.values().iterator();
+        while (it.hasNext()) {
+            Segment segment = it.next();
+            if (segment.live > 0 || segment == segments.lastEntry().getValue()) {
+                return;
+            }
+            segment.close();
+            segment.file.delete();
+            it.remove();
+        }
+    }
+
+    private static void recover(File file, LinkedHashMap<Long, Pending> pending) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            ByteBuffer in = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            CRC32 check = new CRC32();
+            while (in.remaining() >= HEADER_SIZE) {
+                int bodyLength = in.getInt();
+                if (bodyLength <= 0 || bodyLength > in.remaining() - 4) {
+                    return;
+                }
+                int expected = in.getInt();
+                byte[] body = new byte[bodyLength];
+                in.get(body);
+                check.reset();
+                check.update(body, 0, bodyLength);
+                if ((int) check.getValue() != expected) {
+                    return;
+                }
+
+                ByteBuffer record = ByteBuffer.wrap(body);
+                byte kind = record.get();
+                long id = record.getLong();
+                if (kind == ACK) {
+                    pending.remove(id);
+                } else if (kind == APPEND) {
+                    long capturedAt = record.getLong();
+                    String namespace = getString(record);
+                    String eventType = getString(record);
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> details = (Map<String, Object>) getValue(record);
+                    pending.put(id, new Pending(id, capturedAt, namespace, eventType, Arguments.makeNativeMap(details)));
+                }
+            }
+        } catch (IOException | BufferUnderflowException | ClassCastException e) {
+            // Keep what was recovered before the damaged record
+        }
+    }
+
+    private static long sequenceOf(String name) {
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void ensure(int bytes) {
+        if (scratch.remaining() < bytes) {
+            int capacity = Math.max(scratch.capacity() * 2, scratch.position() + bytes);
+            ByteBuffer grown = ByteBuffer.wrap(Arrays.copyOf(scratch.array(), capacity));
+            grown.position(scratch.position());
+            scratch = grown;
+        }
+    }
+
+    private void putString(@Nullable String value) {
+        if (value == null) {
+            ensure(4);
+            scratch.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        ensure(4 + bytes.length);
+        scratch.putInt(bytes.length);
+        scratch.put(bytes);
+    }
+
+    private void putMap(ReadableMap map) {
+        int countPosition = scratch.position();
+        ensure(5);
+        scratch.put(MAP);
+        scratch.putInt(0);
+        int count = 0;
+        ReadableMapKeySetIterator it = map.keySetIterator();
+        while (it.hasNextKey()) {
+            String key = it.nextKey();
+            putString(key);
+            switch (map.getType(key)) {
+                case Boolean:
+                    ensure(1);
+                    scratch.put(map.getBoolean(key) ? TRUE : FALSE);
+                    break;
+                case Number:
+                    ensure(9);
+                    scratch.put(NUMBER);
+                    scratch.putDouble(map.getDouble(key));
+                    break;
+                case String:
+                    ensure(1);
+                    scratch.put(STRING);
+                    putString(map.getString(key));
+                    break;
+                case Map:
+                    putMap(map.getMap(key));
+                    break;
+                case Array:
+                    putArray(map.getArray(key));
+                    break;
+                default:
+                    ensure(1);
+                    scratch.put(NULL);
+            }
+            count++;
+        }
+        scratch.putInt(countPosition + 1, count);
+    }
+
+    private void putArray(ReadableArray array) {
+        ensure(5);
+        scratch.put(ARRAY);
+        scratch.putInt(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            switch (array.getType(i)) {
+                case Boolean:
+                    ensure(1);
+                    scratch.put(array.getBoolean(i) ? TRUE : FALSE);
+                    break;
+                case Number:
+                    ensure(9);
+                    scratch.put(NUMBER);
+                    scratch.putDouble(array.getDouble(i));
+                    break;
+                case String:
+                    ensure(1);
+                    scratch.put(STRING);
+                    putString(array.getString(i));
+                    break;
+                case Map:
+                    putMap(array.getMap(i));
+                    break;
+                case Array:
+                    putArray(array.getArray(i));
+                    break;
+                default:
+                    ensure(1);
+                    scratch.put(NULL);
+            }
+        }
+    }
+
+    @Nullable
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    // Maps and lists as Arguments.makeNativeMap expects them
+    @Nullable
+    private static Object getValue(ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case NUMBER:
+                return in.getDouble();
+            case STRING:
+                return getString(in);
+            case MAP: {
+                int count = in.getInt();
+                Map<String, Object> map = new HashMap<>();
+                for (int i = 0; i < count; i++) {
+                    String key = getString(in);
+                    map.put(key, getValue(in));
+                }
+                return map;
+            }
+            case ARRAY: {
+                int count = in.getInt();
+                List<Object> list = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    list.add(getValue(in));
+                }
+                return list;
+            }
+            default:
+                return null;
+        }
+    }
+}
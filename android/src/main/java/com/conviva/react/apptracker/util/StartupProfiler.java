@@ -0,0 +1,248 @@
+package com.conviva.react.apptracker.util;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+
+import com.conviva.apptracker.controller.TrackerController;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactMarker;
+import com.facebook.react.bridge.ReactMarkerConstants;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the React Native startup sequence from ReactMarker and reports it
+ * once as a conviva_startup_trace event.
+ *
+ * A single marker listener is installed per process, however many module
+ * instances ask for it. Markers are timed on the monotonic elapsed-realtime
+ * clock and paired into phases by name (first occurrence wins); native
+ * module creation is summed over all modules. The trace is complete at
+ * CONTENT_APPEARED and is tracked on the first tracker offered after that.
+ *
+ * Markers logged before install() are missed: installing from
+ * Application.onCreate (see RNConvivaTrackerModule.initFromSnapshot)
+ * covers the whole sequence, installing from the module constructor starts
+ * around native module creation.
+ */
+public final class StartupProfiler {
+
+    public static final String TRACE_EVENT = "conviva_startup_trace";
+
+    private static final String CONTENT_APPEARED = "CONTENT_APPEARED";
+    private static final String CREATE_MODULE_START = "CREATE_MODULE_START";
+    private static final String CREATE_MODULE_END = "CREATE_MODULE_END";
+    private static final int MAX_MARKERS = 64;
+
+    // Phase name, start marker, end marker. Marker names are matched as
+    // strings so constants missing from older React Native versions are
+    // simply never seen.
+    private static final String[][] PHASES = {
+            {"loadNativeLibraries", "LOAD_REACT_NATIVE_SO_FILE_START", "LOAD_REACT_NATIVE_SO_FILE_END"},
+            {"bridgeLoading", "REACT_BRIDGE_LOADING_START", "REACT_BRIDGE_LOADING_END"},
+            {"createReactContext", "CREATE_REACT_CONTEXT_START", "CREATE_REACT_CONTEXT_END"},
+            {"reactInstanceInit", "REACT_INSTANCE_INIT_START", "REACT_INSTANCE_INIT_END"},
+            {"processPackages", "PROCESS_PACKAGES_START", "PROCESS_PACKAGES_END"},
+            {"buildNativeModuleRegistry", "BUILD_NATIVE_MODULE_REGISTRY_START", "BUILD_NATIVE_MODULE_REGISTRY_END"},
+            {"createCatalystInstance", "CREATE_CATALYST_INSTANCE_START", "CREATE_CATALYST_INSTANCE_END"},
+            {"runJsBundle", "RUN_JS_BUNDLE_START", "RUN_JS_BUNDLE_END"},
+            {"setupReactContext", "SETUP_REACT_CONTEXT_START", "SETUP_REACT_CONTEXT_END"},
+            {"createUiManager", "CREATE_UI_MANAGER_MODULE_START", "CREATE_UI_MANAGER_MODULE_END"},
+            {"createViewManagers", "CREATE_VIEW_MANAGERS_START", "CREATE_VIEW_MANAGERS_END"},
+    };
+
+    /**
+     * Called once, on the marker's thread, when content first appears.
+     */
+    public interface ContentAppearedListener {
+        void onContentAppeared(long timestamp);
+    }
+
+    private static final StartupProfiler INSTANCE = new StartupProfiler();
+
+    private boolean installed;
+    private ContentAppearedListener listener;
+    private long installedAtNanos;
+    private final Map<String, Long> firstSeen = new HashMap<>();
+    private final List<String[]> markers = new ArrayList<>();
+    private final Map<String, Long> moduleStarts = new HashMap<>();
+    private long modulesCreated;
+    private long moduleCreationNanos;
+    private long contentAppearedNanos;
+    private long contentAppearedTimestamp;
+    private String trace;
+    private boolean reported;
+
+    private StartupProfiler() {
+    }
+
+    /**
+     * Installs the marker listener if no earlier call did; the first
+     * non-null content-appeared listener is kept.
+     */
+    public static void install(ContentAppearedListener listener) {
+        INSTANCE.doInstall(listener);
+    }
+
+    /**
+     * Wall-clock time content first appeared, or 0 before that.
+     */
+    public static long getContentAppearedTimestamp() {
+        synchronized (INSTANCE) {
+            return INSTANCE.contentAppearedTimestamp;
+        }
+    }
+
+    /**
+     * Tracks the trace on the tracker if it is complete and was not reported
+     * yet.
+     */
+    public static void report(TrackerController trackerController) {
+        String event;
+        synchronized (INSTANCE) {
+            if (INSTANCE.trace == null || INSTANCE.reported || trackerController == null) {
+                return;
+            }
+            INSTANCE.reported = true;
+            event = INSTANCE.trace;
+        }
+        try {
+            trackerController.trackCustomEvent(TRACE_EVENT, event);
+        } catch (Throwable t) {
+            synchronized (INSTANCE) {
+                INSTANCE.reported = false;
+            }
+        }
+    }
+
+    public static WritableMap toWritableMap() {
+        synchronized (INSTANCE) {
+            WritableMap map = Arguments.createMap();
+            map.putBoolean("installed", INSTANCE.installed);
+            map.putBoolean("complete", INSTANCE.trace != null);
+            map.putBoolean("reported", INSTANCE.reported);
+            WritableMap phases = Arguments.createMap();
+            for (Map.Entry<String, Double> phase : INSTANCE.phaseDurations().entrySet()) {
+                phases.putDouble(phase.getKey(), phase.getValue());
+            }
+            map.putMap("phasesMs", phases);
+            map.putInt("markers", INSTANCE.markers.size());
+            return map;
+        }
+    }
+
+    private synchronized void doInstall(ContentAppearedListener listener) {
+        if (this.listener == null) {
+            this.listener = listener;
+        }
+        if (installed) {
+            return;
+        }
+        installed = true;
+        installedAtNanos = SystemClock.elapsedRealtimeNanos();
+        ReactMarker.addListener(this::onMarker);
+    }
+
+    private void onMarker(ReactMarkerConstants name, String tag, int instanceKey) {
+        ContentAppearedListener notify = null;
+        long timestamp = 0;
+        synchronized (this) {
+            long now = SystemClock.elapsedRealtimeNanos();
+            String marker = name.name();
+            if (CREATE_MODULE_START.equals(marker)) {
+                moduleStarts.put(String.valueOf(tag), now);
+                return;
+            }
+            if (CREATE_MODULE_END.equals(marker)) {
+                Long start = moduleStarts.remove(String.valueOf(tag));
+                if (start != null) {
+                    modulesCreated++;
+                    moduleCreationNanos += now - start;
+                }
+                return;
+            }
+            if (firstSeen.containsKey(marker)) {
+                return;
+            }
+            firstSeen.put(marker, now);
+            if (markers.size() < MAX_MARKERS) {
+                markers.add(new String[]{marker, Long.toString(now)});
+            }
+            if (CONTENT_APPEARED.equals(marker)) {
+                contentAppearedNanos = now;
+                contentAppearedTimestamp = System.currentTimeMillis();
+                trace = traceJson();
+                notify = listener;
+                timestamp = contentAppearedTimestamp;
+            }
+        }
+        if (notify != null) {
+            try {
+                notify.onContentAppeared(timestamp);
+            } catch (Throwable ignored) {
+                // Profiling must never break React Native startup.
+            }
+        }
+    }
+
+    // Must be called with the lock held.
+    private Map<String, Double> phaseDurations() {
+        Map<String, Double> phases = new LinkedHashMap<>();
+        for (String[] phase : PHASES) {
+            Long start = firstSeen.get(phase[1]);
+            Long end = firstSeen.get(phase[2]);
+            if (start != null && end != null && end >= start) {
+                phases.put(phase[0], toMillis(end - start));
+            }
+        }
+        if (modulesCreated > 0) {
+            phases.put("createNativeModules", toMillis(moduleCreationNanos));
+        }
+        return phases;
+    }
+
+    // Must be called with the lock held.
+    private String traceJson() {
+        long origin = origin();
+        JsonSimpleWriter.Members event = new JsonSimpleWriter.Members();
+
+        JsonSimpleWriter.Members phases = new JsonSimpleWriter.Members();
+        for (Map.Entry<String, Double> phase : phaseDurations().entrySet()) {
+            JsonSimpleWriter.writeDouble(phase.getValue(), phases.value(phase.getKey()));
+        }
+        event.value("phases").append(phases.toJSONString());
+
+        JsonSimpleWriter.Members offsets = new JsonSimpleWriter.Members();
+        for (String[] marker : markers) {
+            JsonSimpleWriter.writeDouble(toMillis(Long.parseLong(marker[1]) - origin), offsets.value(marker[0]));
+        }
+        event.value("markers").append(offsets.toJSONString());
+
+        JsonSimpleWriter.writeDouble(toMillis(contentAppearedNanos - origin), event.value("timeToContentAppeared"));
+        JsonSimpleWriter.writeString(hasProcessStart() ? "processStart" : "profilerInstalled", event.value("origin"));
+        event.value("nativeModulesCreated").append(modulesCreated);
+        event.value("timestamp").append(contentAppearedTimestamp);
+        return event.toJSONString();
+    }
+
+    private long origin() {
+        if (hasProcessStart()) {
+            return Process.getStartElapsedRealtime() * 1000000L;
+        }
+        return installedAtNanos;
+    }
+
+    private static boolean hasProcessStart() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.N;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+}
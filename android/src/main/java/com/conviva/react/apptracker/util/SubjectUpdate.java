@@ -0,0 +1,120 @@
+package com.conviva.react.apptracker.util;
+
+import androidx.annotation.Nullable;
+
+import com.conviva.apptracker.controller.SubjectController;
+import com.conviva.apptracker.util.Size;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+/**
+ * The subject fields of one setSubjectData call, all read before any is
+ * applied, so a malformed field leaves the subject unchanged.
+ *
+ * Keys follow SubjectConfiguration (userId, networkUserId, domainUserId,
+ * ipAddress, useragent, timezone, language, screenResolution,
+ * screenViewport, colorDepth); absent keys are left alone and null values
+ * clear the field, as with the single-field setters.
+ */
+public final class SubjectUpdate implements Runnable {
+
+    private static final String[] STRING_FIELDS = {
+            "userId", "networkUserId", "domainUserId", "ipAddress", "useragent", "timezone", "language"
+    };
+
+    private final SubjectController subject;
+    // Present fields in STRING_FIELDS order; values may be null
+    private final boolean[] hasString = new boolean[STRING_FIELDS.length];
+    private final String[] strings = new String[STRING_FIELDS.length];
+    private boolean hasScreenResolution;
+    private Size screenResolution;
+    private boolean hasScreenViewport;
+    private Size screenViewport;
+    private boolean hasColorDepth;
+    private Integer colorDepth;
+
+    private SubjectUpdate(SubjectController subject) {
+        this.subject = subject;
+    }
+
+    /**
+     * Reads every present field; throws on a malformed one, before anything
+     * was applied.
+     */
+    public static SubjectUpdate read(SubjectController subject, ReadableMap details) {
+        SubjectUpdate update = new SubjectUpdate(subject);
+        for (int i = 0; i < STRING_FIELDS.length; i++) {
+            String key = STRING_FIELDS[i];
+            if (details.hasKey(key)) {
+                update.hasString[i] = true;
+                update.strings[i] = details.isNull(key) ? null : details.getString(key);
+            }
+        }
+        if (details.hasKey("screenResolution")) {
+            update.hasScreenResolution = true;
+            update.screenResolution = size(details, "screenResolution");
+        }
+        if (details.hasKey("screenViewport")) {
+            update.hasScreenViewport = true;
+            update.screenViewport = size(details, "screenViewport");
+        }
+        if (details.hasKey("colorDepth")) {
+            update.hasColorDepth = true;
+            update.colorDepth = details.isNull("colorDepth") ? null : details.getInt("colorDepth");
+        }
+        return update;
+    }
+
+    @Override
+    public void run() {
+        for (int i = 0; i < STRING_FIELDS.length; i++) {
+            if (hasString[i]) {
+                setString(i, strings[i]);
+            }
+        }
+        if (hasScreenResolution) {
+            subject.setScreenResolution(screenResolution);
+        }
+        if (hasScreenViewport) {
+            subject.setScreenViewPort(screenViewport);
+        }
+        if (hasColorDepth) {
+            subject.setColorDepth(colorDepth);
+        }
+    }
+
+    private void setString(int field, @Nullable String value) {
+        switch (field) {
+            case 0:
+                subject.setUserId(value);
+                break;
+            case 1:
+                subject.setNetworkUserId(value);
+                break;
+            case 2:
+                subject.setDomainUserId(value);
+                break;
+            case 3:
+                subject.setIpAddress(value);
+                break;
+            case 4:
+                subject.setUseragent(value);
+                break;
+            case 5:
+                subject.setTimezone(value);
+                break;
+            default:
+                subject.setLanguage(value);
+                break;
+        }
+    }
+
+    @Nullable
+    private static Size size(ReadableMap details, String key) {
+        if (details.isNull(key)) {
+            return null;
+        }
+        ReadableArray size = details.getArray(key);
+        return new Size(size.getInt(0), size.getInt(1));
+    }
+}
@@ -0,0 +1,141 @@
+package com.conviva.react.apptracker.util;
+
+import com.conviva.apptracker.ConvivaAppAnalytics;
+import com.conviva.apptracker.controller.TrackerController;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Caches namespace to TrackerController resolution.
+ *
+ * Resolved trackers live in an immutable snapshot published through a
+ * single volatile field, so a cached lookup is one volatile read and a map
+ * get plus a hit count on a per-thread stripe, with no timing on that path.
+ * Misses fall through to
+ * ConvivaAppAnalytics, are counted and timed as the lookup stage, and
+ * republish the snapshot; unresolved namespaces are not cached. The snapshot must be
+ * invalidated whenever trackers are created or removed; a lookup that raced
+ * with an invalidation is not published.
+ */
+public class TrackerResolver {
+
+    private static final class Snapshot {
+        final int generation;
+        final TrackerController defaultTracker;
+        final Map<String, TrackerController> byNamespace;
+
+        Snapshot(int generation, TrackerController defaultTracker, Map<String, TrackerController> byNamespace) {
+            this.generation = generation;
+            this.defaultTracker = defaultTracker;
+            this.byNamespace = byNamespace;
+        }
+    }
+
+    /**
+     * A hit counter striped by thread, so concurrent hits do not write the
+     * same cache line. LongAdder needs API 24.
+     */
+    private static final class StripedCounter {
+        private static final int STRIPES = 8;
+        // One counter per 64-byte line
+        private static final int PADDING = 8;
+
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+        void increment() {
+            int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+            cells.incrementAndGet(stripe * PADDING);
+        }
+
+        long sum() {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += cells.get(i * PADDING);
+            }
+            return sum;
+        }
+    }
+
+    private volatile Snapshot snapshot = new Snapshot(0, null, Collections.<String, TrackerController>emptyMap());
+
+    private final StripedCounter hits = new StripedCounter();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Returns the tracker for the namespace, or the default tracker when the
+     * namespace is null. Returns null if no such tracker exists.
+     */
+    public TrackerController resolve(String namespace) {
+        Snapshot current = snapshot;
+        TrackerController trackerController = namespace == null ? current.defaultTracker : current.byNamespace.get(namespace);
+        if (trackerController != null) {
+            hits.increment();
+            return trackerController;
+        }
+        long started = BridgeMetrics.start();
+        misses.incrementAndGet();
+
+        trackerController = namespace == null ? ConvivaAppAnalytics.getDefaultTracker() : ConvivaAppAnalytics.getTracker(namespace);
+        if (trackerController != null) {
+            publish(current.generation, namespace, trackerController);
+        }
+        BridgeMetrics.endStage(BridgeMetrics.LOOKUP, started);
+        return trackerController;
+    }
+
+    /**
+     * Returns the tracker for the namespace, falling back to the default one.
+     */
+    public TrackerController resolveOrDefault(String namespace) {
+        TrackerController trackerController = resolve(namespace);
+        return trackerController != null ? trackerController : resolve(null);
+    }
+
+    /**
+     * Drops every cached tracker and eagerly re-resolves the default one.
+     */
+    public void invalidate() {
+        invalidations.incrementAndGet();
+        int generation;
+        synchronized (this) {
+            generation = snapshot.generation + 1;
+            snapshot = new Snapshot(generation, null, Collections.<String, TrackerController>emptyMap());
+        }
+        TrackerController defaultTracker = ConvivaAppAnalytics.getDefaultTracker();
+        if (defaultTracker != null) {
+            publish(generation, null, defaultTracker);
+        }
+    }
+
+    public WritableMap toWritableMap() {
+        Snapshot current = snapshot;
+        WritableMap map = Arguments.createMap();
+        map.putDouble("hits", hits.sum());
+        map.putDouble("misses", misses.get());
+        map.putDouble("invalidations", invalidations.get());
+        map.putBoolean("defaultResolved", current.defaultTracker != null);
+        map.putInt("cachedNamespaces", current.byNamespace.size());
+        return map;
+    }
+
+    private synchronized void publish(int generation, String namespace, TrackerController trackerController) {
+        Snapshot current = snapshot;
+        if (current.generation != generation) {
+            return;
+        }
+        if (namespace == null) {
+            snapshot = new Snapshot(generation, trackerController, current.byNamespace);
+        } else {
+            Map<String, TrackerController> byNamespace = new HashMap<>(current.byNamespace);
+            byNamespace.put(namespace, trackerController);
+            snapshot = new Snapshot(generation, current.defaultTracker, Collections.unmodifiableMap(byNamespace));
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.conviva.react.apptracker.util;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Single-threaded bounded queue that runs event construction and tracking
+ * off the shared native-modules thread.
+ *
+ * Tasks run in submission order. When the queue is full the configured
+ * policy applies: BLOCK waits for room, DROP_OLDEST evicts the head of the
+ * queue and DROP_NEWEST discards the incoming task. A dropped task's
+ * onDropped callback runs on the submitting thread so its promise can be
+ * rejected. Control jobs, such as the replay of parked or spilled events,
+ * are never dropped: they are queued even past the capacity, and
+ * DROP_OLDEST evicts the oldest ordinary job instead. When disabled, tasks run inline on the caller once the worker
+ * has finished the tasks queued before; until then they are still queued,
+ * whatever the capacity, so submission order holds across the switch.
+ */
+public class TrackingExecutor {
+
+    public static final int DEFAULT_CAPACITY = 1000;
+    public static final String DROPPED_MESSAGE = "Tracking queue is full, event dropped";
+
+    public enum Policy {
+        BLOCK("block"),
+        DROP_OLDEST("dropOldest"),
+        DROP_NEWEST("dropNewest");
+
+        private final String value;
+
+        Policy(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static Policy fromString(String value) {
+            for (Policy policy : values()) {
+                if (policy.value.equals(value)) {
+                    return policy;
+                }
+            }
+            return BLOCK;
+        }
+    }
+
+    private static final class Job {
+        final Runnable task;
+        final Runnable onDropped;
+        final boolean control;
+
+        Job(Runnable task, Runnable onDropped, boolean control) {
+            this.task = task;
+            this.onDropped = onDropped;
+            this.control = control;
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<Job> queue = new ArrayDeque<>();
+
+    private boolean enabled = true;
+    private int capacity = DEFAULT_CAPACITY;
+    private Policy policy = Policy.BLOCK;
+    private Thread worker;
+    // The worker is running a job it took from the queue
+    private boolean busy;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong droppedOldest = new AtomicLong();
+    private final AtomicLong droppedNewest = new AtomicLong();
+
+    public void configure(boolean enabled, int capacity, Policy policy) {
+        lock.lock();
+        try {
+            this.enabled = enabled;
+            this.capacity = Math.max(1, capacity);
+            this.policy = policy;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void execute(Runnable task, Runnable onDropped) {
+        execute(new Job(task, onDropped, false));
+    }
+
+    /**
+     * Queues a job the overflow policy must not drop.
+     */
+    public void executeControl(Runnable task) {
+        execute(new Job(task, null, true));
+    }
+
+    private void execute(Job job) {
+        submitted.incrementAndGet();
+        Job dropped = null;
+        boolean inline = false;
+
+        lock.lock();
+        try {
+            if (!enabled && queue.isEmpty() && !busy) {
+                inline = true;
+            } else if (!enabled) {
+                queue.addLast(job);
+                notEmpty.signal();
+            } else {
+                if (queue.size() >= capacity) {
+                    switch (policy) {
+                        case DROP_NEWEST:
+                            if (!job.control) {
+                                droppedNewest.incrementAndGet();
+                                dropped = job;
+                            }
+                            break;
+                        case DROP_OLDEST:
+                            dropped = evictOldest();
+                            if (dropped != null) {
+                                droppedOldest.incrementAndGet();
+                            }
+                            break;
+                        default:
+                            if (job.control) {
+                                break;
+                            }
+                            blocked.incrementAndGet();
+                            while (enabled && queue.size() >= capacity) {
+                                notFull.awaitUninterruptibly();
+                            }
+                            break;
+                    }
+                }
+                if (dropped != job) {
+                    queue.addLast(job);
+                    ensureWorker();
+                    notEmpty.signal();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (inline) {
+            run(job.task);
+        }
+        if (dropped != null && dropped.onDropped != null) {
+            try {
+                dropped.onDropped.run();
+            } catch (Throwable ignored) {
+                // a drop callback must not take down the submitting thread
+            }
+        }
+    }
+
+    public WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        lock.lock();
+        try {
+            map.putBoolean("enabled", enabled);
+            map.putInt("capacity", capacity);
+            map.putString("policy", policy.getValue());
+            map.putInt("depth", queue.size());
+        } finally {
+            lock.unlock();
+        }
+        map.putDouble("submitted", submitted.get());
+        map.putDouble("executed", executed.get());
+        map.putDouble("failed", failed.get());
+        map.putDouble("blocked", blocked.get());
+        map.putDouble("droppedOldest", droppedOldest.get());
+        map.putDouble("droppedNewest", droppedNewest.get());
+        return map;
+    }
+
+    // Must be called with the lock held. Returns null when only control jobs
+    // are queued.
+    private Job evictOldest() {
+        for (Iterator<Job> it = queue.iterator(); it.hasNext(); ) {
+            Job queued = it.next();
+            if (!queued.control) {
+                it.remove();
+                return queued;
+            }
+        }
+        return null;
+    }
+
+    // Must be called with the lock held.
+    private void ensureWorker() {
+        if (worker == null) {
+            worker = new Thread(this::drain, "conviva-rn-tracking");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Job job;
+            lock.lock();
+            try {
+                while (queue.isEmpty()) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                job = queue.pollFirst();
+                busy = true;
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+            run(job.task);
+            lock.lock();
+            try {
+                busy = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+            executed.incrementAndGet();
+        } catch (Throwable t) {
+            failed.incrementAndGet();
+        }
+    }
+}
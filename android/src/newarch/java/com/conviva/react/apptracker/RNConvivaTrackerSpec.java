@@ -0,0 +1,14 @@
+package com.conviva.react.apptracker;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+
+/**
+ * TurboModule base of RNConvivaTrackerModule, generated by codegen from
+ * specs/NativeRNConvivaTracker.ts.
+ */
+abstract class RNConvivaTrackerSpec extends NativeRNConvivaTrackerSpec {
+
+    RNConvivaTrackerSpec(ReactApplicationContext context) {
+        super(context);
+    }
+}
@@ -0,0 +1,25 @@
+package com.conviva.react.apptracker;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+
+import java.util.Map;
+
+/**
+ * Legacy-bridge base of RNConvivaTrackerModule. The new architecture build
+ * swaps this for the codegen spec in src/newarch.
+ */
+abstract class RNConvivaTrackerSpec extends ReactContextBaseJavaModule {
+
+    RNConvivaTrackerSpec(ReactApplicationContext context) {
+        super(context);
+    }
+
+    // Matches the codegen spec, which exports the typed constants
+    protected abstract Map<String, Object> getTypedExportedConstants();
+
+    @Override
+    public Map<String, Object> getConstants() {
+        return getTypedExportedConstants();
+    }
+}
@@ -0,0 +1,200 @@
+package com.conviva.react.apptracker.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Posts bodies through CompressionInterceptor to a local collector and
+ * decodes what it received. The interceptor's counters are process-wide,
+ * so each case checks their change.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class CompressionInterceptorTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final String DICTIONARY = "iglu:com.snowplowanalytics.snowplow/payload_data/jsonschema/1-0-4";
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void gzipRoundTrip() throws Exception {
+        byte[] payload = payload(200);
+        CompressionInterceptor.Stats before = CompressionInterceptor.stats();
+
+        RecordedRequest request = post(new CompressionInterceptor(CompressionInterceptor.Algorithm.GZIP, 1024, null), payload, null);
+
+        assertEquals("gzip", request.getHeader("Content-Encoding"));
+        byte[] sent = request.getBody().readByteArray();
+        assertTrue("body shrank", sent.length < payload.length);
+        assertArrayEquals(payload, readAll(new GZIPInputStream(new ByteArrayInputStream(sent))));
+
+        CompressionInterceptor.Stats after = CompressionInterceptor.stats();
+        assertEquals(1, after.compressed - before.compressed);
+        assertEquals(0, after.skipped - before.skipped);
+        assertEquals(payload.length, after.bytesIn - before.bytesIn);
+        assertEquals(sent.length, after.bytesOut - before.bytesOut);
+    }
+
+    @Test
+    public void deflateWithDictionaryRoundTrip() throws Exception {
+        byte[] payload = payload(200);
+        CompressionInterceptor.Stats before = CompressionInterceptor.stats();
+
+        RecordedRequest request = post(new CompressionInterceptor(CompressionInterceptor.Algorithm.DEFLATE, 1024, DICTIONARY), payload, null);
+
+        assertEquals("deflate", request.getHeader("Content-Encoding"));
+        byte[] sent = request.getBody().readByteArray();
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(sent);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            boolean neededDictionary = false;
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && inflater.needsDictionary()) {
+                    neededDictionary = true;
+                    inflater.setDictionary(DICTIONARY.getBytes(UTF_8));
+                } else if (n == 0 && inflater.needsInput()) {
+                    throw new AssertionError("truncated deflate stream");
+                }
+                out.write(chunk, 0, n);
+            }
+            assertTrue("stream declares the preset dictionary", neededDictionary);
+            assertArrayEquals(payload, out.toByteArray());
+        } finally {
+            inflater.end();
+        }
+
+        CompressionInterceptor.Stats after = CompressionInterceptor.stats();
+        assertEquals(1, after.compressed - before.compressed);
+        assertEquals(sent.length, after.bytesOut - before.bytesOut);
+    }
+
+    @Test
+    public void skipsBodiesBelowMinimumSize() throws Exception {
+        byte[] payload = payload(2);
+        CompressionInterceptor.Stats before = CompressionInterceptor.stats();
+
+        RecordedRequest request = post(new CompressionInterceptor(CompressionInterceptor.Algorithm.GZIP, 1024, null), payload, null);
+
+        assertNull(request.getHeader("Content-Encoding"));
+        assertArrayEquals(payload, request.getBody().readByteArray());
+        CompressionInterceptor.Stats after = CompressionInterceptor.stats();
+        assertEquals(1, after.skipped - before.skipped);
+        assertEquals(0, after.compressed - before.compressed);
+    }
+
+    @Test
+    public void skipsBodiesThatWouldNotShrink() throws Exception {
+        byte[] payload = new byte[8192];
+        new Random(42).nextBytes(payload);
+        CompressionInterceptor.Stats before = CompressionInterceptor.stats();
+
+        RecordedRequest request = post(new CompressionInterceptor(CompressionInterceptor.Algorithm.GZIP, 1024, null), payload, null);
+
+        assertNull(request.getHeader("Content-Encoding"));
+        assertArrayEquals(payload, request.getBody().readByteArray());
+        CompressionInterceptor.Stats after = CompressionInterceptor.stats();
+        assertEquals(1, after.skipped - before.skipped);
+        assertEquals(0, after.compressed - before.compressed);
+        assertEquals(0, after.bytesIn - before.bytesIn);
+    }
+
+    @Test
+    public void passesEncodedBodiesThrough() throws Exception {
+        byte[] payload = payload(200);
+        CompressionInterceptor.Stats before = CompressionInterceptor.stats();
+
+        RecordedRequest request = post(new CompressionInterceptor(CompressionInterceptor.Algorithm.GZIP, 1024, null), payload, "identity");
+
+        assertEquals("identity", request.getHeader("Content-Encoding"));
+        assertArrayEquals(payload, request.getBody().readByteArray());
+        CompressionInterceptor.Stats after = CompressionInterceptor.stats();
+        assertEquals("not counted", 0, after.skipped - before.skipped);
+        assertEquals(0, after.compressed - before.compressed);
+    }
+
+    private RecordedRequest post(CompressionInterceptor interceptor, byte[] payload, String contentEncoding) throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200));
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+        Request.Builder request = new Request.Builder()
+                .url(server.url("/com.snowplowanalytics.snowplow/tp2"))
+                .post(RequestBody.create(payload, JSON));
+        if (contentEncoding != null) {
+            request.header("Content-Encoding", contentEncoding);
+        }
+        Response response = client.newCall(request.build()).execute();
+        response.close();
+        RecordedRequest recorded = server.takeRequest(5, TimeUnit.SECONDS);
+        if (recorded == null) {
+            throw new AssertionError("collector received nothing");
+        }
+        return recorded;
+    }
+
+    // A collector batch of similar events, as the emitter posts them
+    private static byte[] payload(int events) {
+        StringBuilder sb = new StringBuilder("{\"schema\":\"").append(DICTIONARY).append("\",\"data\":[");
+        for (int i = 0; i < events; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"e\":\"ue\",\"eid\":\"").append(i).append("\",\"aid\":\"load\",\"p\":\"mob\",\"tv\":\"andr-1.5.0\"}");
+        }
+        return sb.append("]}").toString().getBytes(UTF_8);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int n;
+            while ((n = stream.read(chunk)) > 0) {
+                out.write(chunk, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
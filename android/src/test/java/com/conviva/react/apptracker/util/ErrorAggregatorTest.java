@@ -0,0 +1,74 @@
+package com.conviva.react.apptracker.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Checks that ErrorAggregator keeps closing bursts across a reconfigure.
+ * Windows are the 1 s minimum, so each case waits a few seconds for the
+ * shared scheduler's sweeps.
+ */
+public class ErrorAggregatorTest {
+
+    private static final long WINDOW_MS = 1000;
+    private static final long TIMEOUT_MS = 10000;
+
+    private static final String STACK = "TypeError: x is undefined\n    at render (App.js:10:5)\n    at commit (react.js:200:1)";
+
+    private final List<String> summaries = new CopyOnWriteArrayList<>();
+    private final ErrorAggregator aggregator = new ErrorAggregator((eventName, eventJson) -> summaries.add(eventJson));
+
+    @Test
+    public void summarizesAndClosesBurstOpenAtReconfigure() throws InterruptedException {
+        aggregator.configure(true, WINDOW_MS, ErrorAggregator.DEFAULT_MAX_FINGERPRINTS, ErrorAggregator.DEFAULT_FRAMES);
+        assertTrue("first occurrence reported in full", admit());
+        assertFalse(admit());
+        assertFalse(admit());
+
+        aggregator.configure(true, WINDOW_MS, ErrorAggregator.DEFAULT_MAX_FINGERPRINTS, ErrorAggregator.DEFAULT_FRAMES);
+
+        awaitSummaries(1);
+        assertTrue(summaries.get(0), summaries.get(0).contains("\"occurrences\":2"));
+        awaitBurstClosed();
+        assertEquals("nothing left to summarize", 1, summaries.size());
+    }
+
+    @Test
+    public void closesBurstWhenDisabledMidBurst() throws InterruptedException {
+        aggregator.configure(true, WINDOW_MS, ErrorAggregator.DEFAULT_MAX_FINGERPRINTS, ErrorAggregator.DEFAULT_FRAMES);
+        assertTrue(admit());
+        assertFalse(admit());
+
+        aggregator.configure(false, WINDOW_MS, ErrorAggregator.DEFAULT_MAX_FINGERPRINTS, ErrorAggregator.DEFAULT_FRAMES);
+        awaitSummaries(1);
+
+        aggregator.configure(true, WINDOW_MS, ErrorAggregator.DEFAULT_MAX_FINGERPRINTS, ErrorAggregator.DEFAULT_FRAMES);
+        awaitBurstClosed();
+    }
+
+    private boolean admit() {
+        return aggregator.admit("TypeError", STACK, "App.js", "x is undefined");
+    }
+
+    private void awaitSummaries(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (summaries.size() < count) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("expected " + count + " summaries, got " + summaries.size());
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    // The sweep after the summary closes the burst; a later occurrence opens a new one
+    private void awaitBurstClosed() throws InterruptedException {
+        Thread.sleep(WINDOW_MS * 5 / 2);
+        assertTrue("reported in full after the burst closed", admit());
+    }
+}
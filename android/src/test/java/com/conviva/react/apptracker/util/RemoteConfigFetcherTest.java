@@ -0,0 +1,174 @@
+package com.conviva.react.apptracker.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Checks RemoteConfigFetcher's cache validation against a local config
+ * server that honours If-None-Match. Revalidations run on the calling
+ * thread, so every request has completed when get() returns.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class RemoteConfigFetcherTest {
+
+    private static final long LONG_MS = 3600000;
+
+    private final ConfigServer origin = new ConfigServer();
+    private final List<String> updates = new CopyOnWriteArrayList<>();
+    private MockWebServer server;
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(origin);
+        server.start();
+        directory = new File(RuntimeEnvironment.getApplication().getCacheDir(), "remote-config-" + System.nanoTime());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void fetchesOnceAndServesWithinTtl() {
+        RemoteConfigFetcher fetcher = fetcher(LONG_MS, 0);
+
+        assertNull("nothing cached before the first fetch", fetcher.get());
+        assertEquals(1, origin.requests.get());
+        assertEquals(ConfigServer.document(1), updates.get(0));
+
+        assertEquals(ConfigServer.document(1), fetcher.get());
+        assertEquals(ConfigServer.document(1), fetcher.get());
+        assertEquals("no request within the TTL", 1, origin.requests.get());
+    }
+
+    @Test
+    public void revalidatesExpiredDocumentWithValidators() {
+        RemoteConfigFetcher fetcher = fetcher(0, LONG_MS);
+        fetcher.get();
+
+        assertEquals("stale document served", ConfigServer.document(1), fetcher.get());
+        assertEquals(2, origin.requests.get());
+        assertEquals(1, origin.notModified.get());
+        assertEquals(ConfigServer.etag(1), origin.lastIfNoneMatch);
+        assertEquals(ConfigServer.lastModified(1), origin.lastIfModifiedSince);
+        assertEquals("a 304 is not an update", 1, updates.size());
+    }
+
+    @Test
+    public void fetchesChangedDocumentInFull() {
+        RemoteConfigFetcher fetcher = fetcher(0, LONG_MS);
+        fetcher.get();
+        origin.version = 2;
+
+        fetcher.get();
+        assertEquals(0, origin.notModified.get());
+        assertEquals(2, updates.size());
+        assertEquals(ConfigServer.document(2), updates.get(1));
+        assertEquals(ConfigServer.document(2), fetcher.get());
+    }
+
+    @Test
+    public void withholdsExpiredDocumentWithoutStaleWindow() {
+        RemoteConfigFetcher fetcher = fetcher(0, 0);
+        fetcher.get();
+
+        assertNull("expired document withheld", fetcher.get());
+        assertEquals(1, origin.notModified.get());
+    }
+
+    @Test
+    public void persistsDocumentAndValidators() {
+        fetcher(LONG_MS, 0).get();
+
+        assertEquals("served from disk", ConfigServer.document(1), fetcher(LONG_MS, 0).get());
+        assertEquals(1, origin.requests.get());
+
+        fetcher(0, LONG_MS).get();
+        assertEquals(2, origin.requests.get());
+        assertEquals(ConfigServer.etag(1), origin.lastIfNoneMatch);
+        assertEquals(1, origin.notModified.get());
+    }
+
+    @Test
+    public void ignoresCacheOfAnotherEndpoint() {
+        fetcher(LONG_MS, 0).get();
+
+        RemoteConfigFetcher other = new RemoteConfigFetcher(new OkHttpClient(), Runnable::run, updates::add);
+        other.configure(directory, server.url("/other").toString(), LONG_MS, 0);
+        assertNull(other.get());
+        assertEquals(2, origin.requests.get());
+        assertNull("no validators sent", origin.lastIfNoneMatch);
+    }
+
+    private RemoteConfigFetcher fetcher(long ttlMs, long staleWhileRevalidateMs) {
+        RemoteConfigFetcher fetcher = new RemoteConfigFetcher(new OkHttpClient(), Runnable::run, updates::add);
+        fetcher.configure(directory, server.url("/config").toString(), ttlMs, staleWhileRevalidateMs);
+        return fetcher;
+    }
+
+    /**
+     * Serves one versioned document with an ETag and Last-Modified, and
+     * answers a matching If-None-Match with 304.
+     */
+    private static final class ConfigServer extends Dispatcher {
+
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong notModified = new AtomicLong();
+        volatile int version = 1;
+        volatile String lastIfNoneMatch;
+        volatile String lastIfModifiedSince;
+
+        static String document(int version) {
+            return "{\"configurationBundle\":[{\"namespace\":\"CAT\",\"configurationVersion\":" + version + "}]}";
+        }
+
+        static String etag(int version) {
+            return "\"v" + version + "\"";
+        }
+
+        static String lastModified(int version) {
+            return "Wed, 0" + version + " Jan 2025 00:00:00 GMT";
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            requests.incrementAndGet();
+            lastIfNoneMatch = request.getHeader("If-None-Match");
+            lastIfModifiedSince = request.getHeader("If-Modified-Since");
+            int current = version;
+            if (etag(current).equals(lastIfNoneMatch)) {
+                notModified.incrementAndGet();
+                return new MockResponse().setResponseCode(304).setHeader("ETag", etag(current));
+            }
+            return new MockResponse()
+                    .setResponseCode(200)
+                    .setHeader("ETag", etag(current))
+                    .setHeader("Last-Modified", lastModified(current))
+                    .setBody(document(current));
+        }
+    }
+}
@@ -184,6 +184,31 @@ interface NetworkConfiguration {
      * Custom headers for HTTP requests to the Collector.
      */
     requestHeaders?: Record<string, string>;
+    /**
+     * Compression of POST bodies sent to the Collector (Android).
+     */
+    compression?: CompressionConfiguration;
+}
+/**
+ * CompressionConfiguration
+ */
+interface CompressionConfiguration {
+    /**
+     * Content-Encoding of compressed bodies. 'deflate' sends zlib data and
+     * may use a preset dictionary.
+     * @defaultValue 'gzip'
+     */
+    algorithm?: 'gzip' | 'deflate' | 'none';
+    /**
+     * Bodies smaller than this many bytes are sent uncompressed.
+     * @defaultValue 1024
+     */
+    minBodySize?: number;
+    /**
+     * Preset dictionary for 'deflate'. The Collector must be configured with
+     * the same dictionary.
+     */
+    dictionary?: string;
 }
 interface TraceparentConfiguration {
     force: Boolean;
@@ -439,6 +464,20 @@ interface RemoteConfiguration {
      * @defaultValue 'post'
      */
     method?: HttpMethod;
+    /**
+     * Milliseconds a fetched document is used without a request (Android).
+     * Past that, it is revalidated with If-None-Match / If-Modified-Since,
+     * which always uses GET.
+     * @defaultValue 600000
+     */
+    cacheTtlMs?: number;
+    /**
+     * Milliseconds past the TTL during which the cached document is still
+     * used while it is revalidated in the background (Android); 0 waits for
+     * the revalidation.
+     * @defaultValue 86400000
+     */
+    staleWhileRevalidateMs?: number;
 }
 /**
  * SessionReplayConfiguration
@@ -504,6 +543,353 @@ interface SessionReplayConfiguration {
         compressionQuality?: number;
     };
 }
+/**
+ * BatchingConfiguration
+ *
+ * Track calls are coalesced in JS and delivered to the native tracker in a
+ * single `trackEventsBatch` bridge call per flush. Call sites are unchanged:
+ * each track promise still settles with its own outcome, and resolves false
+ * when its event was sampled out.
+ */
+interface BatchingConfiguration {
+    /**
+     * Whether track calls are coalesced. When false, or when the native module
+     * has no batch entry point, every call crosses the bridge on its own.
+     * @defaultValue true
+     */
+    enabled?: boolean;
+    /**
+     * Whether track calls use the native fire-and-forget entry points, which
+     * return nothing. Track promises then resolve once the event is handed to
+     * the native module and native failures are only counted (see
+     * getDiagnostics). Ignored where the native module lacks them.
+     * @defaultValue false
+     */
+    fireAndForget?: boolean;
+    /**
+     * When queued events are flushed: at the end of the current JS task
+     * ('microtask') or during the next idle period ('idle').
+     * @defaultValue 'microtask'
+     */
+    flush?: 'microtask' | 'idle';
+    /**
+     * Queue length that triggers an immediate flush.
+     * @defaultValue 50
+     */
+    maxBatchSize?: number;
+}
+/**
+ * Native context cache (Android). Identical event contexts (same schema and
+ * data) are converted once and reused across events. Hit rate and size are
+ * reported by getDiagnostics.
+ */
+interface ContextCacheConfiguration {
+    /**
+     * Whether contexts are cached.
+     * @defaultValue true
+     */
+    enabled?: boolean;
+    /**
+     * Number of distinct contexts kept, least recently used first out.
+     * @defaultValue 64
+     */
+    maxEntries?: number;
+}
+/**
+ * Native non-fatal error aggregation (Android). Errors are fingerprinted by
+ * errorType, fileName and their top stack frames (line and column numbers
+ * stripped). The first occurrence of a fingerprint is reported in full;
+ * repeats within the window are counted and reported as one
+ * conviva_non_fatal_error_summary event per window.
+ */
+interface ErrorAggregationConfiguration {
+    /**
+     * Whether repeated errors are coalesced.
+     * @defaultValue true
+     */
+    enabled?: boolean;
+    /**
+     * Aggregation window in milliseconds (minimum 1000).
+     * @defaultValue 60000
+     */
+    windowMs?: number;
+    /**
+     * Number of distinct fingerprints tracked, least recently seen first out.
+     * @defaultValue 256
+     */
+    maxFingerprints?: number;
+    /**
+     * Number of top stack frames included in the fingerprint.
+     * @defaultValue 3
+     */
+    frames?: number;
+}
+/**
+ * Native pre-init buffer (Android). Events that reach the native module
+ * while their tracker does not exist yet are kept, with their capture time,
+ * and tracked in order once createTracker creates the tracker; their track
+ * promises settle then. Events beyond the capacity fail as before; events
+ * older than maxAgeMs are discarded. As the buffer is used before any
+ * createTracker call, these settings apply from the call that sets them.
+ * Where the native module has the buffer, the tracker's track methods
+ * call it without waiting for createTracker to finish; elsewhere (iOS)
+ * they wait, and reject before init, as before.
+ */
+interface PreInitBufferConfiguration {
+    /**
+     * Whether early events are buffered.
+     * @defaultValue true
+     */
+    enabled?: boolean;
+    /**
+     * Maximum number of buffered events.
+     * @defaultValue 100
+     */
+    capacity?: number;
+    /**
+     * Age in milliseconds after which a buffered event is discarded
+     * (minimum 1000).
+     * @defaultValue 30000
+     */
+    maxAgeMs?: number;
+}
+/**
+ * A batch of custom tag changes for updateCustomTags.
+ */
+interface CustomTagUpdate {
+    /**
+     * Tags to set.
+     */
+    put?: Record<string, unknown>;
+    /**
+     * Tag keys to clear; applied before put.
+     */
+    remove?: string[];
+    /**
+     * Category of the tags in put, as for setCustomTagsWithCategory.
+     */
+    category?: string;
+}
+/**
+ * Rate limit of one event type: at most maxEvents per timeWindow
+ * milliseconds, with bursts of up to maxEvents.
+ */
+interface EventQuotaLimit {
+    maxEvents: number;
+    timeWindow: number;
+}
+/**
+ * Native event quotas (Android). Each tracker namespace gets a token bucket
+ * per limited event type; events over quota are rejected before they are
+ * built (track promises reject, fire-and-forget calls are dropped). Limits
+ * in the remote config's collectionRateLimit section override these.
+ * Dropped counts are tracked as a conviva_event_quota_drops event per
+ * report interval and reported by getDiagnostics.
+ */
+interface QuotaConfiguration {
+    /**
+     * Whether quotas are enforced.
+     * @defaultValue true
+     */
+    enabled?: boolean;
+    /**
+     * Limits keyed by event type ('click', 'screenView', 'custom',
+     * 'structured', 'selfDescribing', ...). Types without a limit are
+     * unbounded.
+     */
+    limits?: Record<string, EventQuotaLimit>;
+    /**
+     * Interval in milliseconds between drop reports (minimum 1000).
+     * @defaultValue 60000
+     */
+    reportIntervalMs?: number;
+}
+/**
+ * Lower and upper bound of an adaptively tuned emitter setting.
+ */
+interface AdaptiveRange {
+    min?: number;
+    max?: number;
+}
+/**
+ * Adaptive emitter tuning (Android). Connectivity, battery state and the
+ * number of unsent events are sampled every intervalMs and the emitter of
+ * every tracker is retuned within the given ranges: the minimum values and
+ * small batches on metered or no network, or on low battery, while not
+ * charging; the maximum values and heavy batches on an unmetered network
+ * while charging or while the backlog exceeds backlogThreshold; the
+ * emitterConfig values otherwise. Each adjustment is tracked as a
+ * conviva_emitter_adjustment event; the current state is reported by
+ * getDiagnostics.
+ */
+interface AdaptiveEmitterConfiguration {
+    /**
+     * Whether the emitter is retuned at runtime. Disabling it restores the
+     * emitterConfig values.
+     * @defaultValue true
+     */
+    enabled?: boolean;
+    /**
+     * Interval in milliseconds between samples (minimum 1000).
+     * @defaultValue 30000
+     */
+    intervalMs?: number;
+    /**
+     * Number of unsent events above which the emitter is sped up.
+     * @defaultValue 500
+     */
+    backlogThreshold?: number;
+    /**
+     * @defaultValue { min: 25, max: 500 }
+     */
+    emitRange?: AdaptiveRange;
+    /**
+     * @defaultValue { min: 1, max: 15 }
+     */
+    threadPoolSize?: AdaptiveRange;
+    /**
+     * @defaultValue { min: 10000, max: 40000 }
+     */
+    byteLimitPost?: AdaptiveRange;
+}
+/**
+ * Native bridge metrics (Android). Every native method records its calls,
+ * errors and a latency histogram of the time it holds the calling thread;
+ * the conversion, tracker lookup and track stages are recorded as well.
+ * Read them with getBridgeMetrics. While disabled the instrumentation
+ * costs one flag check per call.
+ */
+interface BridgeMetricsConfiguration {
+    /**
+     * Whether metrics are recorded.
+     * @defaultValue true
+     */
+    enabled?: boolean;
+    /**
+     * Interval in milliseconds at which the snapshot is tracked as a
+     * conviva_bridge_metrics event (minimum 1000); 0 never tracks it.
+     * @defaultValue 0
+     */
+    emitIntervalMs?: number;
+}
+/**
+ * One sampling rule. Exactly one of schema, eventName and eventType is
+ * matched, in that order of precedence; the most specific matching rule
+ * wins.
+ */
+interface SamplingRule {
+    /**
+     * Event type ('click', 'screenView', 'structured', 'custom', ...).
+     */
+    eventType?: string;
+    /**
+     * Name of a custom event.
+     */
+    eventName?: string;
+    /**
+     * Schema of a self-describing event.
+     */
+    schema?: string;
+    /**
+     * Fraction of users whose matching events are kept, 0 to 1.
+     */
+    rate: number;
+}
+/**
+ * Native event sampling (Android). Each rule keeps its events for a fixed
+ * fraction of users, chosen by a hash of the client id and the rule, so a
+ * user is consistently in or out. Events are sampled before they are
+ * built; sampled-out track promises resolve false. Kept events carry a
+ * conviva_sampling context (custom events a conviva_sampling member) with
+ * the sample rate. Revenue events are never sampled. Counts are reported
+ * by getDiagnostics.
+ */
+interface SamplingConfiguration {
+    /**
+     * Whether the rules are applied.
+     * @defaultValue true
+     */
+    enabled?: boolean;
+    rules?: SamplingRule[];
+}
+/**
+ * Native screen-view coalescing (Android). Screen views are held per
+ * tracker until navigation has been quiet for the settle window, and only
+ * the last one is tracked, with a screen_view_coalesced context listing the
+ * skipped screens. Any other event for the tracker first tracks the held
+ * screen view. With the spill log on, a held screen view keeps its entry
+ * until it is tracked, so it is replayed if the process dies within the
+ * window. Counts are reported by getDiagnostics.
+ */
+interface ScreenViewCoalescingConfiguration {
+    /**
+     * Whether screen views are coalesced.
+     * @defaultValue true
+     */
+    enabled?: boolean;
+    /**
+     * Quiet period in ms after the latest screen view before it is tracked.
+     * @defaultValue 300
+     */
+    settleMs?: number;
+    /**
+     * Longest time in ms a chain of screen views is held before the latest
+     * is tracked.
+     * @defaultValue 2000
+     */
+    maxHoldMs?: number;
+}
+/**
+ * Native spill log (Android). Events handed to the native module, by the
+ * track calls, batches and fire-and-forget calls alike, are appended to
+ * memory-mapped segment files in the app's files directory until the
+ * tracker has taken them, so events still queued when the process dies are
+ * tracked, with their capture time, by the next createTracker. The log is
+ * opened by the first createTracker call that enables it.
+ */
+interface SpillLogConfiguration {
+    /**
+     * Whether pending events are logged to disk.
+     * @defaultValue false
+     */
+    enabled?: boolean;
+    /**
+     * Size in bytes of each segment file (minimum 4096).
+     * @defaultValue 1048576
+     */
+    segmentSize?: number;
+    /**
+     * When written records are forced to storage: never (left to the OS),
+     * when a segment is full, or after every record.
+     * @defaultValue 'segment'
+     */
+    fsync?: 'never' | 'segment' | 'always';
+}
+/**
+ * Native tracking queue (Android). Event construction and tracking run on a
+ * dedicated worker behind a bounded queue instead of the shared
+ * native-modules thread. Queue counters are reported by getDiagnostics.
+ */
+interface TrackingQueueConfiguration {
+    /**
+     * Whether events are handed to the worker. When false they are built and
+     * tracked on the calling native thread.
+     * @defaultValue true
+     */
+    enabled?: boolean;
+    /**
+     * Maximum number of queued events.
+     * @defaultValue 1000
+     */
+    capacity?: number;
+    /**
+     * What happens when the queue is full: wait for room ('block'), evict the
+     * oldest queued event ('dropOldest') or discard the new one
+     * ('dropNewest'). A dropped event's track promise is rejected.
+     * @defaultValue 'block'
+     */
+    policy?: 'block' | 'dropOldest' | 'dropNewest';
+}
 /**
  * The TrackerControllerConfiguration
  */
@@ -528,6 +914,17 @@ interface TrackerControllerConfiguration {
     errorTracking?: false | ErrorTrackingConfiguration;
     clidSyncConfig?: ClidSyncConfiguration;
     sessionReplayConfig?: SessionReplayConfiguration;
+    batching?: BatchingConfiguration;
+    trackingQueueConfig?: TrackingQueueConfiguration;
+    contextCacheConfig?: ContextCacheConfiguration;
+    errorAggregationConfig?: ErrorAggregationConfiguration;
+    quotaConfig?: QuotaConfiguration;
+    preInitBufferConfig?: PreInitBufferConfiguration;
+    spillLogConfig?: SpillLogConfiguration;
+    adaptiveEmitterConfig?: AdaptiveEmitterConfiguration;
+    bridgeMetricsConfig?: BridgeMetricsConfiguration;
+    samplingConfig?: SamplingConfiguration;
+    screenViewCoalescingConfig?: ScreenViewCoalescingConfiguration;
 }
 /**
  * ScreenView event properties
@@ -957,6 +1354,17 @@ type ReactNativeTracker = {
      * @returns {Promise}
      */
     readonly clearCustomTags: (tagKeys: string[], contexts?: EventContext[]) => Promise<void>;
+    /**
+     * Applies a batch of custom tag changes in one call: the keys in
+     * `remove` are cleared, then the tags in `put` are set (in `category`,
+     * if given). Tags set to the value they already have are not passed on
+     * to the native tracker.
+     *
+     * @param update - the tags to set and the tag keys to clear
+     * @param contexts {Array}- the event contexts
+     * @returns {Promise}
+     */
+    readonly updateCustomTags: (update: CustomTagUpdate, contexts?: EventContext[]) => Promise<void>;
     /**
      * Clears all the previously set Custom Tags
      *
@@ -1497,6 +1905,21 @@ declare function cleanup(): Promise<boolean>;
  * @returns - A string promise
  */
 declare function getClientId(): Promise<string>;
+/**
+ * Gets the native tracker diagnostics (e.g. fire-and-forget call and
+ * failure counts)
+ *
+ * @returns - An object promise
+ */
+declare function getDiagnostics(): Promise<Record<string, unknown>>;
+/**
+ * Gets the native bridge metrics (Android): per-method call counts, error
+ * counts and latency histograms, plus the conversion, lookup and track
+ * stages. Counters stay empty unless bridgeMetricsConfig enables them.
+ *
+ * @returns - An object promise
+ */
+declare function getBridgeMetrics(): Promise<Record<string, unknown>>;
 /**
  * Sets the cliend id
  *
@@ -1561,4 +1984,4 @@ declare const _default: {
     withReactNavigationAutotrack: (AppContainer: any) => React$1.ForwardRefExoticComponent<React$1.RefAttributes<any>>;
 };
 
-export { Basis, BridgeAdapter, BufferOption, CR_NO_CAPTURE, ConsentDocument, ConsentGrantedProps, ConsentWithdrawnProps, ConvivaErrorBoundary, ConvivaErrorTracker, DeepLinkReceivedProps, DevicePlatform, EcommerceItem, EcommerceTransactionProps, EmitterConfiguration, ErrorEventProps, ErrorSeverity, ErrorSource, ErrorTrackingConfiguration, EventContext, GCConfiguration, GdprConfiguration, GlobalContext, HttpMethod, JsEngine, JsErrorPayload, LogLevel, MessageNotificationProps, MockBridgeAdapter, NetworkConfiguration, PageViewProps, ReactNativeTracker, RevenueEventItemProps, RevenueEventProps, ScreenSize, ScreenViewProps, SelfDescribing, SessionConfiguration, SessionReplayConfiguration, StructuredProps, SubjectConfiguration, TimingProps, TrackerConfiguration, TrackerControllerConfiguration, Trigger, autocaptureNavigationTrack, cleanup, crNoCaptureProps, createTracker, _default as default, errorTracker, getClientId, getWebViewCallback, removeAllTrackers, removeTracker, setClientId, startReplay, stopReplay, trackError, withReactNavigationAutotrack };
+export { AdaptiveEmitterConfiguration, AdaptiveRange, Basis, BatchingConfiguration, BridgeAdapter, BridgeMetricsConfiguration, BufferOption, CR_NO_CAPTURE, CompressionConfiguration, ConsentDocument, ConsentGrantedProps, ConsentWithdrawnProps, ContextCacheConfiguration, ConvivaErrorBoundary, ConvivaErrorTracker, CustomTagUpdate, DeepLinkReceivedProps, DevicePlatform, EcommerceItem, EcommerceTransactionProps, EmitterConfiguration, ErrorAggregationConfiguration, ErrorEventProps, ErrorSeverity, ErrorSource, ErrorTrackingConfiguration, EventContext, EventQuotaLimit, GCConfiguration, GdprConfiguration, GlobalContext, HttpMethod, JsEngine, JsErrorPayload, LogLevel, MessageNotificationProps, MockBridgeAdapter, NetworkConfiguration, PageViewProps, PreInitBufferConfiguration, QuotaConfiguration, ReactNativeTracker, RevenueEventItemProps, RevenueEventProps, SamplingConfiguration, SamplingRule, ScreenSize, ScreenViewCoalescingConfiguration, ScreenViewProps, SelfDescribing, SessionConfiguration, SessionReplayConfiguration, SpillLogConfiguration, StructuredProps, SubjectConfiguration, TimingProps, TrackerConfiguration, TrackerControllerConfiguration, TrackingQueueConfiguration, Trigger, autocaptureNavigationTrack, cleanup, crNoCaptureProps, createTracker, _default as default, errorTracker, getBridgeMetrics, getClientId, getDiagnostics, getWebViewCallback, removeAllTrackers, removeTracker, setClientId, startReplay, stopReplay, trackError, withReactNavigationAutotrack };
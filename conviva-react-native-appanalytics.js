@@ -1,4 +1,4 @@
-import { NativeModules, TurboModuleRegistry, AppState } from 'react-native';
+import { NativeModules, NativeEventEmitter, TurboModuleRegistry, AppState } from 'react-native';
 import * as React from 'react';
 import React__default from 'react';
 import hoistNonReactStatic from 'hoist-non-react-statics';
@@ -32,6 +32,20 @@ function safeWait(aPromise, errHandle) {
         };
     });
 }
+/**
+ * Like safeWait, but calls the function at once, for calls the native
+ * module can take before the tracker exists.
+ *
+ * @param errHandle - A function to handle the call being rejected
+ * @returns - A function calling through and handling its rejection
+ */
+function safeForward(errHandle) {
+    return ((func) => {
+        return (...args) => {
+            return Promise.resolve().then(() => func(...args)).catch((err) => errHandle(err));
+        };
+    });
+}
 /**
  * Returns a function that accepts a callback function as its argument and subscribes
  * that function to aPromise's fullfillment,
@@ -82,11 +96,11 @@ function isObject$1(x) {
  * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
  * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
  */
-const isAvailable = NativeModules.RNConvivaTracker != null;
+const RNConvivaTracker = resolveTurboOrLegacy('RNConvivaTracker', () => true);
+const isAvailable = RNConvivaTracker != null;
 if (!isAvailable) {
     errorHandler(new Error('Unable to access the native iOS/Android Conviva tracker, a tracker implementation with very limited functionality is used.'));
 }
-const RNConvivaTracker = NativeModules.RNConvivaTracker;
 
 /*
  * Copyright (c) 2020-2026 Conviva Inc. All rights reserved.
@@ -223,6 +237,7 @@ const logMessages = {
     setCustomTags: 'setCustomTags requires tags',
     clearCustomTags: 'clearCustomTags requires tag keys',
     clearAllCustomTags: 'clearAllCustomTags requires earlier set tags',
+    updateCustomTags: 'updateCustomTags requires put tags or remove keys',
     // global contexts errors
     gcTagType: 'tag argument is required to be a string',
     gcType: 'global context argument is invalid',
@@ -581,6 +596,17 @@ function validateClearCustomTags(tagKeys) {
     }
     return Promise.resolve(true);
 }
+function validateUpdateCustomTags(update) {
+    const typeErr = rejectIfNotObject(update);
+    if (typeErr) {
+        return typeErr;
+    }
+    if (update.put === undefined && update.remove === undefined) {
+        return Promise.reject(new Error(logMessages.evType));
+    }
+    return (update.put === undefined ? Promise.resolve(true) : validateCustomTags(update.put))
+        .then(() => (update.remove === undefined ? true : validateClearCustomTags(update.remove)));
+}
 
 /*
  * Copyright (c) 2020-2023 Snowplow Analytics Ltd. All rights reserved.
@@ -657,7 +683,9 @@ const gcProps = [
 ];
 const remoteProps = [
     'endpoint',
-    'method'
+    'method',
+    'cacheTtlMs',
+    'staleWhileRevalidateMs'
 ];
 const clidSyncProps = [
     'webViewCookie',
@@ -2506,6 +2534,157 @@ function setJsBundleInfo$1(namespace, info) {
     }).catch(reThrowSetJsBundleInfoError);
 }
 
+/*
+ * Copyright (c) 2020-2026 Conviva Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ */
+const DEFAULT_MAX_BATCH_SIZE = 50;
+/**
+ * Schedules `fn` for the configured flush point: the end of the current JS
+ * task (`microtask`, default) or the next idle period (`idle`, falling back
+ * to a zero-delay timer where requestIdleCallback is unavailable).
+ */
+function scheduleFlush(mode, fn) {
+    if (mode === 'idle') {
+        if (typeof requestIdleCallback === 'function') {
+            requestIdleCallback(fn);
+        }
+        else {
+            setTimeout(fn, 0);
+        }
+        return;
+    }
+    Promise.resolve().then(fn).catch(() => { });
+}
+/**
+ * Coalesces track calls into `trackEventsBatch` bridge crossings.
+ *
+ * Each call is queued with its event type and the same details map the
+ * single-event native method takes; the queue is flushed once per JS task
+ * (or idle period) and whenever it reaches `maxBatchSize`. Every caller's
+ * promise settles with its own per-index outcome (false when sampled out),
+ * so call sites keep their existing semantics. When batching is disabled, or the native module has no
+ * `trackEventsBatch` (iOS, older native builds), calls go straight to the
+ * single-event method.
+ *
+ * With `fireAndForget`, events go to the void `fireEventsBatch` (or, when
+ * not batching, the typed `fire*` methods) and the caller's promise resolves
+ * as soon as the event is queued; native failures are only counted.
+ */
+class EventBatcher {
+    enabled = true;
+    fireAndForget = false;
+    flushMode = 'microtask';
+    maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    pending = [];
+    scheduled = false;
+    configure(cfg) {
+        if (!isObject$1(cfg)) {
+            return;
+        }
+        if (typeof cfg.enabled === 'boolean') {
+            this.enabled = cfg.enabled;
+        }
+        if (typeof cfg.fireAndForget === 'boolean') {
+            this.fireAndForget = cfg.fireAndForget;
+        }
+        if (cfg.flush === 'microtask' || cfg.flush === 'idle') {
+            this.flushMode = cfg.flush;
+        }
+        if (typeof cfg.maxBatchSize === 'number' && cfg.maxBatchSize >= 1) {
+            this.maxBatchSize = Math.floor(cfg.maxBatchSize);
+        }
+    }
+    enqueue(type, method, details) {
+        const batched = this.enabled && typeof RNConvivaTracker.trackEventsBatch === 'function';
+        if (this.fireAndForget) {
+            if (batched && typeof RNConvivaTracker.fireEventsBatch === 'function') {
+                this.push({ entry: { ...details, type } });
+                return Promise.resolve(true);
+            }
+            if (fireEvent(type, details)) {
+                return Promise.resolve(true);
+            }
+        }
+        if (!batched) {
+            return RNConvivaTracker[method](details);
+        }
+        return new Promise((resolve, reject) => {
+            this.push({ entry: { ...details, type }, resolve, reject });
+        });
+    }
+    push(item) {
+        this.pending.push(item);
+        if (this.pending.length >= this.maxBatchSize) {
+            this.flush();
+        }
+        else if (!this.scheduled) {
+            this.scheduled = true;
+            scheduleFlush(this.flushMode, () => this.flush());
+        }
+    }
+    flush() {
+        this.scheduled = false;
+        const batch = this.pending;
+        if (batch.length === 0) {
+            return;
+        }
+        this.pending = [];
+        const awaited = batch.filter((b) => b.resolve !== undefined);
+        if (awaited.length === 0) {
+            safeCall(() => RNConvivaTracker.fireEventsBatch(batch.map((b) => b.entry)), undefined);
+            return;
+        }
+        Promise.resolve(RNConvivaTracker.trackEventsBatch(batch.map((b) => b.entry)))
+            .then((result) => {
+            const failed = new Map();
+            for (const f of result?.failures ?? []) {
+                failed.set(f.index, f.message);
+            }
+            // Sampled-out entries resolve false, as the single-event methods do
+            const sampledOut = new Set(result?.sampledOutIndexes ?? []);
+            batch.forEach((b, i) => failed.has(i)
+                ? b.reject?.(new Error(failed.get(i)))
+                : b.resolve?.(!sampledOut.has(i)));
+            return undefined;
+        })
+            .catch((err) => awaited.forEach((b) => b.reject(err)));
+    }
+}
+const eventBatcher = new EventBatcher();
+const orNull = (v) => (v === undefined ? null : v);
+/**
+ * Typed fire-and-forget entry points, keyed by event type. Each sends the
+ * event fields as positional arguments to a void native method, so no
+ * promise is allocated on either side; native failures are only counted
+ * (see getDiagnostics).
+ */
+const FIRE_METHODS = {
+    screenView: (d) => RNConvivaTracker.fireScreenViewEvent(orNull(d.tracker), d.eventData.name, orNull(d.eventData.id), orNull(d.eventData.type), orNull(d.eventData.previousName), orNull(d.eventData.previousType), orNull(d.eventData.previousId), orNull(d.eventData.transitionType), orNull(d.contexts)),
+    structured: (d) => RNConvivaTracker.fireStructuredEvent(orNull(d.tracker), d.eventData.category, d.eventData.action, orNull(d.eventData.label), orNull(d.eventData.property), typeof d.eventData.value === 'number' ? d.eventData.value : NaN, orNull(d.contexts)),
+    selfDescribing: (d) => RNConvivaTracker.fireSelfDescribingEvent(orNull(d.tracker), d.eventData.schema, d.eventData.data, orNull(d.contexts)),
+    custom: (d) => RNConvivaTracker.fireCustomEvent(orNull(d.tracker), d.eventName, d.eventData),
+    click: (d) => RNConvivaTracker.fireClickEvent(orNull(d.tracker), d.eventData),
+};
+/**
+ * Sends the event through its typed fire-and-forget method. Returns false
+ * when the type has none or the native module predates it, so the caller
+ * falls back to the promise-returning method.
+ */
+function fireEvent(type, details) {
+    const fire = FIRE_METHODS[type];
+    if (fire === undefined) {
+        return false;
+    }
+    return safeCall(() => {
+        fire(details);
+        return true;
+    }, false);
+}
+
 /*
  * Copyright (c) 2020-2023 Snowplow Analytics Ltd. All rights reserved.
  *
@@ -2529,7 +2708,7 @@ function setJsBundleInfo$1(namespace, info) {
 function trackSelfDescribingEvent$1(namespace, argmap, contexts = []) {
     return validateSelfDesc(argmap)
         .then(() => validateContexts(contexts))
-        .then(() => RNConvivaTracker.trackSelfDescribingEvent({
+        .then(() => eventBatcher.enqueue('selfDescribing', 'trackSelfDescribingEvent', {
         tracker: namespace,
         eventData: argmap,
         contexts: contexts
@@ -2549,7 +2728,7 @@ function trackSelfDescribingEvent$1(namespace, argmap, contexts = []) {
 function trackScreenViewEvent$1(namespace, argmap, contexts = []) {
     return validateScreenView(argmap)
         .then(() => validateContexts(contexts))
-        .then(() => RNConvivaTracker.trackScreenViewEvent({
+        .then(() => eventBatcher.enqueue('screenView', 'trackScreenViewEvent', {
         tracker: namespace,
         eventData: argmap,
         contexts: contexts
@@ -2569,7 +2748,7 @@ function trackScreenViewEvent$1(namespace, argmap, contexts = []) {
 function trackStructuredEvent$1(namespace, argmap, contexts = []) {
     return validateStructured(argmap)
         .then(() => validateContexts(contexts))
-        .then(() => RNConvivaTracker.trackStructuredEvent({
+        .then(() => eventBatcher.enqueue('structured', 'trackStructuredEvent', {
         tracker: namespace,
         eventData: argmap,
         contexts: contexts
@@ -2589,7 +2768,7 @@ function trackStructuredEvent$1(namespace, argmap, contexts = []) {
 function trackPageView$1(namespace, argmap, contexts = []) {
     return validatePageView(argmap)
         .then(() => validateContexts(contexts))
-        .then(() => RNConvivaTracker.trackPageView({
+        .then(() => eventBatcher.enqueue('pageView', 'trackPageView', {
         tracker: namespace,
         eventData: argmap,
         contexts: contexts
@@ -2609,7 +2788,7 @@ function trackPageView$1(namespace, argmap, contexts = []) {
 function trackTimingEvent$1(namespace, argmap, contexts = []) {
     return validateTiming(argmap)
         .then(() => validateContexts(contexts))
-        .then(() => RNConvivaTracker.trackTimingEvent({
+        .then(() => eventBatcher.enqueue('timing', 'trackTimingEvent', {
         tracker: namespace,
         eventData: argmap,
         contexts: contexts
@@ -2629,7 +2808,7 @@ function trackTimingEvent$1(namespace, argmap, contexts = []) {
 function trackConsentGrantedEvent$1(namespace, argmap, contexts = []) {
     return validateConsentGranted(argmap)
         .then(() => validateContexts(contexts))
-        .then(() => RNConvivaTracker.trackConsentGrantedEvent({
+        .then(() => eventBatcher.enqueue('consentGranted', 'trackConsentGrantedEvent', {
         tracker: namespace,
         eventData: argmap,
         contexts: contexts
@@ -2649,7 +2828,7 @@ function trackConsentGrantedEvent$1(namespace, argmap, contexts = []) {
 function trackConsentWithdrawnEvent$1(namespace, argmap, contexts = []) {
     return validateConsentWithdrawn(argmap)
         .then(() => validateContexts(contexts))
-        .then(() => RNConvivaTracker.trackConsentWithdrawnEvent({
+        .then(() => eventBatcher.enqueue('consentWithdrawn', 'trackConsentWithdrawnEvent', {
         tracker: namespace,
         eventData: argmap,
         contexts: contexts
@@ -2669,7 +2848,7 @@ function trackConsentWithdrawnEvent$1(namespace, argmap, contexts = []) {
 function trackEcommerceTransactionEvent$1(namespace, argmap, contexts = []) {
     return validateEcommerceTransaction(argmap)
         .then(() => validateContexts(contexts))
-        .then(() => RNConvivaTracker.trackEcommerceTransactionEvent({
+        .then(() => eventBatcher.enqueue('ecommerceTransaction', 'trackEcommerceTransactionEvent', {
         tracker: namespace,
         eventData: argmap,
         contexts: contexts
@@ -2689,7 +2868,7 @@ function trackEcommerceTransactionEvent$1(namespace, argmap, contexts = []) {
 function trackDeepLinkReceivedEvent$1(namespace, argmap, contexts = []) {
     return validateDeepLinkReceived(argmap)
         .then(() => validateContexts(contexts))
-        .then(() => RNConvivaTracker.trackDeepLinkReceivedEvent({
+        .then(() => eventBatcher.enqueue('deepLinkReceived', 'trackDeepLinkReceivedEvent', {
         tracker: namespace,
         eventData: argmap,
         contexts: contexts
@@ -2709,7 +2888,7 @@ function trackDeepLinkReceivedEvent$1(namespace, argmap, contexts = []) {
 function trackMessageNotificationEvent$1(namespace, argmap, contexts = []) {
     return validateMessageNotification(argmap)
         .then(() => validateContexts(contexts))
-        .then(() => RNConvivaTracker.trackMessageNotificationEvent({
+        .then(() => eventBatcher.enqueue('messageNotification', 'trackMessageNotificationEvent', {
         tracker: namespace,
         eventData: argmap,
         contexts: contexts
@@ -2730,7 +2909,7 @@ function trackMessageNotificationEvent$1(namespace, argmap, contexts = []) {
 function trackCustomEvent$1(namespace, name, arg, contexts = []) {
     return validateCustomEvent(arg)
         .then(() => validateContexts(contexts))
-        .then(() => RNConvivaTracker.trackCustomEvent({
+        .then(() => eventBatcher.enqueue('custom', 'trackCustomEvent', {
         tracker: namespace,
         eventName: name,
         eventData: arg,
@@ -2751,7 +2930,7 @@ function trackCustomEvent$1(namespace, name, arg, contexts = []) {
 function trackRevenueEvent$1(namespace, argmap, contexts = []) {
     return validateRevenueEvent(argmap)
         .then(() => validateContexts(contexts))
-        .then(() => RNConvivaTracker.trackRevenueEvent({
+        .then(() => eventBatcher.enqueue('revenue', 'trackRevenueEvent', {
         tracker: namespace,
         eventData: argmap,
         contexts: contexts
@@ -2822,6 +3001,45 @@ function clearCustomTags$1(namespace, argArray, contexts = []) {
         throw new Error(`${logMessages.clearCustomTags} ${error.message}`);
     });
 }
+/**
+ * Applies a batch of custom tag changes: removes the keys in `remove`, then
+ * sets the tags in `put` (in `category`, if given). Native modules without
+ * the batch call get the equivalent clearCustomTags / setCustomTags calls.
+ *
+ * @param namespace {string} - the tracker namespace
+ * @param update {Object} - { put?, remove?, category? }
+ * @param contexts {Array}- the event contexts
+ * @returns {Promise}
+ */
+function updateCustomTags$1(namespace, update, contexts = []) {
+    return validateUpdateCustomTags(update)
+        .then(() => validateContexts(contexts))
+        .then(() => {
+        if (typeof RNConvivaTracker.updateCustomTags === 'function') {
+            return RNConvivaTracker.updateCustomTags({
+                tracker: namespace,
+                put: update.put,
+                remove: update.remove,
+                category: update.category,
+                contexts: contexts
+            });
+        }
+        const removed = update.remove === undefined
+            ? Promise.resolve(true)
+            : RNConvivaTracker.clearCustomTags({ tracker: namespace, tagKeys: update.remove, contexts: contexts });
+        return removed.then(() => {
+            if (update.put === undefined) {
+                return true;
+            }
+            return typeof update.category === 'string'
+                ? RNConvivaTracker.setCustomTagsWithCategory({ tracker: namespace, category: update.category, tags: update.put, contexts: contexts })
+                : RNConvivaTracker.setCustomTags({ tracker: namespace, tags: update.put, contexts: contexts });
+        });
+    })
+        .catch((error) => {
+        throw new Error(`${logMessages.updateCustomTags} ${error.message}`);
+    });
+}
 /**
  * Clears all the previously set Custom Tags
  *
@@ -2847,7 +3065,7 @@ function clearAllCustomTags$1(namespace, contexts = []) {
  * @returns {Promise}
  */
 function trackClickEvent$1(namespace, eventData) {
-    return RNConvivaTracker.trackClickEvent({
+    return eventBatcher.enqueue('click', 'trackClickEvent', {
         tracker: namespace,
         eventData: eventData
     })
@@ -3067,6 +3285,10 @@ function setSubjectData$1(namespace, config) {
     if (!isValidSubjectConf(config)) {
         return Promise.reject(new Error(`${logMessages.setSubjectData} ${logMessages.subject}`));
     }
+    if (typeof RNConvivaTracker.setSubjectData === 'function') {
+        return setSubjectDataInOneCall(namespace, config);
+    }
+    // Older native modules: one call per field, each applied on its own
     const promises = Object.keys(config)
         .map((k) => {
         const fun = setterMap[k];
@@ -3094,6 +3316,53 @@ function setSubjectData$1(namespace, config) {
         return true;
     });
 }
+/**
+ * Validates every field as its single setter would, then hands them to the
+ * native module in one call, so an invalid field rejects before any field
+ * is applied.
+ *
+ * @param namespace {string} - the tracker namespace
+ * @param config {SubjectConfiguration} - the new subject data
+ * @returns - Promise
+ */
+function setSubjectDataInOneCall(namespace, config) {
+    const keys = Object.keys(config).filter((k) => setterMap[k] !== undefined);
+    const invalid = keys.filter((k) => {
+        const value = config[k];
+        if (value === null) {
+            return false;
+        }
+        if (k === 'colorDepth') {
+            return typeof value !== 'number';
+        }
+        if (k === 'screenResolution' || k === 'screenViewport') {
+            return !isScreenSize(value);
+        }
+        return typeof value !== 'string';
+    });
+    if (invalid.length > 0) {
+        const reasons = invalid
+            .reduce((acc, k) => acc + ':' + logMessages['set' + k[0].toUpperCase() + k.slice(1)], logMessages.setSubjectData);
+        return Promise.reject(new Error(reasons));
+    }
+    const details = { tracker: namespace };
+    keys.forEach((k) => {
+        details[k] = config[k];
+    });
+    return Promise.resolve(RNConvivaTracker.setSubjectData(details)).then(() => {
+        if (Object.prototype.hasOwnProperty.call(details, 'userId')) {
+            try {
+                errorTracker._setUserId(details.userId);
+            }
+            catch {
+                /* D7 */
+            }
+        }
+        return true;
+    }, (err) => {
+        throw new Error(`${logMessages.setSubjectData}:${err.message}`);
+    });
+}
 
 /*
  * Copyright (c) 2020-2026 Conviva Inc. All rights reserved.
@@ -3113,6 +3382,25 @@ function getIsInitialised() {
 function setIsInitialised(value) {
     isTrackerInitialised = value;
 }
+let nativePreInitBuffer;
+/**
+ * Whether the native module holds track calls for a tracker that does not
+ * exist yet (Android), so they need not wait for createTracker. Read once
+ * from the module constants; false on modules without the constant (iOS).
+ */
+function hasNativePreInitBuffer() {
+    if (nativePreInitBuffer === undefined) {
+        let constants = null;
+        try {
+            constants = typeof RNConvivaTracker.getConstants === 'function'
+                ? RNConvivaTracker.getConstants()
+                : RNConvivaTracker;
+        }
+        catch { /* fail-silent */ }
+        nativePreInitBuffer = constants != null && constants.preInitBuffer === true;
+    }
+    return nativePreInitBuffer;
+}
 function setRemoteConfigCleanup(fn) {
     stopRemoteConfigSync = fn;
 }
@@ -3408,16 +3696,92 @@ function subscribeForegroundRefresh(source, onPatch) {
         }
     });
 }
+/** Native event carrying the changed remote-config sections. */
+const REMOTE_CONFIG_CHANGED_EVENT = 'ConvivaRemoteConfigChanged';
+/**
+ * Resolves an RNConvivaTracker module that pushes remote-config changes
+ * (`getRemoteConfigState` plus the NativeEventEmitter hooks), or null when
+ * the platform only offers the pull accessor.
+ */
+function resolveRemoteConfigPush() {
+    return resolveTurboOrLegacy('RNConvivaTracker', (m) => typeof m.getRemoteConfigState === 'function' && typeof m.addListener === 'function');
+}
+/**
+ * Builds a `RemoteConfigPatch` from bundle sections as sent by native
+ * (`{ trackerConfiguration, collectionRateLimit, ... }`). Sections that are
+ * absent leave the matching patch fields out.
+ */
+function patchFromSections(sections) {
+    const patch = {};
+    try {
+        if (isObject(sections)) {
+            applyTrackerConfiguration(sections, patch);
+            applyCollectionRateLimit(sections, patch);
+        }
+    }
+    catch {
+        // D7 — schema drift must never throw.
+    }
+    return patch;
+}
+/**
+ * Applies the native remote-config state, then each pushed change. Native
+ * numbers every applied config; a change that does not directly follow the
+ * last version seen (a missed event, or one that raced the initial read)
+ * re-reads the whole state instead of applying a partial diff. Returns a
+ * cleanup function that removes the event subscription.
+ */
+function subscribeRemoteConfigPush(mod, onPatch) {
+    let version = 0;
+    const apply = (sections) => {
+        const patch = patchFromSections(sections);
+        if (Object.keys(patch).length > 0) {
+            onPatch?.(patch);
+        }
+    };
+    const readState = () => Promise.resolve(mod.getRemoteConfigState())
+        .then((state) => {
+        if (isObject(state) && typeof state.version === 'number' && state.version > version) {
+            version = state.version;
+            apply(state.sections);
+        }
+    })
+        .catch(() => { });
+    const subscription = new NativeEventEmitter(mod).addListener(REMOTE_CONFIG_CHANGED_EVENT, (event) => runSafely(() => {
+        if (!isObject(event) || typeof event.version !== 'number' || event.version <= version) {
+            return;
+        }
+        if (event.version !== version + 1) {
+            readState();
+            return;
+        }
+        version = event.version;
+        apply(event.changed);
+    }));
+    readState();
+    return () => runSafely(() => subscription.remove());
+}
 /**
- * Starts remote-config synchronisation:
+ * Starts remote-config synchronisation.
+ *
+ * When native pushes changes (Android), reads the parsed state once and then
+ * applies the changed sections of each ConvivaRemoteConfigChanged event; no
+ * JSON is re-parsed on the JS side. Otherwise:
  *  1. Performs an immediate fetch+apply (init reconcile).
  *  2. Re-fetches on every transition to the `active` AppState, capturing
  *     mid-session remote-config flips.
  *
- * Returns a cleanup function that removes the AppState subscription. Safe to
- * call in environments without AppState (returns a no-op cleanup). Never throws.
+ * Returns a cleanup function that removes the subscription. Safe to call in
+ * environments without AppState (returns a no-op cleanup). Never throws.
  */
 function startRemoteConfigSync(source, onPatch) {
+    if (source === undefined) {
+        const push = resolveRemoteConfigPush();
+        const cleanup = push !== null ? safeCall(() => subscribeRemoteConfigPush(push, onPatch), null) : null;
+        if (cleanup !== null) {
+            return cleanup;
+        }
+    }
     // Fire the initial reconcile as early as possible; do not await so tracker
     // setup is never delayed.
     fetchAndApplyRemoteConfig(source, onPatch).catch(() => { });
@@ -3933,6 +4297,7 @@ function wireJsBundleInfo(initConfig) {
  * @returns A promise fulfilled if the tracker is initialized
  */
 function createTracker$1(initConfig) {
+    eventBatcher.configure(initConfig.batching);
     return initValidate(initConfig)
         .then(() => RNConvivaTracker.createTracker(initConfig))
         .then(() => { setIsInitialised(true); })
@@ -4041,6 +4406,32 @@ function getClientId$1() {
     return Promise.resolve(RNConvivaTracker.getClientId())
         .catch(reThrowGetClientIdError);
 }
+/**
+ * Reads the native module's internal counters, one object per subsystem.
+ * Resolves an empty object where the native module has no diagnostics
+ * (iOS, older native builds).
+ *
+ * @returns A promise of the diagnostics object
+ */
+function getDiagnostics$1() {
+    if (typeof RNConvivaTracker.getDiagnostics !== 'function') {
+        return Promise.resolve({});
+    }
+    return Promise.resolve(RNConvivaTracker.getDiagnostics());
+}
+/**
+ * Reads the native per-method bridge metrics (call and error counts and
+ * latency histograms). Resolves an empty object where the native module
+ * has no bridge metrics (iOS, older native builds).
+ *
+ * @returns A promise of the bridge metrics object
+ */
+function getBridgeMetrics$1() {
+    if (typeof RNConvivaTracker.getBridgeMetrics !== 'function') {
+        return Promise.resolve({});
+    }
+    return Promise.resolve(RNConvivaTracker.getBridgeMetrics());
+}
 /**
  * Set the client id which is in the prescribed format.
  *
@@ -4075,6 +4466,20 @@ function requireInit(fn) {
         return fn(...args);
     };
 }
+/**
+ * `requireInit` for track calls: lets them through before init when the
+ * native module buffers them until the tracker exists (see
+ * `hasNativePreInitBuffer`). Without the buffer (iOS) it rejects as
+ * `requireInit` does.
+ */
+function requireInitOrBuffer(fn) {
+    return (...args) => {
+        if (!getIsInitialised() && !hasNativePreInitBuffer()) {
+            return Promise.reject(new Error(logMessages.createTrackerNotSet));
+        }
+        return fn(...args);
+    };
+}
 
 /*
  * Copyright (c) 2020-2026 Conviva Inc. All rights reserved.
@@ -4153,12 +4558,7 @@ function stopReplay$1() {
  * @returns - A function to track a SelfDescribing event
  */
 function trackSelfDescribingEvent(namespace) {
-    return function (argmap, contexts = []) {
-        if (!getIsInitialised()) {
-            return Promise.reject(new Error(logMessages.createTrackerNotSet));
-        }
-        return trackSelfDescribingEvent$1(namespace, argmap, contexts);
-    };
+    return requireInitOrBuffer((argmap, contexts = []) => trackSelfDescribingEvent$1(namespace, argmap, contexts));
 }
 /**
  * Returns a function to track a ScreenView event by a tracker
@@ -4167,12 +4567,7 @@ function trackSelfDescribingEvent(namespace) {
  * @returns - A function to track a ScreenView event
  */
 function trackScreenViewEvent(namespace) {
-    return function (argmap, contexts = []) {
-        if (!getIsInitialised()) {
-            return Promise.reject(new Error(logMessages.createTrackerNotSet));
-        }
-        return trackScreenViewEvent$1(namespace, argmap, contexts);
-    };
+    return requireInitOrBuffer((argmap, contexts = []) => trackScreenViewEvent$1(namespace, argmap, contexts));
 }
 /**
  * Returns a function to track a Structured event by a tracker
@@ -4181,12 +4576,7 @@ function trackScreenViewEvent(namespace) {
  * @returns - A function to track a Structured event
  */
 function trackStructuredEvent(namespace) {
-    return function (argmap, contexts = []) {
-        if (!getIsInitialised()) {
-            return Promise.reject(new Error(logMessages.createTrackerNotSet));
-        }
-        return trackStructuredEvent$1(namespace, argmap, contexts);
-    };
+    return requireInitOrBuffer((argmap, contexts = []) => trackStructuredEvent$1(namespace, argmap, contexts));
 }
 /**
  * Returns a function to track a PageView event by a tracker
@@ -4195,12 +4585,7 @@ function trackStructuredEvent(namespace) {
  * @returns - A function to track a PageView event
  */
 function trackPageView(namespace) {
-    return function (argmap, contexts = []) {
-        if (!getIsInitialised()) {
-            return Promise.reject(new Error(logMessages.createTrackerNotSet));
-        }
-        return trackPageView$1(namespace, argmap, contexts);
-    };
+    return requireInitOrBuffer((argmap, contexts = []) => trackPageView$1(namespace, argmap, contexts));
 }
 /**
  * Returns a function to track a Timing event by a tracker
@@ -4209,12 +4594,7 @@ function trackPageView(namespace) {
  * @returns - A function to track a Timing event
  */
 function trackTimingEvent(namespace) {
-    return function (argmap, contexts = []) {
-        if (!getIsInitialised()) {
-            return Promise.reject(new Error(logMessages.createTrackerNotSet));
-        }
-        return trackTimingEvent$1(namespace, argmap, contexts);
-    };
+    return requireInitOrBuffer((argmap, contexts = []) => trackTimingEvent$1(namespace, argmap, contexts));
 }
 /**
  * Returns a function to track a ConsentGranted event by a tracker
@@ -4223,12 +4603,7 @@ function trackTimingEvent(namespace) {
  * @returns - A function to track a ConsentGranted event
  */
 function trackConsentGrantedEvent(namespace) {
-    return function (argmap, contexts = []) {
-        if (!getIsInitialised()) {
-            return Promise.reject(new Error(logMessages.createTrackerNotSet));
-        }
-        return trackConsentGrantedEvent$1(namespace, argmap, contexts);
-    };
+    return requireInitOrBuffer((argmap, contexts = []) => trackConsentGrantedEvent$1(namespace, argmap, contexts));
 }
 /**
  * Returns a function to track a ConsentWithdrawn event by a tracker
@@ -4237,12 +4612,7 @@ function trackConsentGrantedEvent(namespace) {
  * @returns - A function to track a ConsentWithdrawn event
  */
 function trackConsentWithdrawnEvent(namespace) {
-    return function (argmap, contexts = []) {
-        if (!getIsInitialised()) {
-            return Promise.reject(new Error(logMessages.createTrackerNotSet));
-        }
-        return trackConsentWithdrawnEvent$1(namespace, argmap, contexts);
-    };
+    return requireInitOrBuffer((argmap, contexts = []) => trackConsentWithdrawnEvent$1(namespace, argmap, contexts));
 }
 /**
  * Returns a function to track an EcommerceTransaction event by a tracker
@@ -4251,12 +4621,7 @@ function trackConsentWithdrawnEvent(namespace) {
  * @returns - A function to track an EcommerceTransaction event
  */
 function trackEcommerceTransactionEvent(namespace) {
-    return function (argmap, contexts = []) {
-        if (!getIsInitialised()) {
-            return Promise.reject(new Error(logMessages.createTrackerNotSet));
-        }
-        return trackEcommerceTransactionEvent$1(namespace, argmap, contexts);
-    };
+    return requireInitOrBuffer((argmap, contexts = []) => trackEcommerceTransactionEvent$1(namespace, argmap, contexts));
 }
 /**
  * Returns a function to track an DeepLinkReceived event by a tracker
@@ -4265,12 +4630,7 @@ function trackEcommerceTransactionEvent(namespace) {
  * @returns - A function to track an DeepLinkReceived event
  */
 function trackDeepLinkReceivedEvent(namespace) {
-    return function (argmap, contexts = []) {
-        if (!getIsInitialised()) {
-            return Promise.reject(new Error(logMessages.createTrackerNotSet));
-        }
-        return trackDeepLinkReceivedEvent$1(namespace, argmap, contexts);
-    };
+    return requireInitOrBuffer((argmap, contexts = []) => trackDeepLinkReceivedEvent$1(namespace, argmap, contexts));
 }
 /**
  * Returns a function to track an MessageNotification event by a tracker
@@ -4279,12 +4639,7 @@ function trackDeepLinkReceivedEvent(namespace) {
  * @returns - A function to track an MessageNotification event
  */
 function trackMessageNotificationEvent(namespace) {
-    return function (argmap, contexts = []) {
-        if (!getIsInitialised()) {
-            return Promise.reject(new Error(logMessages.createTrackerNotSet));
-        }
-        return trackMessageNotificationEvent$1(namespace, argmap, contexts);
-    };
+    return requireInitOrBuffer((argmap, contexts = []) => trackMessageNotificationEvent$1(namespace, argmap, contexts));
 }
 /**
  * Returns a function to track an MessageNotification event by a tracker
@@ -4293,12 +4648,7 @@ function trackMessageNotificationEvent(namespace) {
  * @returns - A function to track an MessageNotification event
  */
 function trackCustomEvent(namespace) {
-    return function (eventName, eventData, contexts = []) {
-        if (!getIsInitialised()) {
-            return Promise.reject(new Error(logMessages.createTrackerNotSet));
-        }
-        return trackCustomEvent$1(namespace, eventName, eventData, contexts);
-    };
+    return requireInitOrBuffer((eventName, eventData, contexts = []) => trackCustomEvent$1(namespace, eventName, eventData, contexts));
 }
 /**
  * Returns a function to track a RevenueEvent by a tracker
@@ -4307,12 +4657,7 @@ function trackCustomEvent(namespace) {
  * @returns - A function to track a RevenueEvent
  */
 function trackRevenueEvent(namespace) {
-    return function (argmap, contexts = []) {
-        if (!getIsInitialised()) {
-            return Promise.reject(new Error(logMessages.createTrackerNotSet));
-        }
-        return trackRevenueEvent$1(namespace, argmap, contexts);
-    };
+    return requireInitOrBuffer((argmap, contexts = []) => trackRevenueEvent$1(namespace, argmap, contexts));
 }
 function setCustomTags(namespace) {
     return function (tags, contexts = []) {
@@ -4338,6 +4683,14 @@ function clearCustomTags(namespace) {
         return clearCustomTags$1(namespace, tagKeys, contexts);
     };
 }
+function updateCustomTags(namespace) {
+    return function (update, contexts = []) {
+        if (!getIsInitialised()) {
+            return Promise.reject(new Error(logMessages.createTrackerNotSet));
+        }
+        return updateCustomTags$1(namespace, update, contexts);
+    };
+}
 function clearAllCustomTags(namespace) {
     return function (contexts = []) {
         if (!getIsInitialised()) {
@@ -4574,12 +4927,7 @@ function getForegroundIndex(namespace) {
  * @returns - A function to track click event
  */
 function trackClickEvent(namespace) {
-    return function (eventData) {
-        if (!getIsInitialised()) {
-            return Promise.reject(new Error(logMessages.createTrackerNotSet));
-        }
-        return trackClickEvent$1(namespace, eventData);
-    };
+    return requireInitOrBuffer((eventData) => trackClickEvent$1(namespace, eventData));
 }
 
 /*
@@ -5144,21 +5492,26 @@ controllerConfig = {}) {
     const mkMethodAlwaysLog = safeWait(initTrackerPromise, (err) => errorHandler(err, true));
     // mkCallback creates callbacks subscribed to the initTrackerPromise
     const mkCallback = safeWaitCallback(initTrackerPromise, errorHandler);
+    // mkTrack and mkTrackAlwaysLog call through at once when the native module
+    // buffers events until the tracker exists, and wait like mkMethod otherwise
+    const buffered = hasNativePreInitBuffer();
+    const mkTrack = buffered ? safeForward(errorHandler) : mkMethod;
+    const mkTrackAlwaysLog = buffered ? safeForward((err) => errorHandler(err, true)) : mkMethodAlwaysLog;
     // track methods
     const namespace = "CAT"; //default namespace is "CAT"
-    const trackSelfDescribingEvent$1 = mkMethod(trackSelfDescribingEvent(namespace));
-    const trackScreenViewEvent$1 = mkMethod(trackScreenViewEvent(namespace));
-    const trackStructuredEvent$1 = mkMethod(trackStructuredEvent(namespace));
-    const trackPageView$1 = mkMethod(trackPageView(namespace));
-    const trackTimingEvent$1 = mkMethod(trackTimingEvent(namespace));
-    const trackConsentGrantedEvent$1 = mkMethod(trackConsentGrantedEvent(namespace));
-    const trackConsentWithdrawnEvent$1 = mkMethod(trackConsentWithdrawnEvent(namespace));
-    const trackEcommerceTransactionEvent$1 = mkMethod(trackEcommerceTransactionEvent(namespace));
-    const trackDeepLinkReceivedEvent$1 = mkMethod(trackDeepLinkReceivedEvent(namespace));
-    const trackMessageNotificationEvent$1 = mkMethod(trackMessageNotificationEvent(namespace));
-    const trackCustomEvent$1 = mkMethod(trackCustomEvent(namespace));
-    const trackRevenueEvent$1 = mkMethodAlwaysLog(trackRevenueEvent(namespace));
-    const trackClickEvent$1 = mkMethod(trackClickEvent(namespace));
+    const trackSelfDescribingEvent$1 = mkTrack(trackSelfDescribingEvent(namespace));
+    const trackScreenViewEvent$1 = mkTrack(trackScreenViewEvent(namespace));
+    const trackStructuredEvent$1 = mkTrack(trackStructuredEvent(namespace));
+    const trackPageView$1 = mkTrack(trackPageView(namespace));
+    const trackTimingEvent$1 = mkTrack(trackTimingEvent(namespace));
+    const trackConsentGrantedEvent$1 = mkTrack(trackConsentGrantedEvent(namespace));
+    const trackConsentWithdrawnEvent$1 = mkTrack(trackConsentWithdrawnEvent(namespace));
+    const trackEcommerceTransactionEvent$1 = mkTrack(trackEcommerceTransactionEvent(namespace));
+    const trackDeepLinkReceivedEvent$1 = mkTrack(trackDeepLinkReceivedEvent(namespace));
+    const trackMessageNotificationEvent$1 = mkTrack(trackMessageNotificationEvent(namespace));
+    const trackCustomEvent$1 = mkTrack(trackCustomEvent(namespace));
+    const trackRevenueEvent$1 = mkTrackAlwaysLog(trackRevenueEvent(namespace));
+    const trackClickEvent$1 = mkTrack(trackClickEvent(namespace));
     // trackError uses mkMethodAlwaysLog so misconfigured error paths surface
     // even in production builds — the whole point of error reporting.
     const trackError = mkMethodAlwaysLog(trackError$1(namespace));
@@ -5167,6 +5520,7 @@ controllerConfig = {}) {
     const setCustomTags$1 = mkMethod(setCustomTags(namespace));
     const setCustomTagsWithCategory$1 = mkMethod(setCustomTagsWithCategory(namespace));
     const clearCustomTags$1 = mkMethod(clearCustomTags(namespace));
+    const updateCustomTags$1 = mkMethod(updateCustomTags(namespace));
     const clearAllCustomTags$1 = mkMethod(clearAllCustomTags(namespace));
     // Global Contexts
     const removeGlobalContexts$1 = mkMethod(removeGlobalContexts(namespace));
@@ -5206,6 +5560,7 @@ controllerConfig = {}) {
         setCustomTags: setCustomTags$1,
         setCustomTagsWithCategory: setCustomTagsWithCategory$1,
         clearCustomTags: clearCustomTags$1,
+        updateCustomTags: updateCustomTags$1,
         clearAllCustomTags: clearAllCustomTags$1,
         removeGlobalContexts: removeGlobalContexts$1,
         addGlobalContexts: addGlobalContexts$1,
@@ -5268,6 +5623,27 @@ function getClientId() {
     return Promise.resolve(getClientId$1())
         .catch((e) => errorHandler(e));
 }
+/**
+ * Gets the native tracker diagnostics (e.g. fire-and-forget call and
+ * failure counts)
+ *
+ * @returns - An object promise
+ */
+function getDiagnostics() {
+    return Promise.resolve(getDiagnostics$1())
+        .catch((e) => errorHandler(e));
+}
+/**
+ * Gets the native bridge metrics: per-method call counts, error counts and
+ * latency histograms, plus the conversion, lookup and track stages.
+ * Counters stay empty unless bridgeMetricsConfig enables them.
+ *
+ * @returns - An object promise
+ */
+function getBridgeMetrics() {
+    return Promise.resolve(getBridgeMetrics$1())
+        .catch((e) => errorHandler(e));
+}
 /**
  * Sets the cliend id
  *
@@ -5357,5 +5733,5 @@ var index = {
     withReactNavigationAutotrack: withReactNavigationAutotrack(autocaptureNavigationTrack)
 };
 
-export { CR_NO_CAPTURE, ConvivaErrorBoundary, MockBridgeAdapter, autocaptureNavigationTrack, cleanup, crNoCaptureProps, createTracker, index as default, errorTracker, getClientId, getWebViewCallback, removeAllTrackers, removeTracker, setClientId, startReplay, stopReplay, trackError, withReactNavigationAutotrack };
+export { CR_NO_CAPTURE, ConvivaErrorBoundary, MockBridgeAdapter, autocaptureNavigationTrack, cleanup, crNoCaptureProps, createTracker, index as default, errorTracker, getBridgeMetrics, getClientId, getDiagnostics, getWebViewCallback, removeAllTrackers, removeTracker, setClientId, startReplay, stopReplay, trackError, withReactNavigationAutotrack };
 //# sourceMappingURL=conviva-react-native-appanalytics.js.map
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2020-2026 Conviva Inc. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and
+ * limitations there under.
+ */
+
+import type { TurboModule } from 'react-native';
+import { TurboModuleRegistry } from 'react-native';
+import type { UnsafeObject } from 'react-native/Libraries/Types/CodegenTypes';
+
+/**
+ * Codegen spec of the RNConvivaTracker native module.
+ *
+ * Must list every method the Android module exposes: under the new
+ * architecture only the methods declared here are reachable from JS.
+ */
+export interface Spec extends TurboModule {
+  getConstants(): {
+    // Track calls made before createTracker are held until the tracker exists
+    preInitBuffer: boolean;
+  };
+  createTracker(argmap: UnsafeObject): Promise<boolean>;
+  removeTracker(details: UnsafeObject): Promise<boolean>;
+  cleanup(): Promise<boolean>;
+  removeAllTrackers(): Promise<boolean>;
+  setClientId(argmap: UnsafeObject): Promise<boolean>;
+  getClientId(): Promise<string>;
+
+  trackSelfDescribingEvent(details: UnsafeObject): Promise<boolean>;
+  trackStructuredEvent(details: UnsafeObject): Promise<boolean>;
+  trackScreenViewEvent(details: UnsafeObject): Promise<boolean>;
+  trackPageView(details: UnsafeObject): Promise<boolean>;
+  trackTimingEvent(details: UnsafeObject): Promise<boolean>;
+  trackConsentGrantedEvent(details: UnsafeObject): Promise<boolean>;
+  trackConsentWithdrawnEvent(details: UnsafeObject): Promise<boolean>;
+  trackEcommerceTransactionEvent(details: UnsafeObject): Promise<boolean>;
+  trackDeepLinkReceivedEvent(details: UnsafeObject): Promise<boolean>;
+  trackMessageNotificationEvent(details: UnsafeObject): Promise<boolean>;
+  trackCustomEvent(details: UnsafeObject): Promise<boolean>;
+  trackRevenueEvent(details: UnsafeObject): Promise<boolean>;
+  trackClickEvent(details: UnsafeObject): Promise<boolean>;
+  trackEventsBatch(events: UnsafeObject[]): Promise<UnsafeObject>;
+
+  // Fire-and-forget variants: no promise, failures are counted natively
+  // and surfaced through getDiagnostics.
+  fireEventsBatch(events: UnsafeObject[]): void;
+  fireScreenViewEvent(
+    namespace: string | null,
+    name: string,
+    id: string | null,
+    type: string | null,
+    previousName: string | null,
+    previousType: string | null,
+    previousId: string | null,
+    transitionType: string | null,
+    contexts: UnsafeObject[] | null
+  ): void;
+  fireStructuredEvent(
+    namespace: string | null,
+    category: string,
+    action: string,
+    label: string | null,
+    property: string | null,
+    value: number, // NaN when absent
+    contexts: UnsafeObject[] | null
+  ): void;
+  fireSelfDescribingEvent(
+    namespace: string | null,
+    schema: string,
+    data: UnsafeObject,
+    contexts: UnsafeObject[] | null
+  ): void;
+  fireCustomEvent(namespace: string | null, eventName: string, eventData: UnsafeObject): void;
+  fireClickEvent(namespace: string | null, eventData: UnsafeObject): void;
+
+  setCustomTags(details: UnsafeObject): Promise<boolean>;
+  setCustomTagsWithCategory(details: UnsafeObject): Promise<boolean>;
+  clearCustomTags(details: UnsafeObject): Promise<boolean>;
+  updateCustomTags(details: UnsafeObject): Promise<boolean>;
+  clearAllCustomTags(details: UnsafeObject): Promise<boolean>;
+  removeGlobalContexts(details: UnsafeObject): Promise<boolean>;
+  addGlobalContexts(details: UnsafeObject): Promise<boolean>;
+
+  setSubjectData(details: UnsafeObject): Promise<boolean>;
+  setUserId(details: UnsafeObject): Promise<boolean>;
+  setNetworkUserId(details: UnsafeObject): Promise<boolean>;
+  setDomainUserId(details: UnsafeObject): Promise<boolean>;
+  setIpAddress(details: UnsafeObject): Promise<boolean>;
+  setUseragent(details: UnsafeObject): Promise<boolean>;
+  setTimezone(details: UnsafeObject): Promise<boolean>;
+  setLanguage(details: UnsafeObject): Promise<boolean>;
+  setScreenResolution(details: UnsafeObject): Promise<boolean>;
+  setScreenViewport(details: UnsafeObject): Promise<boolean>;
+  setColorDepth(details: UnsafeObject): Promise<boolean>;
+
+  getSessionUserId(details: UnsafeObject): Promise<boolean>;
+  getSessionId(details: UnsafeObject): Promise<boolean>;
+  getSessionIndex(details: UnsafeObject): Promise<boolean>;
+  getIsInBackground(details: UnsafeObject): Promise<boolean>;
+  getBackgroundIndex(details: UnsafeObject): Promise<boolean>;
+  getForegroundIndex(details: UnsafeObject): Promise<boolean>;
+
+  startReplay(): Promise<boolean>;
+  stopReplay(): Promise<boolean>;
+  setJsBundleInfo(details: UnsafeObject): Promise<boolean>;
+  getRemoteConfig(): Promise<string | null>;
+  getRemoteConfigState(): Promise<UnsafeObject>;
+  reportJsError(payloadJson: string): void;
+  getDiagnostics(): Promise<UnsafeObject>;
+  getBridgeMetrics(): Promise<UnsafeObject>;
+
+  // NativeEventEmitter bookkeeping for ConvivaRemoteConfigChanged
+  addListener(eventName: string): void;
+  removeListeners(count: number): void;
+}
+
+export default TurboModuleRegistry.get<Spec>('RNConvivaTracker');